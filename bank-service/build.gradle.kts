@@ -61,7 +61,7 @@ dependencies {
 	runtimeOnly("javax.cache:cache-api:1.1.1")
 	annotationProcessor("org.mapstruct:mapstruct-processor:1.5.5.Final")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
-	runtimeOnly("org.postgresql:postgresql")
+	implementation("org.postgresql:postgresql")
 
         implementation(platform("com.squareup.okhttp3:okhttp-bom:4.12.0"))
 	implementation("com.squareup.okhttp3:okhttp")
@@ -1,21 +1,31 @@
 package rs.banka4.bank_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.Period;
 import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rs.banka4.bank_service.controller.docs.ListingApiDocumentation;
 import rs.banka4.bank_service.domain.listing.dtos.ListingDetailsDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingInfoDto;
 import rs.banka4.bank_service.domain.listing.dtos.OptionDto;
 import rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
 import rs.banka4.bank_service.service.abstraction.ListingService;
 import rs.banka4.rafeisen.common.security.AuthenticatedBankUserAuthentication;
 import rs.banka4.rafeisen.common.security.UserType;
@@ -25,8 +35,12 @@ import rs.banka4.rafeisen.common.security.UserType;
 @RequiredArgsConstructor
 public class ListingController implements ListingApiDocumentation {
 
+    /** Period of price history returned when the start of the range is not given. */
+    private static final Period DEFAULT_PRICE_HISTORY_PERIOD = Period.ofYears(1);
+
     // Note: The @Primary annotation in the mock service should be deleted.
     private final ListingService listingService;
+    private final ObjectMapper objectMapper;
 
     @Override
     @GetMapping
@@ -51,6 +65,60 @@ public class ListingController implements ListingApiDocumentation {
         return new ResponseEntity<>(listingService.getPriceChanges(securityId), HttpStatus.OK);
     }
 
+    @Override
+    @GetMapping("/{securityId}/priceHistory")
+    public ResponseEntity<StreamingResponseBody> getPriceHistory(
+        @PathVariable UUID securityId,
+        @RequestParam(required = false) OffsetDateTime from,
+        @RequestParam(required = false) OffsetDateTime to,
+        @RequestParam(defaultValue = "DAY") PriceHistoryResolution resolution,
+        WebRequest request
+    ) {
+        final var end =
+            to != null
+                ? to
+                : LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE)
+                    .plusDays(1)
+                    .atStartOfDay(AssetVolumeService.TRADING_DAY_ZONE)
+                    .toOffsetDateTime();
+        final var start = from != null ? from : end.minus(DEFAULT_PRICE_HISTORY_PERIOD);
+
+        final var lastModified = listingService.getPriceHistoryLastModified(securityId);
+        /* Built from the inputs themselves rather than a hash of them, so that it cannot collide. */
+        final var etag =
+            "\"%s/%s/%s/%s/%s\"".formatted(
+                securityId,
+                start.toInstant(),
+                end.toInstant(),
+                resolution,
+                lastModified.map(OffsetDateTime::toInstant)
+                    .map(Object::toString)
+                    .orElse("none")
+            );
+        if (request.checkNotModified(etag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .build();
+
+        StreamingResponseBody body = out -> {
+            try (var generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                listingService.streamPriceHistory(securityId, start, end, resolution, point -> {
+                    try {
+                        generator.writeObject(point);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
     @GetMapping("/{securityId}")
     public ResponseEntity<ListingDetailsDto> getListingDetails(@PathVariable UUID securityId) {
         return new ResponseEntity<>(listingService.getListingDetails(securityId), HttpStatus.OK);
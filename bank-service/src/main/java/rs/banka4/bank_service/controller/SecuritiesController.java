@@ -81,8 +81,10 @@ public class SecuritiesController implements SecuritiesApiDocumentation {
                 position,
                 PageRequest.of(page, size)
             );
+        var profits =
+            profitCalculationService.calculateRealizedProfitForActuaries(actuaries.getContent());
         return ResponseEntity.ok(actuaries.map((actuary) -> {
-            var profit = profitCalculationService.calculateRealizedProfitForActuary(actuary);
+            var profit = profits.get(actuary.getId());
             return new ActuaryProfitDto(
                 profit,
                 actuary.getFirstName(),
@@ -2,6 +2,7 @@ package rs.banka4.bank_service.controller.docs;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,12 +13,15 @@ import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rs.banka4.bank_service.domain.listing.dtos.ListingDetailsDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingInfoDto;
 import rs.banka4.bank_service.domain.listing.dtos.OptionDto;
 import rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
 
 public interface ListingApiDocumentation {
     @Operation(
@@ -74,6 +78,45 @@ public interface ListingApiDocumentation {
         @Parameter(description = "security to show price change for") UUID securityId
     );
 
+    @Operation(
+        summary = "Get price history of a security",
+        description = "Retrieves the last price of each day, week or month within the given range,"
+            + " oldest first. Responses carry an ETag, and a request with a matching If-None-Match"
+            + " header is answered with 304 Not Modified.",
+        security = @SecurityRequirement(name = "bearerAuth"),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved data",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = PriceChangeDto.class))
+                )
+            ),
+            @ApiResponse(
+                responseCode = "304",
+                description = "Price history did not change since the given ETag"
+            ),
+            @ApiResponse(
+                responseCode = "403",
+                description = "Forbidden"
+            )
+        }
+    )
+    ResponseEntity<StreamingResponseBody> getPriceHistory(
+        @Parameter(description = "security to show price history for") UUID securityId,
+        @Parameter(
+            description = "Start of the range, inclusive. Defaults to one year before its end"
+        ) OffsetDateTime from,
+        @Parameter(
+            description = "End of the range, exclusive. Defaults to the end of the current day"
+        ) OffsetDateTime to,
+        @Parameter(
+            description = "One point per DAY, WEEK or MONTH"
+        ) PriceHistoryResolution resolution,
+        WebRequest request
+    );
+
     @Operation(
         summary = "Get details for latest listing for a security",
         description = "Retrieves all data specific to a listing of security",
@@ -0,0 +1,112 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import rs.banka4.bank_service.domain.orders.db.Order;
+import rs.banka4.bank_service.domain.orders.db.OrderType;
+
+/**
+ * The arithmetic of the FIFO lot ledger: fees charged on fills, and consumption of the oldest lots
+ * by sells.
+ */
+public final class FifoLots {
+    private FifoLots() {
+    }
+
+    /** Quantity and cost of the lots consumed by a sell. */
+    public record Consumption(int quantity, BigDecimal cost) {
+    }
+
+    /**
+     * @return the fee of an order of the given type on a gross amount of {@code gross}: 14% capped
+     *         at 7 for market orders, 24% capped at 12 for limit orders, and nothing otherwise
+     */
+    public static BigDecimal fee(OrderType orderType, BigDecimal gross) {
+        return switch (orderType) {
+        case MARKET ->
+            gross.multiply(BigDecimal.valueOf(0.14))
+                .min(BigDecimal.valueOf(7));
+        case LIMIT ->
+            gross.multiply(BigDecimal.valueOf(0.24))
+                .min(BigDecimal.valueOf(12));
+        default -> BigDecimal.ZERO;
+        };
+    }
+
+    /**
+     * Returns the part of the fee of an order which falls on {@code quantity} units filled after
+     * the first {@code filledBefore}, so that the fees of all fills of an order add up to the fee
+     * of the order as a whole.
+     */
+    public static BigDecimal fee(
+        OrderType orderType,
+        BigDecimal price,
+        int filledBefore,
+        int quantity
+    ) {
+        return fee(orderType, price.multiply(BigDecimal.valueOf(filledBefore + quantity))).subtract(
+            fee(orderType, price.multiply(BigDecimal.valueOf(filledBefore)))
+        );
+    }
+
+    /**
+     * @return the quantity of {@code order} filled so far. Done orders count in full.
+     */
+    public static int filled(Order order) {
+        return order.isDone()
+            ? order.getQuantity()
+            : order.getQuantity() - order.getRemainingPortions();
+    }
+
+    /**
+     * Returns the part of the fee of {@code order} which falls on its latest fill.
+     *
+     * @param order an order whose remaining portions already account for the fill
+     * @param quantity the quantity filled
+     */
+    public static BigDecimal feeForFill(Order order, int quantity) {
+        return fee(
+            order.getOrderType(),
+            order.getPricePerUnit()
+                .getAmount(),
+            order.getQuantity() - order.getRemainingPortions() - quantity,
+            quantity
+        );
+    }
+
+    /**
+     * Consumes up to {@code quantity} from {@code lots}, oldest first. Consumed lots are left with
+     * a quantity and cost of zero, and a partly consumed lot keeps the cost of what remains of it.
+     *
+     * @param lots the open lots of a position, in the order they were acquired
+     * @param quantity the quantity sold
+     * @return what was consumed, which is less than {@code quantity} if the lots run out
+     */
+    public static Consumption consume(List<PositionLot> lots, int quantity) {
+        int remaining = quantity;
+        BigDecimal cost = BigDecimal.ZERO;
+        for (PositionLot lot : lots) {
+            if (remaining == 0) break;
+            if (lot.getQuantity() <= remaining) {
+                remaining -= lot.getQuantity();
+                cost = cost.add(lot.getCost());
+                lot.setQuantity(0);
+                lot.setCost(BigDecimal.ZERO);
+                continue;
+            }
+            BigDecimal portion =
+                lot.getCost()
+                    .multiply(BigDecimal.valueOf(remaining))
+                    .divide(BigDecimal.valueOf(lot.getQuantity()), 8, RoundingMode.HALF_UP);
+            cost = cost.add(portion);
+            lot.setCost(
+                lot.getCost()
+                    .subtract(portion)
+            );
+            lot.setQuantity(lot.getQuantity() - remaining);
+            remaining = 0;
+        }
+        return new Consumption(quantity - remaining, cost);
+    }
+}
@@ -0,0 +1,32 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of the open {@link PositionLot}s of a user in an asset, kept up to date by
+ * {@link rs.banka4.bank_service.service.abstraction.PositionLedgerService} as orders are filled.
+ * Users who hold none of an asset have no row.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "positions")
+public class Position {
+    @EmbeddedId
+    private PositionId id;
+
+    /** Total quantity of the open lots. */
+    @Column(nullable = false)
+    private int quantity;
+
+    /** Total remaining cost of the open lots, buy fees included. */
+    @Column(nullable = false)
+    private BigDecimal costBasis;
+}
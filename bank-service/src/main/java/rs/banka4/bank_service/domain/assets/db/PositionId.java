@@ -0,0 +1,26 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PositionId {
+    @Column(
+        name = "user_id",
+        nullable = false
+    )
+    private UUID userId;
+
+    @Column(
+        name = "asset_id",
+        nullable = false
+    )
+    private UUID assetId;
+}
@@ -0,0 +1,48 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantity of an asset bought by one buy fill which has not been sold yet. Sells consume lots in
+ * the order they were acquired; a lot which is only partly consumed keeps the cost of its remaining
+ * quantity.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "position_lots")
+public class PositionLot {
+    @Id
+    @Builder.Default
+    private UUID id = UUID.randomUUID();
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private UUID assetId;
+
+    /** The buy order whose fill opened this lot. */
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Column(nullable = false)
+    private OffsetDateTime acquiredAt;
+
+    /** Quantity not consumed by sells yet. */
+    @Column(nullable = false)
+    private int quantity;
+
+    /** Cost of {@link #quantity}, including its share of the buy fee. */
+    @Column(nullable = false)
+    private BigDecimal cost;
+}
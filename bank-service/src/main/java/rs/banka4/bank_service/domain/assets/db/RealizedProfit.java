@@ -0,0 +1,53 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+
+/**
+ * Profit realized by one sell fill: its proceeds, net of the sell fee, less the cost of the lots it
+ * consumed. A sell order filled in several parts has one row per fill.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "realized_profits")
+public class RealizedProfit {
+    @Id
+    @Builder.Default
+    private UUID id = UUID.randomUUID();
+
+    @Column(nullable = false)
+    private UUID sellOrderId;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private UUID assetId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private BigDecimal proceeds;
+
+    /** Cost of the consumed lots. Zero for any quantity sold beyond the open lots. */
+    @Column(nullable = false)
+    private BigDecimal cost;
+
+    /** In the currency of the sell price. */
+    @Column(nullable = false)
+    private MonetaryAmount profit;
+
+    @Column(nullable = false)
+    private OffsetDateTime realizedAt;
+}
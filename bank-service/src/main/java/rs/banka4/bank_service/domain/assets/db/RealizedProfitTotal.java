@@ -0,0 +1,9 @@
+package rs.banka4.bank_service.domain.assets.db;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/** Sum of the profit a user realized in one currency. */
+public record RealizedProfitTotal(UUID userId, CurrencyCode currency, BigDecimal amount) {
+}
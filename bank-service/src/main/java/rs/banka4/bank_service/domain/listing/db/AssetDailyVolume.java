@@ -0,0 +1,26 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of orders made for an asset during one trading day. Rows are maintained incrementally by
+ * {@link rs.banka4.bank_service.service.abstraction.AssetVolumeService} as orders are created, so
+ * reading the volume of an asset never requires counting orders.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "asset_daily_volumes")
+public class AssetDailyVolume {
+    @EmbeddedId
+    private AssetDailyVolumeId id;
+
+    @Column(nullable = false)
+    private int volume;
+}
@@ -0,0 +1,28 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssetDailyVolumeId {
+    @Column(
+        name = "asset_id",
+        nullable = false
+    )
+    private UUID assetId;
+
+    /** Trading day, in {@code Europe/Belgrade} time. */
+    @Column(
+        name = "day",
+        nullable = false
+    )
+    private LocalDate day;
+}
@@ -0,0 +1,46 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Open, high, low and close prices of a security during one trading day, so far. Rows are updated
+ * in bulk every time listings are refreshed (see
+ * {@link rs.banka4.bank_service.repositories.DailyQuoteAggregateRepository#accumulateActiveListings()}),
+ * and turned into {@link ListingDailyPriceInfo} rows once the day is over.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "daily_quote_aggregates")
+public class DailyQuoteAggregate {
+    @EmbeddedId
+    private DailyQuoteAggregateId id;
+
+    /** Exchange of the latest listing of the day. */
+    @Column(nullable = false)
+    private UUID exchangeId;
+
+    /** Mid price of the first listing of the day. */
+    @Column(nullable = false)
+    private BigDecimal open;
+
+    /** Highest ask of the day. */
+    @Column(nullable = false)
+    private BigDecimal high;
+
+    /** Lowest bid of the day. */
+    @Column(nullable = false)
+    private BigDecimal low;
+
+    /** Mid price of the latest listing of the day. */
+    @Column(nullable = false)
+    private BigDecimal close;
+}
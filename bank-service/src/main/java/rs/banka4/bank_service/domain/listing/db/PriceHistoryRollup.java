@@ -0,0 +1,33 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The last {@link ListingDailyPriceInfo} of a security within a week or a month, so that long
+ * price histories can be charted without reading every day. Rollups are updated as daily price
+ * info is written, see
+ * {@link rs.banka4.bank_service.repositories.PriceHistoryRollupRepository#rollUp}.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "price_history_rollups")
+public class PriceHistoryRollup {
+    @EmbeddedId
+    private PriceHistoryRollupId id;
+
+    /** Date of the daily price info this bucket currently ends with. */
+    @Column(nullable = false)
+    private OffsetDateTime date;
+
+    @Column(nullable = false)
+    private BigDecimal lastPrice;
+}
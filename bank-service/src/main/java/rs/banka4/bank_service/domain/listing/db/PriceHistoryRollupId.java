@@ -0,0 +1,38 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceHistoryRollupId {
+    @Column(
+        name = "security_id",
+        nullable = false
+    )
+    private UUID securityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(
+        name = "resolution",
+        nullable = false
+    )
+    private PriceHistoryResolution resolution;
+
+    /** First day of the bucket, in {@code Europe/Belgrade} time. */
+    @Column(
+        name = "bucket_start",
+        nullable = false
+    )
+    private LocalDate bucketStart;
+}
@@ -0,0 +1,31 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A past quote of a security. The current quote of every security lives in its active
+ * {@link Listing}, which is updated in place on each refresh; the quote it held is appended here.
+ * The table is partitioned by day, and partitions older than the retention period are dropped by
+ * {@link rs.banka4.bank_service.utils.QuoteHistoryPartitionScheduler}.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "quote_history")
+public class QuoteHistoryEntry {
+    @EmbeddedId
+    private QuoteHistoryId id;
+
+    @Column(nullable = false)
+    private BigDecimal bid;
+
+    @Column(nullable = false)
+    private BigDecimal ask;
+}
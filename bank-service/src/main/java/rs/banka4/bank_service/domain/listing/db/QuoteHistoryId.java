@@ -0,0 +1,28 @@
+package rs.banka4.bank_service.domain.listing.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuoteHistoryId {
+    @Column(
+        name = "security_id",
+        nullable = false
+    )
+    private UUID securityId;
+
+    /** Time of the listing refresh which produced this quote. */
+    @Column(
+        name = "refreshed_at",
+        nullable = false
+    )
+    private OffsetDateTime refreshedAt;
+}
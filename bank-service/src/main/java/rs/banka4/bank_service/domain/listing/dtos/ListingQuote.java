@@ -0,0 +1,45 @@
+package rs.banka4.bank_service.domain.listing.dtos;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * The current quote of an active listing, together with what is needed from its exchange to price
+ * an order. Unlike the {@link Listing} it was taken from, this can be shared between threads.
+ *
+ * @param id ID of the listing
+ * @param securityId ID of the listed security
+ * @param currency currency of the exchange, which the quote is in
+ * @param openTime when the exchange opens
+ * @param closeTime when the exchange closes
+ */
+public record ListingQuote(
+    UUID id,
+    UUID securityId,
+    CurrencyCode currency,
+    OffsetDateTime openTime,
+    OffsetDateTime closeTime,
+    BigDecimal bid,
+    BigDecimal ask,
+    int contractSize,
+    OffsetDateTime lastRefresh
+) {
+    public static ListingQuote of(Listing listing) {
+        final var exchange = listing.getExchange();
+        return new ListingQuote(
+            listing.getId(),
+            listing.getSecurity()
+                .getId(),
+            exchange.getCurrency(),
+            exchange.getOpenTime(),
+            exchange.getCloseTime(),
+            listing.getBid(),
+            listing.getAsk(),
+            listing.getContractSize(),
+            listing.getLastRefresh()
+        );
+    }
+}
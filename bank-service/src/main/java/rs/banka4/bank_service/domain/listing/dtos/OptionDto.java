@@ -8,24 +8,31 @@ import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 @Schema(
     description = "Dto in exact format needed for options table in specification example 2 with needed extension.\n"
         + "Dto includes two options, one call and one put for one strike price for one settlement date. \n"
-        + "As we dont have our mechanism for options listings, last price and change will be 0 always..."
+        + "As we dont have our mechanism for options listings, last price and change will be 0 always...\n"
+        + "If there is no call or no put for a strike price, all fields of that side are null."
 )
 public record OptionDto(
     UUID callsId,
     BigDecimal callsLastPrice,
     BigDecimal callsChange,
-    double callsImpliedVolatility,
-    int callsVolume,
-    int callsOpenInterest,
+    Double callsImpliedVolatility,
+    Integer callsVolume,
+    Integer callsOpenInterest,
     @Schema(description = "price of call option") MonetaryAmount callsPremium,
+    @Schema(
+        description = "greeks of call option, null if the stock has no active listing"
+    ) OptionGreeksDto callsGreeks,
     BigDecimal strike,
     UUID putsId,
     BigDecimal putsLastPrice,
     BigDecimal putsChange,
-    double putsImpliedVolatility,
-    int putsVolume,
-    int putsOpenInterest,
-    @Schema(description = "price of put option") MonetaryAmount putsPremium
+    Double putsImpliedVolatility,
+    Integer putsVolume,
+    Integer putsOpenInterest,
+    @Schema(description = "price of put option") MonetaryAmount putsPremium,
+    @Schema(
+        description = "greeks of put option, null if the stock has no active listing"
+    ) OptionGreeksDto putsGreeks
 ) {
 
 }
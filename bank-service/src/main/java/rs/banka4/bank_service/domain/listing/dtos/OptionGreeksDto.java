@@ -0,0 +1,12 @@
+package rs.banka4.bank_service.domain.listing.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Black-Scholes greeks of an option at the current price of its stock")
+public record OptionGreeksDto(
+    @Schema(description = "change in premium per unit change of the stock price") double delta,
+    @Schema(description = "change in delta per unit change of the stock price") double gamma,
+    @Schema(description = "change in premium per calendar day") double theta,
+    @Schema(description = "change in premium per percentage point of volatility") double vega
+) {
+}
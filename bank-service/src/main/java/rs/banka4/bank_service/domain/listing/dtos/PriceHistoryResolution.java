@@ -0,0 +1,19 @@
+package rs.banka4.bank_service.domain.listing.dtos;
+
+/**
+ * Size of the buckets a price history is downsampled to. Every bucket is represented by the last
+ * daily price within it.
+ */
+public enum PriceHistoryResolution {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @return the PostgreSQL {@code date_trunc} field which truncates a date to the start of its
+     *         bucket
+     */
+    public String truncField() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,10 @@
+package rs.banka4.bank_service.domain.listing.dtos;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Last price of a security on the most recent day it has a {@code ListingDailyPriceInfo} for.
+ */
+public record SecurityLastPrice(UUID securityId, BigDecimal lastPrice) {
+}
@@ -0,0 +1,12 @@
+package rs.banka4.bank_service.domain.listing.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * The latest trade of a stock, as reported by a quote source.
+ *
+ * @param price last traded price
+ * @param volume number of shares traded during the day
+ */
+public record StockQuote(BigDecimal price, long volume) {
+}
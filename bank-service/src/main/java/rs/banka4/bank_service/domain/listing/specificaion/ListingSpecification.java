@@ -1,25 +1,26 @@
 package rs.banka4.bank_service.domain.listing.specificaion;
 
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Subquery;
-import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.data.jpa.domain.Specification;
 import rs.banka4.bank_service.domain.exchanges.db.Exchange_;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolume;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolumeId_;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolume_;
 import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.db.Listing_;
 import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
 import rs.banka4.bank_service.domain.listing.dtos.SecurityType;
-import rs.banka4.bank_service.domain.options.db.Asset_;
-import rs.banka4.bank_service.domain.orders.db.Order;
-import rs.banka4.bank_service.domain.orders.db.Order_;
 import rs.banka4.bank_service.domain.security.Security_;
 import rs.banka4.bank_service.domain.security.future.db.Future;
 import rs.banka4.bank_service.domain.security.future.db.Future_;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
 
 public class ListingSpecification {
     /**
@@ -28,8 +29,8 @@ public class ListingSpecification {
      * <p>
      * This specification performs the following:
      * <ul>
-     * <li>Ensures that only the latest {@code Listing} per security is returned via the
-     * {@code isLatest()} predicate.</li>
+     * <li>Ensures that only the current {@code Listing} per security is returned via the
+     * {@code isActive()} predicate.</li>
      * <li>Filters by security type (for clients, only FUTURE and STOCK are allowed; for employees,
      * the specified type is applied).</li>
      * <li>Performs "like" search on the security's name and ticker.</li>
@@ -37,8 +38,8 @@ public class ListingSpecification {
      * <li>Applies range filters on ask and bid prices.</li>
      * <li>If the security type is {@code FUTURE}, applies range filtering on the settlement
      * date.</li>
-     * <li>Computes volume for each listing by counting {@link Order} entities created for the
-     * security during the current day and applies volume range filters.</li>
+     * <li>Reads the volume of each listing from today's {@link AssetDailyVolume} counter of the
+     * security and applies volume range filters.</li>
      * <li>Applies dynamic sorting based on the {@code sortBy} and {@code sortDirection} parameters.
      * For instance, sorting by price will use the Listing's {@code ask} value, and sorting by
      * volume will use the computed volume from the subquery.</li>
@@ -58,7 +59,7 @@ public class ListingSpecification {
         ListingFilterDto filter,
         boolean isClient
     ) {
-        return isLatest().and((root, query, cb) -> {
+        return isActive().and((root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             var secJoin = root.join(Listing_.security);
             var exchangesJoin = root.join(Listing_.exchange);
@@ -181,30 +182,35 @@ public class ListingSpecification {
                     }
                 }
             }
-            OffsetDateTime now = OffsetDateTime.now();
-            OffsetDateTime start = now.truncatedTo(ChronoUnit.DAYS);
-            OffsetDateTime end = start.plusDays(1);
+            LocalDate today = LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE);
 
-            Subquery<Long> volumeSubquery = query.subquery(Long.class);
-            Root<Order> orderRoot = volumeSubquery.from(Order.class);
-            volumeSubquery.select(cb.count(orderRoot));
+            Subquery<Integer> volumeSubquery = query.subquery(Integer.class);
+            Root<AssetDailyVolume> volumeRoot = volumeSubquery.from(AssetDailyVolume.class);
+            volumeSubquery.select(volumeRoot.get(AssetDailyVolume_.volume));
             volumeSubquery.where(
                 cb.equal(
-                    orderRoot.get(Order_.asset)
-                        .get(Asset_.id),
+                    volumeRoot.get(AssetDailyVolume_.id)
+                        .get(AssetDailyVolumeId_.assetId),
                     root.get(Listing_.security)
                         .get(Security_.id)
                 ),
-                cb.between(orderRoot.get(Order_.createdAt), start, end)
+                cb.equal(
+                    volumeRoot.get(AssetDailyVolume_.id)
+                        .get(AssetDailyVolumeId_.day),
+                    today
+                )
             );
+            Expression<Long> volume =
+                cb.coalesce(volumeSubquery, 0)
+                    .as(Long.class);
 
             if (filter.getVolumeMin() != null || filter.getVolumeMax() != null) {
 
                 if (filter.getVolumeMin() != null) {
-                    predicates.add(cb.greaterThanOrEqualTo(volumeSubquery, filter.getVolumeMin()));
+                    predicates.add(cb.greaterThanOrEqualTo(volume, filter.getVolumeMin()));
                 }
                 if (filter.getVolumeMax() != null) {
-                    predicates.add(cb.lessThanOrEqualTo(volumeSubquery, filter.getVolumeMax()));
+                    predicates.add(cb.lessThanOrEqualTo(volume, filter.getVolumeMax()));
                 }
             }
             if (filter.getSortBy() != null && filter.getSortDirection() != null) {
@@ -224,9 +230,9 @@ public class ListingSpecification {
                         filter.getSortDirection()
                             .equals(ListingFilterDto.SortDirection.ASC)
                     ) {
-                        query.orderBy(cb.asc(volumeSubquery));
+                        query.orderBy(cb.asc(volume));
                     } else {
-                        query.orderBy(cb.desc(volumeSubquery));
+                        query.orderBy(cb.desc(volume));
                     }
                     break;
                 default:
@@ -240,22 +246,11 @@ public class ListingSpecification {
     }
 
     /**
-     * For a given listing, accept it only if it is the latest for its security
+     * Accepts only active listings. Every security has at most one active listing, which is kept
+     * up to date as quotes are refreshed, so this selects the latest listing of each security.
      */
-    static Specification<Listing> isLatest() {
-        return ((root, query, cb) -> {
-            final var subquery = query.subquery(OffsetDateTime.class);
-            final var subRoot = subquery.from(Listing.class);
-
-            return root.get(Listing_.lastRefresh)
-                .in(
-                    subquery.select(cb.greatest(subRoot.get(Listing_.lastRefresh)))
-                        .groupBy(
-                            subRoot.get(Listing_.security)
-                                .get(Security_.id)
-                        )
-                );
-        });
+    static Specification<Listing> isActive() {
+        return ((root, query, cb) -> cb.isTrue(root.get(Listing_.active)));
     }
 
 }
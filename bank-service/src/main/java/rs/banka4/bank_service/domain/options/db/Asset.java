@@ -4,9 +4,12 @@ import jakarta.persistence.*;
 import java.util.UUID;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.BatchSize;
 
 @Entity(name = "assets")
 @Inheritance(strategy = InheritanceType.JOINED)
+/* Loads e.g. the underlying stocks of a page of options together, rather than one by one. */
+@BatchSize(size = 100)
 @AllArgsConstructor
 @Getter
 @Setter
@@ -46,7 +46,8 @@ public class BlackHolesOptionPricing {
      * This method extracts necessary parameters from the provided Option object, including strike
      * price, settlement date, implied volatility, and option type. It calculates the time to
      * expiration and uses a fixed risk-free rate to compute the option price using the
-     * Black-Scholes model.
+     * Black-Scholes model. To price many options at once, use
+     * {@link BatchOptionPricing#priceOptions} instead.
      *
      * @param option the Option object containing option parameters except premium which is null (or
      *        ignored if not)
@@ -55,7 +56,6 @@ public class BlackHolesOptionPricing {
      * @return the calculated option price, or 0.0 if the option has already expired
      */
     public static double calculateOptionPriceFromOption(Option option, double currentStockPrice) {
-        double riskFreeRate = 0.02;
         double S = currentStockPrice;
         double K =
             option.getStrikePrice()
@@ -70,7 +70,7 @@ public class BlackHolesOptionPricing {
             return 0.0;
         }
 
-        double r = riskFreeRate;
+        double r = BatchOptionPricing.RISK_FREE_RATE;
         double sigma = option.getImpliedVolatility();
         OptionType type = option.getOptionType();
 
@@ -1,15 +1,116 @@
 package rs.banka4.bank_service.domain.options.db;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.options.dtos.OptionChainRow;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
 import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
 
 @Entity(name = "options")
+@NamedNativeQuery(
+    name = "options.findChainRows",
+    query = """
+        SELECT
+            COALESCE(c.strike_price_amount, p.strike_price_amount) AS strike,
+            c.id AS call_id,
+            c.implied_volatility AS call_implied_volatility,
+            c.open_interest AS call_open_interest,
+            c.premium_amount AS call_premium_amount,
+            CAST(c.premium_currency AS TEXT) AS call_premium_currency,
+            c.settlement_date AS call_settlement_date,
+            p.id AS put_id,
+            p.implied_volatility AS put_implied_volatility,
+            p.open_interest AS put_open_interest,
+            p.premium_amount AS put_premium_amount,
+            CAST(p.premium_currency AS TEXT) AS put_premium_currency,
+            p.settlement_date AS put_settlement_date
+        FROM (
+            SELECT * FROM options
+            WHERE active
+              AND foreign_id_id IS NULL
+              AND stock_id = :stockId
+              AND option_type = 'CALL'
+              AND settlement_date >= :startDate
+              AND settlement_date < :endDate
+        ) c
+        FULL JOIN (
+            SELECT * FROM options
+            WHERE active
+              AND foreign_id_id IS NULL
+              AND stock_id = :stockId
+              AND option_type = 'PUT'
+              AND settlement_date >= :startDate
+              AND settlement_date < :endDate
+        ) p ON p.strike_price_amount = c.strike_price_amount
+        ORDER BY strike
+        """,
+    resultSetMapping = "OptionChainRow"
+)
+@SqlResultSetMapping(
+    name = "OptionChainRow",
+    classes = @ConstructorResult(
+        targetClass = OptionChainRow.class,
+        columns = {
+            @ColumnResult(
+                name = "strike",
+                type = BigDecimal.class
+            ),
+            @ColumnResult(
+                name = "call_id",
+                type = UUID.class
+            ),
+            @ColumnResult(
+                name = "call_implied_volatility",
+                type = Double.class
+            ),
+            @ColumnResult(
+                name = "call_open_interest",
+                type = Integer.class
+            ),
+            @ColumnResult(
+                name = "call_premium_amount",
+                type = BigDecimal.class
+            ),
+            @ColumnResult(
+                name = "call_premium_currency",
+                type = String.class
+            ),
+            @ColumnResult(
+                name = "call_settlement_date",
+                type = OffsetDateTime.class
+            ),
+            @ColumnResult(
+                name = "put_id",
+                type = UUID.class
+            ),
+            @ColumnResult(
+                name = "put_implied_volatility",
+                type = Double.class
+            ),
+            @ColumnResult(
+                name = "put_open_interest",
+                type = Integer.class
+            ),
+            @ColumnResult(
+                name = "put_premium_amount",
+                type = BigDecimal.class
+            ),
+            @ColumnResult(
+                name = "put_premium_currency",
+                type = String.class
+            ),
+            @ColumnResult(
+                name = "put_settlement_date",
+                type = OffsetDateTime.class
+            )
+        }
+    )
+)
 @Getter
 @Setter
 @RequiredArgsConstructor
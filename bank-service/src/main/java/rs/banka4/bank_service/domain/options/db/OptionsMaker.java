@@ -1,6 +1,7 @@
 package rs.banka4.bank_service.domain.options.db;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
@@ -30,6 +31,40 @@ public class OptionsMaker {
         return ticker.toUpperCase() + datePart + optionTypeChar + strikeFormatted;
     }
 
+    /**
+     * Makes the expiry dates of the options chain as of the given day: five dates spaced 6 days
+     * apart within the next 30 days, followed by six dates spaced 30 days apart. Dates are aligned
+     * to multiples of their spacing since the epoch rather than to {@code today}, so the chain
+     * stays the same from day to day, except that expired dates drop out and new ones are added at
+     * the end. Options expire at the start of their expiry date, in UTC.
+     */
+    public static List<OffsetDateTime> makeExpiries(LocalDate today) {
+        List<OffsetDateTime> expiries = new ArrayList<>();
+        LocalDate expiry = alignedAfter(today, 6);
+        for (int i = 0; i < 5; i++) {
+            expiries.add(
+                expiry.atStartOfDay()
+                    .atOffset(ZoneOffset.UTC)
+            );
+            expiry = expiry.plusDays(6);
+        }
+        expiry = alignedAfter(expiry.minusDays(6), 30);
+        for (int i = 0; i < 6; i++) {
+            expiries.add(
+                expiry.atStartOfDay()
+                    .atOffset(ZoneOffset.UTC)
+            );
+            expiry = expiry.plusDays(30);
+        }
+        return expiries;
+    }
+
+    /** @return the first day after {@code day} whose epoch day is a multiple of {@code step} */
+    private static LocalDate alignedAfter(LocalDate day, int step) {
+        long epochDay = day.toEpochDay();
+        return LocalDate.ofEpochDay(epochDay - Math.floorMod(epochDay, step) + step);
+    }
+
     /**
      * Generates a list of synthetic call and put options for a given stock, based on the
      * Black-Scholes model. Options are created with a range of strike prices and expiry dates, and
@@ -38,9 +73,10 @@ public class OptionsMaker {
      * </pre> format.
      *
      * <p>
-     * Expiry dates are generated starting 6 days from the current date: every 6 days for 30 days,
-     * followed by 6 more dates spaced 30 days apart. Strike prices are calculated as ±5 integers
-     * around the rounded stock price.
+     * Expiry dates are made by {@link #makeExpiries(LocalDate)}. Strike prices are calculated as ±5
+     * integers around the rounded stock price. Since tickers only depend on those, an option
+     * generated again later (with an updated premium) has the same ticker. Premiums of the whole
+     * chain are computed in one batch by {@link BatchOptionPricing}.
      *
      * @param stock the stock for which options are being generated
      * @param currentPrice the current stock price (from an active listing)
@@ -63,13 +99,7 @@ public class OptionsMaker {
             strikePrices.add(basePrice + i);
         }
 
-        List<OffsetDateTime> expiries = new ArrayList<>();
-        for (int i = 6; i <= 30; i += 6) {
-            expiries.add(now.plusDays(i));
-        }
-        for (int i = 60; i <= 210; i += 30) {
-            expiries.add(now.plusDays(i));
-        }
+        List<OffsetDateTime> expiries = makeExpiries(now.toLocalDate());
 
         for (OffsetDateTime expiry : expiries) {
             for (Integer strike : strikePrices) {
@@ -94,16 +124,9 @@ public class OptionsMaker {
                         .settlementDate(expiry)
                         .name(stock.getTicker() + "-CALL-" + strike + "-" + expiry.toLocalDate())
                         .ticker(tickerC)
-                        .premium(new MonetaryAmount(BigDecimal.valueOf(0), CurrencyCode.USD))
                         .active(true)
                         .build();
 
-                double callPrem =
-                    BlackHolesOptionPricing.calculateOptionPriceFromOption(callOption, basePrice);
-                MonetaryAmount callPremium =
-                    new MonetaryAmount(BigDecimal.valueOf(callPrem), currency);
-                callOption.setPremium(callPremium);
-
                 Option putOption =
                     Option.builder()
                         .stock(stock)
@@ -116,17 +139,20 @@ public class OptionsMaker {
                         .ticker(tickerP)
                         .build();
 
-                double putPrem =
-                    BlackHolesOptionPricing.calculateOptionPriceFromOption(putOption, basePrice);
-                MonetaryAmount putPremium =
-                    new MonetaryAmount(BigDecimal.valueOf(putPrem), currency);
-                putOption.setPremium(putPremium);
-
                 options.add(callOption);
                 options.add(putOption);
             }
         }
 
+        BatchOptionPricing.Result prices =
+            BatchOptionPricing.priceOptions(options, basePrice, now);
+        for (int i = 0; i < options.size(); i++) {
+            options.get(i)
+                .setPremium(
+                    new MonetaryAmount(BigDecimal.valueOf(prices.price()[i]), currency)
+                );
+        }
+
         return options;
     }
 }
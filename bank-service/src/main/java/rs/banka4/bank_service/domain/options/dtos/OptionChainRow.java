@@ -0,0 +1,89 @@
+package rs.banka4.bank_service.domain.options.dtos;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * One row of an options chain: the call and the put with the same strike price and settlement
+ * date. Either side may be missing.
+ *
+ * @param strike the strike price shared by both sides
+ * @param call the call option, or null if there is none for this strike
+ * @param put the put option, or null if there is none for this strike
+ */
+public record OptionChainRow(
+    BigDecimal strike,
+    OptionChainRow.Side call,
+    OptionChainRow.Side put
+) {
+    /** The parts of an option shown in the options chain. */
+    public record Side(
+        UUID id,
+        double impliedVolatility,
+        int openInterest,
+        MonetaryAmount premium,
+        OffsetDateTime settlementDate
+    ) {
+    }
+
+    /**
+     * Makes a row out of the flat columns returned by {@code options.findChainRows}, where all
+     * columns of a missing side are null.
+     */
+    public OptionChainRow(
+        BigDecimal strike,
+        UUID callId,
+        Double callImpliedVolatility,
+        Integer callOpenInterest,
+        BigDecimal callPremiumAmount,
+        String callPremiumCurrency,
+        OffsetDateTime callSettlementDate,
+        UUID putId,
+        Double putImpliedVolatility,
+        Integer putOpenInterest,
+        BigDecimal putPremiumAmount,
+        String putPremiumCurrency,
+        OffsetDateTime putSettlementDate
+    ) {
+        this(
+            strike,
+            side(
+                callId,
+                callImpliedVolatility,
+                callOpenInterest,
+                callPremiumAmount,
+                callPremiumCurrency,
+                callSettlementDate
+            ),
+            side(
+                putId,
+                putImpliedVolatility,
+                putOpenInterest,
+                putPremiumAmount,
+                putPremiumCurrency,
+                putSettlementDate
+            )
+        );
+    }
+
+    private static Side side(
+        UUID id,
+        Double impliedVolatility,
+        Integer openInterest,
+        BigDecimal premiumAmount,
+        String premiumCurrency,
+        OffsetDateTime settlementDate
+    ) {
+        if (id == null) return null;
+        return new Side(
+            id,
+            impliedVolatility,
+            openInterest,
+            new MonetaryAmount(premiumAmount, CurrencyCode.valueOf(premiumCurrency)),
+            settlementDate
+        );
+    }
+}
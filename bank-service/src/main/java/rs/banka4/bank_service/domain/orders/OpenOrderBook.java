@@ -0,0 +1,102 @@
+package rs.banka4.bank_service.domain.orders;
+
+import java.math.BigDecimal;
+import java.util.*;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.db.OrderEvent;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * In-memory view of all open (not yet filled or declined) orders, grouped by asset. It is built by
+ * applying {@link OrderEvent}s from the order journal, optionally on top of a snapshot.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class OpenOrderBook {
+    public record OpenOrder(
+        UUID orderId,
+        UUID assetId,
+        Direction direction,
+        BigDecimal pricePerUnit,
+        CurrencyCode currency,
+        int remainingPortions,
+        boolean approved,
+        boolean allOrNothing
+    ) {
+    }
+
+    private final Map<UUID, Map<UUID, OpenOrder>> ordersByAsset = new HashMap<>();
+    private long lastSequenceNumber;
+
+    /**
+     * @return the highest journal sequence number reflected in this book
+     */
+    public long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Loads the open orders of one asset from a snapshot taken at {@code sequenceNumber}.
+     */
+    public void restore(UUID assetId, long sequenceNumber, Collection<OpenOrder> orders) {
+        final var assetOrders = new LinkedHashMap<UUID, OpenOrder>();
+        for (OpenOrder order : orders) assetOrders.put(order.orderId(), order);
+        if (assetOrders.isEmpty()) ordersByAsset.remove(assetId);
+        else ordersByAsset.put(assetId, assetOrders);
+        lastSequenceNumber = Math.max(lastSequenceNumber, sequenceNumber);
+    }
+
+    public void apply(OrderEvent event) {
+        final var assetOrders =
+            ordersByAsset.computeIfAbsent(event.getAssetId(), k -> new LinkedHashMap<>());
+
+        switch (event.getType()) {
+        case CREATED, APPROVED, PARTIALLY_FILLED -> {
+            if (event.getRemainingPortions() > 0) assetOrders.put(event.getOrderId(), toOpen(event));
+            else assetOrders.remove(event.getOrderId());
+        }
+        case FILLED, DECLINED -> assetOrders.remove(event.getOrderId());
+        }
+
+        if (assetOrders.isEmpty()) ordersByAsset.remove(event.getAssetId());
+        if (event.getSequenceNumber() != null)
+            lastSequenceNumber = Math.max(lastSequenceNumber, event.getSequenceNumber());
+    }
+
+    /**
+     * @return open orders of the given asset, in the order they were first seen
+     */
+    public List<OpenOrder> getOpenOrders(UUID assetId) {
+        final var assetOrders = ordersByAsset.get(assetId);
+        if (assetOrders == null) return List.of();
+        return List.copyOf(assetOrders.values());
+    }
+
+    public Set<UUID> getAssetIds() {
+        return Collections.unmodifiableSet(ordersByAsset.keySet());
+    }
+
+    /**
+     * @return total number of open orders across all assets
+     */
+    public int size() {
+        int size = 0;
+        for (var assetOrders : ordersByAsset.values()) size += assetOrders.size();
+        return size;
+    }
+
+    private static OpenOrder toOpen(OrderEvent event) {
+        return new OpenOrder(
+            event.getOrderId(),
+            event.getAssetId(),
+            event.getDirection(),
+            event.getPricePerUnit()
+                .getAmount(),
+            event.getPricePerUnit()
+                .getCurrency(),
+            event.getRemainingPortions(),
+            event.isApproved(),
+            event.isAllOrNothing()
+        );
+    }
+}
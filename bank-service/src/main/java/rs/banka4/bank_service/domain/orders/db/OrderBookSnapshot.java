@@ -0,0 +1,39 @@
+package rs.banka4.bank_service.domain.orders.db;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.*;
+
+/**
+ * Open orders of a single asset as of {@link #lastSequenceNumber} of the order journal. All
+ * snapshot rows written by one snapshot pass share the same sequence number.
+ */
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "order_book_snapshots")
+public class OrderBookSnapshot {
+    @Id
+    @Builder.Default
+    private UUID id = UUID.randomUUID();
+
+    @Column(nullable = false)
+    private UUID assetId;
+
+    @Column(nullable = false)
+    private long lastSequenceNumber;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    /** JSON array of {@link rs.banka4.bank_service.domain.orders.OpenOrderBook.OpenOrder}s. */
+    @Column(
+        nullable = false,
+        columnDefinition = "text"
+    )
+    private String openOrders;
+}
@@ -0,0 +1,55 @@
+package rs.banka4.bank_service.domain.orders.db;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.*;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+
+/**
+ * One entry of the append-only order journal. Each event carries the full state of the order that
+ * matters for matching after the change, so replaying events is idempotent.
+ */
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@Table(name = "order_events")
+public class OrderEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long sequenceNumber;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Column(nullable = false)
+    private UUID assetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderEventType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Direction direction;
+
+    @Column(nullable = false)
+    private MonetaryAmount pricePerUnit;
+
+    /** Portions left to fill after this event. */
+    @Column(nullable = false)
+    private int remainingPortions;
+
+    @Column(nullable = false)
+    private boolean approved;
+
+    @Column(nullable = false)
+    private boolean allOrNothing;
+
+    @Column(nullable = false)
+    private OffsetDateTime occurredAt;
+}
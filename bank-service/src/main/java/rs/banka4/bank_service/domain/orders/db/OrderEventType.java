@@ -0,0 +1,9 @@
+package rs.banka4.bank_service.domain.orders.db;
+
+public enum OrderEventType {
+    CREATED,
+    APPROVED,
+    PARTIALLY_FILLED,
+    FILLED,
+    DECLINED
+}
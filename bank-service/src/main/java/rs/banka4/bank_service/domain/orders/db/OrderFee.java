@@ -0,0 +1,47 @@
+package rs.banka4.bank_service.domain.orders.db;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.*;
+import rs.banka4.bank_service.domain.account.db.Account;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
+
+/**
+ * Commission charged for executing a single order. Fees are accrued when an order executes, and
+ * settled in bulk, one transaction per account, by the fee sweep. Once settled, a fee row remains
+ * as the itemized record of what the aggregated transaction consisted of.
+ */
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@Table(name = "order_fees")
+public class OrderFee {
+    @Id
+    @Builder.Default
+    private UUID id = UUID.randomUUID();
+
+    @ManyToOne(optional = false)
+    private Account account;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    /** Always in the currency of {@link #account}. */
+    @Column(nullable = false)
+    private MonetaryAmount amount;
+
+    @Column(nullable = false)
+    private OffsetDateTime accruedAt;
+
+    /** Set once the fee is settled. */
+    private OffsetDateTime settledAt;
+
+    /** The transaction that settled this fee, together with other pending fees of the account. */
+    private ForeignBankId settlingTransaction;
+}
@@ -0,0 +1,64 @@
+package rs.banka4.bank_service.domain.security.forex.db;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * Derives the exchange rates of all currency pairs from quotes of a single base currency, so that
+ * only {@code N - 1} quotes need to be fetched for {@code N} currencies, instead of one per ordered
+ * pair.
+ * <p>
+ * If one unit of the base currency buys {@code a} units of {@code A} and {@code b} units of
+ * {@code B}, then one unit of {@code A} buys {@code b / a} units of {@code B}. Division is done in
+ * fixed-point with {@link #SCALE} decimal places, always from the fetched quotes, so that errors do
+ * not compound through derived rates.
+ */
+public final class ForexCrossRates {
+    public static final int SCALE = 10;
+
+    /**
+     * The exchange rate of a single currency pair: one unit of {@code baseCurrency} buys
+     * {@code rate} units of {@code quoteCurrency}.
+     */
+    public record Rate(CurrencyCode baseCurrency, CurrencyCode quoteCurrency, BigDecimal rate) {
+    }
+
+    private ForexCrossRates() {
+    }
+
+    /**
+     * @param base the currency all quotes are against
+     * @param quotes for each quoted currency, how many of its units one unit of {@code base} buys.
+     *        Currencies with a missing or non-positive quote are left out of the result.
+     * @return rates of all ordered pairs of {@code base} and the quoted currencies
+     */
+    public static List<Rate> derive(CurrencyCode base, Map<CurrencyCode, BigDecimal> quotes) {
+        final var perBase = new EnumMap<CurrencyCode, BigDecimal>(CurrencyCode.class);
+        perBase.put(base, BigDecimal.ONE);
+        quotes.forEach((currency, quote) -> {
+            if (currency != base && quote != null && quote.signum() > 0)
+                perBase.put(currency, quote);
+        });
+
+        final var rates = new ArrayList<Rate>(perBase.size() * (perBase.size() - 1));
+        for (var from : perBase.entrySet()) {
+            for (var to : perBase.entrySet()) {
+                if (from.getKey() == to.getKey()) continue;
+                rates.add(
+                    new Rate(
+                        from.getKey(),
+                        to.getKey(),
+                        to.getValue()
+                            .divide(from.getValue(), SCALE, RoundingMode.HALF_EVEN)
+                    )
+                );
+            }
+        }
+        return rates;
+    }
+}
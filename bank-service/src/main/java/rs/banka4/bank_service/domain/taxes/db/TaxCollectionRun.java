@@ -0,0 +1,35 @@
+package rs.banka4.bank_service.domain.taxes.db;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One run of the monthly tax collection. Debts are charged in chunks ordered by their ID, so the
+ * run can be resumed after {@link #lastDebtId} if it is interrupted, as long as it is resumed in
+ * the month it was started in.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "tax_collection_runs")
+public class TaxCollectionRun {
+    @Id
+    @Builder.Default
+    private UUID id = UUID.randomUUID();
+
+    @Column(nullable = false)
+    private OffsetDateTime startedAt;
+
+    /** Null while the run is still in progress, or was interrupted. */
+    private OffsetDateTime finishedAt;
+
+    /** Every due debt with an ID up to this one has been charged; null if none have yet. */
+    private UUID lastDebtId;
+}
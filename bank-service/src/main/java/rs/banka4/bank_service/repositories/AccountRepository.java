@@ -1,11 +1,14 @@
 package rs.banka4.bank_service.repositories;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rs.banka4.bank_service.domain.account.db.Account;
@@ -27,4 +30,17 @@ public interface AccountRepository extends
     List<Account> findAllByCompany(@Param("company") Company company);
 
     boolean existsByClient(Client client);
+
+    /**
+     * Adds {@code amount} to both balances of an account in a single statement, so that concurrent
+     * credits cannot lose each other's update. Managed copies of the account are not refreshed.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Account a
+        SET a.balance = a.balance + :amount,
+            a.availableBalance = a.availableBalance + :amount
+        WHERE a.id = :id
+        """)
+    int credit(@Param("id") UUID id, @Param("amount") BigDecimal amount);
 }
@@ -1,9 +1,14 @@
 package rs.banka4.bank_service.repositories;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.bank_service.domain.actuaries.db.ActuaryInfo;
 
 public interface ActuaryRepository extends JpaRepository<ActuaryInfo, UUID> {
@@ -11,4 +16,67 @@ public interface ActuaryRepository extends JpaRepository<ActuaryInfo, UUID> {
     List<ActuaryInfo> findByNeedApprovalTrue();
 
     Optional<ActuaryInfo> findByUserId(UUID userId);
+
+    /**
+     * Atomically reserves {@code cost} of the given agent's trading limit. The check and the
+     * increment happen in a single statement, so concurrent orders of the same agent cannot both
+     * pass the check and lose each other's update.
+     *
+     * @param userId the agent whose limit is being used
+     * @param cost the amount to reserve, in the currency of the used limit
+     * @return the new used limit, or empty if no row was updated (either the actuary does not
+     *         exist, has no limit, or the reservation would exceed the limit)
+     */
+    @Transactional
+    @Query(
+        value = """
+            UPDATE actuary_informations
+            SET used_limit_amount = used_limit_amount + :cost
+            WHERE user_id = :userId
+              AND limit_amount IS NOT NULL
+              AND used_limit_amount + :cost <= limit_amount
+            RETURNING used_limit_amount
+            """,
+        nativeQuery = true
+    )
+    Optional<BigDecimal> reserveUsedLimit(
+        @Param("userId") UUID userId,
+        @Param("cost") BigDecimal cost
+    );
+
+    /**
+     * Gives back a previously reserved part of the agent's trading limit. The used limit never
+     * drops below zero, since a daily reset may have happened in between.
+     *
+     * @return the number of updated rows (zero if the actuary does not exist)
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            UPDATE actuary_informations
+            SET used_limit_amount = GREATEST(used_limit_amount - :cost, 0)
+            WHERE user_id = :userId
+            """,
+        nativeQuery = true
+    )
+    int releaseUsedLimit(@Param("userId") UUID userId, @Param("cost") BigDecimal cost);
+
+    /**
+     * Resets the used limit of every agent (actuaries who need approval) to zero, keeping its
+     * currency. Agents without a used limit are left alone.
+     *
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(
+        value = """
+            UPDATE actuary_informations
+            SET used_limit_amount = 0
+            WHERE need_approval
+              AND used_limit_amount <> 0
+            """,
+        nativeQuery = true
+    )
+    int resetAgentUsedLimits();
 }
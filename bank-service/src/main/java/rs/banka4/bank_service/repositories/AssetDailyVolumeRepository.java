@@ -0,0 +1,40 @@
+package rs.banka4.bank_service.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolume;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolumeId;
+
+@Repository
+public interface AssetDailyVolumeRepository extends
+    JpaRepository<AssetDailyVolume, AssetDailyVolumeId> {
+    List<AssetDailyVolume> findAllByIdDay(LocalDate day);
+
+    /**
+     * Adds {@code delta} to the volume of the given asset on the given day, creating the row if it
+     * does not exist yet.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO asset_daily_volumes (asset_id, day, volume)
+            VALUES (:assetId, :day, :delta)
+            ON CONFLICT (asset_id, day)
+            DO UPDATE SET volume = asset_daily_volumes.volume + excluded.volume
+            """,
+        nativeQuery = true
+    )
+    void addVolume(
+        @Param("assetId") UUID assetId,
+        @Param("day") LocalDate day,
+        @Param("delta") int delta
+    );
+}
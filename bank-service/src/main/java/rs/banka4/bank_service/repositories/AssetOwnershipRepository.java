@@ -22,13 +22,18 @@ public interface AssetOwnershipRepository extends JpaRepository<AssetOwnership,
 
     List<AssetOwnership> findAllByPublicAmountGreaterThan(int publicAmount);
 
+    /** Assets are fetched along with the ownerships, rather than one query per ownership. */
     @Query(
-        "SELECT ao FROM AssetOwnership ao WHERE ao.id.user.id = :userId AND (ao.privateAmount > 0 OR ao.publicAmount > 0)"
+        value = "SELECT ao FROM AssetOwnership ao JOIN FETCH ao.id.user JOIN FETCH ao.id.asset"
+            + " WHERE ao.id.user.id = :userId AND (ao.privateAmount > 0 OR ao.publicAmount > 0)",
+        countQuery = "SELECT count(ao) FROM AssetOwnership ao"
+            + " WHERE ao.id.user.id = :userId AND (ao.privateAmount > 0 OR ao.publicAmount > 0)"
     )
     Page<AssetOwnership> findByUserId(@Param("userId") UUID userId, Pageable pageable);
 
     @Query(
-        "SELECT ao FROM AssetOwnership ao WHERE ao.id.user.id = :userId AND (ao.privateAmount > 0 OR ao.publicAmount > 0)"
+        "SELECT ao FROM AssetOwnership ao JOIN FETCH ao.id.user JOIN FETCH ao.id.asset"
+            + " WHERE ao.id.user.id = :userId AND (ao.privateAmount > 0 OR ao.publicAmount > 0)"
     )
     List<AssetOwnership> findByUserId(@Param("userId") UUID userId);
 
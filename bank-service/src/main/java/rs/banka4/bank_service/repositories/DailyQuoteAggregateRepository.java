@@ -0,0 +1,85 @@
+package rs.banka4.bank_service.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.listing.db.DailyQuoteAggregate;
+import rs.banka4.bank_service.domain.listing.db.DailyQuoteAggregateId;
+
+@Repository
+public interface DailyQuoteAggregateRepository extends
+    JpaRepository<DailyQuoteAggregate, DailyQuoteAggregateId> {
+    /**
+     * Folds the current quote of every active listing into the aggregate of its trading day. Mid
+     * prices are truncated to cents, like the last prices of {@code ListingDailyPriceInfo}.
+     *
+     * @return the number of created or updated aggregates
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO daily_quote_aggregates
+                (security_id, day, exchange_id, open, high, low, close)
+            SELECT security_id,
+                   (last_refresh AT TIME ZONE 'Europe/Belgrade')::date,
+                   exchange_id,
+                   trunc((ask + bid) / 2, 2),
+                   ask,
+                   bid,
+                   trunc((ask + bid) / 2, 2)
+            FROM listings
+            WHERE active
+            ON CONFLICT (security_id, day)
+            DO UPDATE SET exchange_id = excluded.exchange_id,
+                          high = GREATEST(daily_quote_aggregates.high, excluded.high),
+                          low = LEAST(daily_quote_aggregates.low, excluded.low),
+                          close = excluded.close
+            """,
+        nativeQuery = true
+    )
+    int accumulateActiveListings();
+
+    /**
+     * Like {@link #accumulateActiveListings()}, for the active listings of the given securities
+     * only.
+     *
+     * @return the number of created or updated aggregates
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO daily_quote_aggregates
+                (security_id, day, exchange_id, open, high, low, close)
+            SELECT security_id,
+                   (last_refresh AT TIME ZONE 'Europe/Belgrade')::date,
+                   exchange_id,
+                   trunc((ask + bid) / 2, 2),
+                   ask,
+                   bid,
+                   trunc((ask + bid) / 2, 2)
+            FROM listings
+            WHERE active
+              AND security_id IN (:securityIds)
+            ON CONFLICT (security_id, day)
+            DO UPDATE SET exchange_id = excluded.exchange_id,
+                          high = GREATEST(daily_quote_aggregates.high, excluded.high),
+                          low = LEAST(daily_quote_aggregates.low, excluded.low),
+                          close = excluded.close
+            """,
+        nativeQuery = true
+    )
+    int accumulateActiveListingsOf(@Param("securityIds") Collection<UUID> securityIds);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DailyQuoteAggregate a where a.id.day < :day")
+    int deleteAllBefore(@Param("day") LocalDate day);
+}
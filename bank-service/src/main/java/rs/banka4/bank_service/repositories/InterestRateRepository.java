@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,4 +21,25 @@ public interface InterestRateRepository extends JpaRepository<InterestRate, UUID
         @Param("loanAmount") BigDecimal loanAmount,
         @Param("date") LocalDate date
     );
+
+    /**
+     * Sets the rate of every interest rate used by an approved variable-rate loan to the base rate
+     * of that loan plus {@code variant}. A rate shared by several such loans gets the base rate of
+     * one of them.
+     *
+     * @return the number of updated rates
+     */
+    @Modifying
+    @Query(
+        value = """
+            UPDATE interest_rates r
+            SET fixed_rate = l.base_interest_rate + :variant
+            FROM loans l
+            WHERE l.interest_rate_id = r.id
+              AND l.interest_type = 'VARIABLE'
+              AND l.status = 'APPROVED'
+            """,
+        nativeQuery = true
+    )
+    int applyVariableRate(@Param("variant") BigDecimal variant);
 }
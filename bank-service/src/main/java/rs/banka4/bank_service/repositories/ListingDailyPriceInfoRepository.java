@@ -1,9 +1,12 @@
 package rs.banka4.bank_service.repositories;
 
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -12,6 +15,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
+import rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto;
+import rs.banka4.bank_service.domain.listing.dtos.SecurityLastPrice;
 
 @Repository
 public interface ListingDailyPriceInfoRepository extends
@@ -21,32 +26,103 @@ public interface ListingDailyPriceInfoRepository extends
     )
     Optional<ListingDailyPriceInfo> getYesterdayListingDailyPriceInfo(UUID securityId, Limit limit);
 
+    /**
+     * Batch variant of {@link #getYesterdayListingDailyPriceInfo(UUID, Limit)}, which only
+     * returns the last price of each security. Securities without any daily price info are left
+     * out.
+     */
     @Query("""
-            select l from ListingDailyPriceInfo l
-            where l.security.id = :securityId
-            and l.date >= :startOfDay
-            and l.date < :startOfNextDay
+            select new rs.banka4.bank_service.domain.listing.dtos.SecurityLastPrice(
+                l.security.id, l.lastPrice
+            )
+            from ListingDailyPriceInfo l
+            where l.security.id in :securityIds
+            and l.date = (
+                select max(l2.date) from ListingDailyPriceInfo l2
+                where l2.security.id = l.security.id
+            )
         """)
-    Optional<List<ListingDailyPriceInfo>> getListingDailyPriceInfoForDate(
-        @Param("securityId") UUID securityId,
-        @Param("startOfDay") OffsetDateTime startOfDay,
-        @Param("startOfNextDay") OffsetDateTime startOfNextDay
+    List<SecurityLastPrice> findLatestLastPrices(
+        @Param("securityIds") Collection<UUID> securityIds
     );
 
     @Modifying
     @Transactional
     @Query("""
         delete from ListingDailyPriceInfo l
-        where l.security.id = :securityId
-        and l.date >= :startOfDay
+        where l.date >= :startOfDay
         and l.date < :startOfNextDay
         """)
-    void deleteListingDailyPriceInfoForDate(
-        @Param("securityId") UUID securityId,
+    int deleteAllForDate(
         @Param("startOfDay") OffsetDateTime startOfDay,
         @Param("startOfNextDay") OffsetDateTime startOfNextDay
     );
 
+    /**
+     * Writes the daily price info of every security which had quotes on the given trading day, in
+     * a single statement. Prices come from {@code daily_quote_aggregates}, volumes from
+     * {@code asset_daily_volumes}, and the change is relative to the last price of the most recent
+     * earlier daily price info of the security (zero if there is none).
+     *
+     * @param day the trading day to summarize
+     * @param startOfDay start of {@code day}; earlier daily price info counts as previous days
+     * @param date the date to store on the written rows
+     * @return the number of written rows
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO listing_daily_price_info
+                (id, security_id, exchange_id, date, last_price, ask_high, big_low, change, volume)
+            SELECT gen_random_uuid(),
+                   a.security_id,
+                   a.exchange_id,
+                   :date,
+                   a.close,
+                   a.high,
+                   a.low,
+                   a.close - COALESCE(
+                       (SELECT p.last_price
+                        FROM listing_daily_price_info p
+                        WHERE p.security_id = a.security_id
+                          AND p.date < :startOfDay
+                        ORDER BY p.date DESC
+                        LIMIT 1),
+                       a.close),
+                   COALESCE(v.volume, 0)
+            FROM daily_quote_aggregates a
+            LEFT JOIN asset_daily_volumes v
+                ON v.asset_id = a.security_id AND v.day = a.day
+            WHERE a.day = :day
+            """,
+        nativeQuery = true
+    )
+    int insertFromDailyQuoteAggregates(
+        @Param("day") LocalDate day,
+        @Param("startOfDay") OffsetDateTime startOfDay,
+        @Param("date") OffsetDateTime date
+    );
 
     List<ListingDailyPriceInfo> findAllBySecurityId(UUID securityId);
+
+    @Query("""
+            select new rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto(l.date, l.lastPrice)
+            from ListingDailyPriceInfo l
+            where l.security.id = :securityId
+            and l.date >= :from
+            and l.date < :to
+            order by l.date asc
+        """)
+    Stream<PriceChangeDto> streamPriceChanges(
+        @Param("securityId") UUID securityId,
+        @Param("from") OffsetDateTime from,
+        @Param("to") OffsetDateTime to
+    );
+
+    /**
+     * @return date of the most recent daily price info of the given security, if it has any
+     */
+    @Query("select max(l.date) from ListingDailyPriceInfo l where l.security.id = :securityId")
+    Optional<OffsetDateTime> findLatestDate(@Param("securityId") UUID securityId);
 }
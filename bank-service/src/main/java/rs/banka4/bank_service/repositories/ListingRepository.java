@@ -1,17 +1,13 @@
 package rs.banka4.bank_service.repositories;
 
-import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.security.Security;
@@ -21,38 +17,31 @@ public interface ListingRepository extends
     JpaRepository<Listing, UUID>,
     JpaSpecificationExecutor<Listing> {
 
+    /**
+     * Every security has at most one active listing, which holds its current quote and is updated
+     * in place on each refresh. Past quotes are kept in
+     * {@link rs.banka4.bank_service.domain.listing.db.QuoteHistoryEntry}.
+     */
     @Query(
-        value = "select l from Listing l where l.security.id = :securityId order by l.lastRefresh desc"
+        value = "select l from Listing l where l.security.id = :securityId and l.active = true"
     )
-    Optional<Listing> getLatestListing(UUID securityId, Limit limit);
+    Optional<Listing> getLatestListing(UUID securityId);
 
     Listing findListingBySecurity(Security security);
 
     Optional<Listing> findBySecurityIdAndActiveTrue(UUID assetId);
 
     @Query(
-        value = "select new rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount(l.ask, l.exchange.currency) from Listing l where l.security.id = :stockId order by l.lastRefresh desc"
+        value = "select new rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount(l.ask, l.exchange.currency) from Listing l where l.security.id = :stockId and l.active = true"
     )
-    Optional<MonetaryAmount> getLatestStockPrice(UUID stockId, Limit limit);
-
-    @Query("""
-            select l from Listing l
-            where l.security.id = :securityId
-            and l.lastRefresh >= :date
-            and l.lastRefresh < :datePlusOne
-            order by l.lastRefresh desc
-        """)
-    Optional<List<Listing>> getAllSecurityListingsInAPeriod(
-        @Param("securityId") UUID securityId,
-        @Param("date") OffsetDateTime date,
-        @Param("datePlusOne") OffsetDateTime datePlusOne
-    );
-
-    @Modifying
-    @Transactional
-    @Query("UPDATE Listing l SET l.active = false")
-    void deactivateAll();
+    Optional<MonetaryAmount> getLatestStockPrice(UUID stockId);
 
     @Query("SELECT l FROM Listing l WHERE l.active = true")
     List<Listing> findAllActiveListings();
+
+    @Query(
+        "SELECT l FROM Listing l JOIN FETCH l.exchange"
+            + " WHERE l.security.id IN :securityIds AND l.active = true"
+    )
+    List<Listing> findAllActiveBySecurityIds(Collection<UUID> securityIds);
 }
@@ -1,37 +1,65 @@
 package rs.banka4.bank_service.repositories;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.dtos.OptionChainRow;
 import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
 
 
 @Repository
 public interface OptionsRepository extends JpaRepository<Option, UUID> {
+    /**
+     * Returns the options chain of a stock for one settlement date: active calls and puts made by
+     * this bank, paired up by strike price and ordered by it. Either side of a row may be missing.
+     * Options received from other banks are left out, as they may share a strike price with ours.
+     *
+     * @see Option the query itself, which is a named native query
+     */
     @Query(
-        value = "select o from options o where o.active and o.stock.id = :stockId and o.settlementDate between :startDate and :endDate"
+        name = "options.findChainRows",
+        nativeQuery = true
     )
-    List<Option> findAllOptionsForStockWithSettlementDate(
-        UUID stockId,
-        OffsetDateTime startDate,
-        OffsetDateTime endDate
+    List<OptionChainRow> findChainRows(
+        @Param("stockId") UUID stockId,
+        @Param("startDate") OffsetDateTime startDate,
+        @Param("endDate") OffsetDateTime endDate
     );
 
+    /**
+     * Loads the options read-only, so that callers can update the returned instances and write the
+     * changes themselves (in bulk) without the persistence context also flushing them row by row.
+     *
+     * @return all options made by this bank (as opposed to ones received from other banks), active
+     *         or not
+     */
+    @Query("select o from options o where o.foreignId is null")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Option> findAllOwnOptions();
+
+    /**
+     * Deletes retired options which are not referred to by any order, holding or OTC request.
+     */
     @Modifying
     @Transactional
     @Query(
         value = """
             DELETE FROM options o
-            WHERE NOT EXISTS (
+            WHERE NOT o.active
+            AND NOT EXISTS (
                 SELECT 1 FROM orders ord WHERE ord.asset_id = o.id
             )
             AND NOT EXISTS (
@@ -45,14 +73,6 @@ public interface OptionsRepository extends JpaRepository<Option, UUID> {
     )
     void deleteOptionsWithoutOrders();
 
-    @Modifying
-    @Transactional
-    @Query(
-        value = "UPDATE options SET active = false",
-        nativeQuery = true
-    )
-    void deactivateAll();
-
     @Query("SELECT o FROM options o WHERE o.foreignId = :id")
     Optional<Option> findByFBId(ForeignBankId id);
 
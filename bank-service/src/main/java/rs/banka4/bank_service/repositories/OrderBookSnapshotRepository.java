@@ -0,0 +1,24 @@
+package rs.banka4.bank_service.repositories;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.orders.db.OrderBookSnapshot;
+
+@Repository
+public interface OrderBookSnapshotRepository extends JpaRepository<OrderBookSnapshot, UUID> {
+    @Query("select max(s.lastSequenceNumber) from OrderBookSnapshot s")
+    Optional<Long> findLatestSequenceNumber();
+
+    List<OrderBookSnapshot> findAllByLastSequenceNumber(long lastSequenceNumber);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OrderBookSnapshot s where s.lastSequenceNumber < :sequenceNumber")
+    int deleteAllOlderThan(long sequenceNumber);
+}
@@ -0,0 +1,26 @@
+package rs.banka4.bank_service.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import rs.banka4.bank_service.domain.orders.db.OrderEvent;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+    /**
+     * Reads one page of the journal tail in sequence order. Callers page through the journal by
+     * passing the last sequence number of the previous page as {@code after}.
+     */
+    List<OrderEvent> findBySequenceNumberGreaterThanAndSequenceNumberLessThanEqualOrderBySequenceNumberAsc(
+        long after,
+        long upTo,
+        Limit limit
+    );
+
+    @Query("select max(e.sequenceNumber) from OrderEvent e where e.occurredAt < :before")
+    Optional<Long> findLastSequenceNumberBefore(OffsetDateTime before);
+}
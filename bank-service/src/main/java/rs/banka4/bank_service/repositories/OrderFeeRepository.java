@@ -0,0 +1,23 @@
+package rs.banka4.bank_service.repositories;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import rs.banka4.bank_service.domain.orders.db.OrderFee;
+
+@Repository
+public interface OrderFeeRepository extends JpaRepository<OrderFee, UUID> {
+    @Query("select distinct f.account.id from OrderFee f where f.settledAt is null")
+    List<UUID> findAccountIdsWithPendingFees();
+
+    /**
+     * Locks and returns the unsettled fees of an account, so that a fee cannot be settled twice by
+     * overlapping sweeps.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<OrderFee> findAllByAccount_IdAndSettledAtIsNull(UUID accountId);
+}
@@ -1,7 +1,6 @@
 package rs.banka4.bank_service.repositories;
 
 import jakarta.persistence.LockModeType;
-import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,11 +16,6 @@ import rs.banka4.bank_service.domain.orders.db.Order;
 import rs.banka4.bank_service.domain.orders.db.Status;
 
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    @Query(
-        value = "select count(*) from Order o where o.asset.id = ?1 and o.createdAt between ?2 and ?3"
-    )
-    int findCountOfMadeOrdersToday(UUID assetId, OffsetDateTime startDate, OffsetDateTime endDate);
-
     List<Order> findAllByStatusAndIsDoneFalse(Status status);
 
     @Query(
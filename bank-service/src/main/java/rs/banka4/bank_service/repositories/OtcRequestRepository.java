@@ -2,6 +2,7 @@ package rs.banka4.bank_service.repositories;
 
 import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -39,6 +40,8 @@ public interface OtcRequestRepository extends JpaRepository<OtcRequest, ForeignB
 
     Optional<OtcRequest> findByOptionId(UUID optionId);
 
+    List<OtcRequest> findAllByOptionIdIn(Collection<UUID> optionIds);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT o FROM OtcRequest o WHERE o.optionId = :optionId")
     Optional<OtcRequest> findAndLockByOptionId(UUID optionId);
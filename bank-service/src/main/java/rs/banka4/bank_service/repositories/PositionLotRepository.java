@@ -0,0 +1,13 @@
+package rs.banka4.bank_service.repositories;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import rs.banka4.bank_service.domain.assets.db.PositionLot;
+
+@Repository
+public interface PositionLotRepository extends JpaRepository<PositionLot, UUID> {
+    /** @return the open lots of a position, in the order sells consume them */
+    List<PositionLot> findAllByUserIdAndAssetIdOrderByAcquiredAtAscIdAsc(UUID userId, UUID assetId);
+}
@@ -0,0 +1,43 @@
+package rs.banka4.bank_service.repositories;
+
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.assets.db.PositionId;
+
+@Repository
+public interface PositionRepository extends JpaRepository<Position, PositionId> {
+    /**
+     * Creates an empty position, unless there already is one, so that it can be locked with
+     * {@link #findAndLockById(PositionId)} even by the first fill.
+     */
+    @Modifying
+    @Query(
+        value = """
+            INSERT INTO positions (user_id, asset_id, quantity, cost_basis)
+            VALUES (:userId, :assetId, 0, 0)
+            ON CONFLICT DO NOTHING
+            """,
+        nativeQuery = true
+    )
+    void createIfMissing(@Param("userId") UUID userId, @Param("assetId") UUID assetId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Position p WHERE p.id = :id")
+    Optional<Position> findAndLockById(@Param("id") PositionId id);
+
+    @Query("SELECT p FROM Position p WHERE p.id.userId = :userId AND p.id.assetId IN :assetIds")
+    List<Position> findAllByUserIdAndAssetIds(
+        @Param("userId") UUID userId,
+        @Param("assetIds") Collection<UUID> assetIds
+    );
+}
@@ -0,0 +1,75 @@
+package rs.banka4.bank_service.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.listing.db.PriceHistoryRollup;
+import rs.banka4.bank_service.domain.listing.db.PriceHistoryRollupId;
+import rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
+
+@Repository
+public interface PriceHistoryRollupRepository extends
+    JpaRepository<PriceHistoryRollup, PriceHistoryRollupId> {
+    /**
+     * Folds the daily price info dated within {@code [from, to)} into the rollups of the given
+     * resolution. A bucket keeps the latest daily price info it has seen, so this is safe to call
+     * repeatedly for the same period.
+     *
+     * @param resolution name of a {@link PriceHistoryResolution}
+     * @param truncField {@link PriceHistoryResolution#truncField()} of the same resolution
+     * @return the number of created or updated rollups
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO price_history_rollups
+                (security_id, resolution, bucket_start, date, last_price)
+            SELECT DISTINCT ON (security_id, bucket_start)
+                   security_id, :resolution, bucket_start, date, last_price
+            FROM (SELECT security_id,
+                         date_trunc(:truncField, date AT TIME ZONE 'Europe/Belgrade')::date
+                             AS bucket_start,
+                         date,
+                         last_price
+                  FROM listing_daily_price_info
+                  WHERE date >= :from
+                    AND date < :to) AS days
+            ORDER BY security_id, bucket_start, date DESC
+            ON CONFLICT (security_id, resolution, bucket_start)
+            DO UPDATE SET date = excluded.date,
+                          last_price = excluded.last_price
+            WHERE excluded.date >= price_history_rollups.date
+            """,
+        nativeQuery = true
+    )
+    int rollUp(
+        @Param("resolution") String resolution,
+        @Param("truncField") String truncField,
+        @Param("from") OffsetDateTime from,
+        @Param("to") OffsetDateTime to
+    );
+
+    @Query("""
+            select new rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto(r.date, r.lastPrice)
+            from PriceHistoryRollup r
+            where r.id.securityId = :securityId
+            and r.id.resolution = :resolution
+            and r.date >= :from
+            and r.date < :to
+            order by r.id.bucketStart asc
+        """)
+    Stream<PriceChangeDto> streamPriceChanges(
+        @Param("securityId") UUID securityId,
+        @Param("resolution") PriceHistoryResolution resolution,
+        @Param("from") OffsetDateTime from,
+        @Param("to") OffsetDateTime to
+    );
+}
@@ -0,0 +1,82 @@
+package rs.banka4.bank_service.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.listing.db.QuoteHistoryEntry;
+import rs.banka4.bank_service.domain.listing.db.QuoteHistoryId;
+
+@Repository
+public interface QuoteHistoryRepository extends JpaRepository<QuoteHistoryEntry, QuoteHistoryId> {
+    /**
+     * Appends the current quote of every active listing to the history. Quotes which are already
+     * recorded (i.e. listings which were not refreshed since the last call) are skipped.
+     *
+     * @return the number of appended quotes
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO quote_history (security_id, refreshed_at, bid, ask)
+            SELECT security_id, last_refresh, bid, ask
+            FROM listings
+            WHERE active
+            ON CONFLICT DO NOTHING
+            """,
+        nativeQuery = true
+    )
+    int appendActiveListings();
+
+    /**
+     * Like {@link #appendActiveListings()}, for the active listings of the given securities only.
+     *
+     * @return the number of appended quotes
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = """
+            INSERT INTO quote_history (security_id, refreshed_at, bid, ask)
+            SELECT security_id, last_refresh, bid, ask
+            FROM listings
+            WHERE active
+              AND security_id IN (:securityIds)
+            ON CONFLICT DO NOTHING
+            """,
+        nativeQuery = true
+    )
+    int appendActiveListingsOf(@Param("securityIds") Collection<UUID> securityIds);
+
+    @Query("""
+            select q from QuoteHistoryEntry q
+            where q.id.securityId = :securityId
+            and q.id.refreshedAt >= :from
+            and q.id.refreshedAt < :to
+            order by q.id.refreshedAt asc
+        """)
+    List<QuoteHistoryEntry> findAllInPeriod(
+        @Param("securityId") UUID securityId,
+        @Param("from") OffsetDateTime from,
+        @Param("to") OffsetDateTime to
+    );
+
+    /**
+     * Removes quotes older than {@code before} from the default partition, which catches rows
+     * outside of all daily partitions.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        value = "DELETE FROM quote_history_default WHERE refreshed_at < :before",
+        nativeQuery = true
+    )
+    int deleteFromDefaultPartitionBefore(@Param("before") OffsetDateTime before);
+}
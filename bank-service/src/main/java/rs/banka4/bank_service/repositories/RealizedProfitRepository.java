@@ -0,0 +1,31 @@
+package rs.banka4.bank_service.repositories;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rs.banka4.bank_service.domain.assets.db.RealizedProfit;
+import rs.banka4.bank_service.domain.assets.db.RealizedProfitTotal;
+
+@Repository
+public interface RealizedProfitRepository extends JpaRepository<RealizedProfit, UUID> {
+    /** @return the profit realized by all fills of a sell order so far */
+    @Query(
+        "SELECT COALESCE(SUM(r.profit.amount), 0) FROM RealizedProfit r"
+            + " WHERE r.sellOrderId = :sellOrderId"
+    )
+    BigDecimal sumProfitBySellOrderId(@Param("sellOrderId") UUID sellOrderId);
+
+    /** @return the profit realized by each of the given users, per currency */
+    @Query(
+        "SELECT new rs.banka4.bank_service.domain.assets.db.RealizedProfitTotal("
+            + "r.userId, r.profit.currency, SUM(r.profit.amount))"
+            + " FROM RealizedProfit r WHERE r.userId IN :userIds"
+            + " GROUP BY r.userId, r.profit.currency"
+    )
+    List<RealizedProfitTotal> sumProfitByUserIds(@Param("userIds") Collection<UUID> userIds);
+}
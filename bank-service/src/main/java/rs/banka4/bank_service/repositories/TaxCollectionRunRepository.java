@@ -0,0 +1,11 @@
+package rs.banka4.bank_service.repositories;
+
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import rs.banka4.bank_service.domain.taxes.db.TaxCollectionRun;
+
+public interface TaxCollectionRunRepository extends JpaRepository<TaxCollectionRun, UUID> {
+    /** Finds the latest run which has not finished, which is the one to resume this month. */
+    Optional<TaxCollectionRun> findFirstByFinishedAtIsNullOrderByStartedAtDesc();
+}
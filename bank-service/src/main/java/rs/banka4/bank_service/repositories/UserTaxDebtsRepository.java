@@ -4,10 +4,12 @@ import jakarta.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import rs.banka4.bank_service.domain.taxes.db.UserTaxDebts;
@@ -19,6 +21,28 @@ public interface UserTaxDebtsRepository extends JpaRepository<UserTaxDebts, UUID
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<UserTaxDebts> findByAccount_AccountNumber(String accountId);
 
+    /**
+     * Reads one chunk of the IDs of debts which are due, in ID order. Callers page through the
+     * debts by passing the last ID of the previous chunk as {@code after}.
+     */
+    @Query("""
+        SELECT d.id
+        FROM UserTaxDebts d
+        WHERE d.debtAmount > 0
+          AND d.id > :after
+        ORDER BY d.id
+        """)
+    List<UUID> findDueDebtIdsAfter(@Param("after") UUID after, Limit limit);
+
+    /**
+     * Sets the tax paid this year back to zero for every debt, at the start of a new year.
+     *
+     * @return the number of debts changed
+     */
+    @Modifying
+    @Query("UPDATE UserTaxDebts d SET d.yearlyDebtAmount = 0 WHERE d.yearlyDebtAmount <> 0")
+    int resetYearlyDebts();
+
     /**
      * Finds all distinct clients who have at least one UserTaxDebts record with debtAmount > 0.
      * Optionally filters by firstName / lastName (partial, case‑insensitive).
@@ -1,10 +1,17 @@
 package rs.banka4.bank_service.runners;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,19 +20,23 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import retrofit2.Response;
 import rs.banka4.bank_service.config.retrofit.AlphaVantageService;
 import rs.banka4.bank_service.domain.exchanges.db.Exchange;
 import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
 import rs.banka4.bank_service.domain.listing.dtos.ListingApiDto;
+import rs.banka4.bank_service.domain.security.Security;
 import rs.banka4.bank_service.domain.security.forex.db.CurrencyMapper;
+import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
 import rs.banka4.bank_service.domain.security.future.db.Future;
 import rs.banka4.bank_service.domain.security.future.db.UnitName;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
 import rs.banka4.bank_service.domain.security.stock.dtos.StockInfoDto;
 import rs.banka4.bank_service.repositories.*;
+import rs.banka4.bank_service.service.abstraction.ListingService;
+import rs.banka4.bank_service.service.impl.MarketDataBulkWriter;
+import rs.banka4.bank_service.service.impl.MarketDataFetcher;
+import rs.banka4.bank_service.service.impl.MarketDataSnapshotStore;
 import rs.banka4.bank_service.utils.ListingsAndOptionsUpdatesScheduler;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 
@@ -36,6 +47,11 @@ public class ListingsDataRunner implements CommandLineRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(ListingsDataRunner.class);
     public static volatile boolean finishedSeeding = false;
 
+    /** Stocks are saved in batches of this size, so that a restart does not fetch them again. */
+    private static final int STOCK_CHECKPOINT_SIZE = 50;
+    /** ID of the first stock in {@code ticker_exchange.csv}; the rest follow in file order. */
+    private static final long FIRST_STOCK_ID = 545353;
+
     private final Environment environment;
     private final ForexRepository forexPairRepository;
     private final StockRepository stockRepository;
@@ -45,6 +61,11 @@ public class ListingsDataRunner implements CommandLineRunner {
     private final ListingDailyPriceInfoRepository listingDailyPriceInfoRepository;
     private final OptionsRepository optionsRepository;
     private final AlphaVantageService alphaRetrofit;
+    private final MarketDataBulkWriter marketDataBulkWriter;
+    private final MarketDataFetcher marketDataFetcher;
+    private final MarketDataSnapshotStore snapshotStore;
+    private final SecurityRepository securityRepository;
+    private final ListingService listingService;
 
     private final ListingsAndOptionsUpdatesScheduler listingsAndOptionsUpdatesScheduler;
     // This will be used to seed for the first time instead of waiting for an update which can take
@@ -68,57 +89,216 @@ public class ListingsDataRunner implements CommandLineRunner {
         LOGGER.info("Options count: {}", optionsRepository.count());
     }
 
-    @Transactional
+    /**
+     * Seeds everything the stock service needs, in stages which run concurrently as far as their
+     * data allows: stocks, forex pairs, futures and exchanges are independent of each other,
+     * listings need all of them, and options and daily price info need listings.
+     *
+     * <p>
+     * Every stage checks whether its data is already there and is skipped if so. Stocks, which
+     * take by far the longest, are saved in batches, so a restart only fetches the ones which are
+     * still missing. Stocks are only topped up until listings have been seeded.
+     *
+     * <p>
+     * If there is a market data snapshot, stocks, forex pairs and listings are restored from it
+     * instead of being fetched, which works offline and takes seconds. They are then refreshed
+     * from AlphaVantage in the background, once the service is up. Otherwise, a snapshot is
+     * written once seeding is done.
+     */
     public void runProd() {
-        // TODO propagate errors so transaction can fail
         LOGGER.info("Seeding prod");
+        final long start = System.nanoTime();
+        final Optional<MarketDataSnapshotStore.Snapshot> snapshot = snapshotStore.read();
+        snapshot.ifPresent(
+            s -> LOGGER.info(
+                "Found market data snapshot taken at {}, seeding from it",
+                s.takenAt()
+            )
+        );
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var stocks =
+                stage(
+                    "stocks",
+                    () -> listingRepository.count() > 0,
+                    () -> snapshot.ifPresentOrElse(
+                        this::restoreStocks,
+                        this::seedProductionStocks
+                    ),
+                    executor
+                );
+            var forexPairs =
+                stage(
+                    "forex pairs",
+                    () -> forexPairRepository.count() > 0,
+                    () -> snapshot.ifPresentOrElse(
+                        this::restoreForexPairs,
+                        this::seedProductionForexPairs
+                    ),
+                    executor
+                );
+            var futures =
+                stage(
+                    "futures",
+                    () -> futureRepository.count() > 0,
+                    this::seedProductionFutures,
+                    executor
+                );
+            var exchanges =
+                stage(
+                    "exchanges",
+                    () -> exchangeRepository.count() > 0,
+                    this::seedProductionExchanges,
+                    executor
+                );
+            var listings =
+                stage(
+                    "listings",
+                    () -> listingRepository.count() > 0,
+                    () -> snapshot.ifPresentOrElse(
+                        this::restoreListings,
+                        this::seedProductionListings
+                    ),
+                    executor,
+                    stocks,
+                    forexPairs,
+                    futures,
+                    exchanges
+                );
+            var options =
+                stage(
+                    "options",
+                    () -> optionsRepository.count() > 0,
+                    this::seedProductionOptions,
+                    executor,
+                    listings
+                );
+            var dailyPriceInfo =
+                stage(
+                    "listing daily price info",
+                    () -> listingDailyPriceInfoRepository.count() > 0,
+                    this::seedProductionListingDailyPriceInfo,
+                    executor,
+                    listings
+                );
 
-        if (stockRepository.count() == 0) {
-            seedProductionStocks();
-        } else {
-            LOGGER.info("Not reseeding stockRepository, data already exists");
-        }
-
-        if (forexPairRepository.count() == 0) {
-            seedProductionForexPairs();
-        } else {
-            LOGGER.info("Not reseeding forexPairRepository, data already exists");
-
+            CompletableFuture.allOf(options, dailyPriceInfo)
+                .join();
+        } catch (CompletionException e) {
+            LOGGER.error("Seeding prod failed: {}", e.getCause(), e.getCause());
         }
 
-        if (futureRepository.count() == 0) {
-            seedProductionFutures();
-        } else {
-            LOGGER.info("Not reseeding futureRepository, data already exists");
-        }
+        logRepositoryCounts();
+        LOGGER.info(
+            "Seeding prod finished in {} ms, ready {} ms after JVM start, starting stock service",
+            (System.nanoTime() - start) / 1_000_000,
+            ManagementFactory.getRuntimeMXBean()
+                .getUptime()
+        );
+        finishedSeeding = true;
 
-        if (exchangeRepository.count() == 0) {
-            seedProductionExchanges();
+        if (snapshot.isPresent()) {
+            Thread.ofVirtual()
+                .name("market-data-refresh")
+                .start(listingsAndOptionsUpdatesScheduler::updateListingsAndOptions);
         } else {
-            LOGGER.info("Not reseeding exchangeRepository, data already exists");
+            listingsAndOptionsUpdatesScheduler.writeSnapshot();
         }
+    }
 
-        if (listingRepository.count() == 0) {
-            seedProductionListings();
-        } else {
-            LOGGER.info("Not reseeding listingsRepository, data already exists");
-        }
+    private void restoreStocks(MarketDataSnapshotStore.Snapshot snapshot) {
+        Set<String> seeded = makeStockMap().keySet();
+        List<Stock> stocks =
+            snapshot.stocks()
+                .stream()
+                .filter(stock -> !seeded.contains(stock.getTicker()))
+                .toList();
+        stockRepository.saveAllAndFlush(stocks);
+        LOGGER.info("Restored {} stocks from the market data snapshot", stocks.size());
+    }
 
-        if (optionsRepository.count() == 0) {
-            seedProductionOptions();
-        } else {
-            LOGGER.info("Not reseeding options, data already exists");
-        }
+    private void restoreForexPairs(MarketDataSnapshotStore.Snapshot snapshot) {
+        List<ForexPair> forexPairs = snapshot.forexPairs();
+        forexPairRepository.saveAllAndFlush(forexPairs);
+        LOGGER.info("Restored {} forex pairs from the market data snapshot", forexPairs.size());
+    }
 
-        if (listingDailyPriceInfoRepository.count() == 0) {
-            seedProductionListingDailyPriceInfo();
-        } else {
-            LOGGER.info("Not reseeding listing daily price info, data already exists");
+    /**
+     * Makes active listings out of the quotes in the snapshot. Quotes of securities or exchanges
+     * which do not exist (any more) are left out.
+     */
+    private void restoreListings(MarketDataSnapshotStore.Snapshot snapshot) {
+        Map<UUID, Exchange> exchanges = new HashMap<>();
+        for (Exchange exchange : exchangeRepository.findAll())
+            exchanges.put(exchange.getId(), exchange);
+        List<UUID> securityIds =
+            snapshot.quotes()
+                .stream()
+                .map(MarketDataSnapshotStore.Quote::securityId)
+                .toList();
+        Map<UUID, Security> securities = new HashMap<>();
+        for (Security security : securityRepository.findAllById(securityIds))
+            securities.put(security.getId(), security);
+
+        List<Listing> listings = new ArrayList<>();
+        for (MarketDataSnapshotStore.Quote quote : snapshot.quotes()) {
+            Security security = securities.get(quote.securityId());
+            Exchange exchange = exchanges.get(quote.exchangeId());
+            if (security == null || exchange == null) continue;
+            listings.add(
+                Listing.builder()
+                    .id(quote.listingId())
+                    .security(security)
+                    .exchange(exchange)
+                    .ask(quote.ask())
+                    .bid(quote.bid())
+                    .contractSize(quote.contractSize())
+                    .lastRefresh(quote.lastRefresh())
+                    .active(true)
+                    .build()
+            );
         }
+        marketDataBulkWriter.saveListings(listings);
+        listingService.markListingsRefreshed();
+        LOGGER.info(
+            "Restored {} of {} listings from the market data snapshot",
+            listings.size(),
+            snapshot.quotes()
+                .size()
+        );
+    }
 
-        logRepositoryCounts();
-        LOGGER.info("Seeding prod finished, starting stock service...");
-        finishedSeeding = true;
+    /**
+     * Runs one seeding stage on {@code executor} once all of {@code dependencies} are done.
+     *
+     * @param name name of the stage, for progress reports
+     * @param seeded whether the data of this stage is already there, in which case it is skipped
+     * @param seed seeds the data of this stage
+     * @return a future which completes once the stage is done or skipped, and completes
+     *         exceptionally if the stage or one of its dependencies failed
+     */
+    private CompletableFuture<Void> stage(
+        String name,
+        BooleanSupplier seeded,
+        Runnable seed,
+        Executor executor,
+        CompletableFuture<?>... dependencies
+    ) {
+        return CompletableFuture.allOf(dependencies)
+            .thenRunAsync(() -> {
+                if (seeded.getAsBoolean()) {
+                    LOGGER.info("Seeding stage '{}': data already exists, skipping", name);
+                    return;
+                }
+                LOGGER.info("Seeding stage '{}' started", name);
+                final long start = System.nanoTime();
+                seed.run();
+                LOGGER.info(
+                    "Seeding stage '{}' finished in {} ms",
+                    name,
+                    (System.nanoTime() - start) / 1_000_000
+                );
+            }, executor);
     }
 
     private void seedProductionListingDailyPriceInfo() {
@@ -166,7 +346,7 @@ public class ListingsDataRunner implements CommandLineRunner {
                 listingDailyPriceInfos.add(info);
             }
 
-            listingDailyPriceInfoRepository.saveAllAndFlush(listingDailyPriceInfos);
+            marketDataBulkWriter.insertDailyPriceInfo(listingDailyPriceInfos);
             LOGGER.info("Production ListingDailyPriceInfo seeded successfully.");
         } catch (Exception e) {
             LOGGER.error(
@@ -265,15 +445,7 @@ public class ListingsDataRunner implements CommandLineRunner {
         }
     }
 
-    private Stock fetchStockInfo(String ticker, long id) throws IOException {
-        // https://www.alphavantage.co/query?function=OVERVIEW&symbol=IBM&apikey=demo
-
-        retrofit2.Call<StockInfoDto> call =
-            alphaRetrofit.getStockInfo("OVERVIEW", ticker, vantageKey);
-
-        Response<StockInfoDto> stockInfoDtoResponse = call.execute();
-        StockInfoDto stockInfoDto = stockInfoDtoResponse.body();
-
+    private Stock makeStock(StockInfoDto stockInfoDto, String ticker, long id) {
         BigDecimal divYield = new BigDecimal(0.0);
         try {
             divYield = new BigDecimal(stockInfoDto.dividendYield());
@@ -304,9 +476,12 @@ public class ListingsDataRunner implements CommandLineRunner {
             .build();
     }
 
+    /**
+     * Fetches and saves all stocks from {@code ticker_exchange.csv} which are not saved yet, in
+     * batches of {@link #STOCK_CHECKPOINT_SIZE}.
+     */
     private void seedProductionStocks() {
         try {
-            List<Stock> stocks = new ArrayList<>();
             List<String> tickers = new ArrayList<>();
             InputStream is = getClass().getResourceAsStream("ticker_exchange.csv");
             if (is == null) {
@@ -326,16 +501,45 @@ public class ListingsDataRunner implements CommandLineRunner {
                 tickers.add(t);
             }
 
-            long id = 545353;
-            for (String ticker : tickers) {
-                Stock stock = fetchStockInfo(ticker, id++);
-                if (stock == null) {
-                    continue;
+            /* IDs depend on the position in the file, so they are the same after a restart. */
+            Set<String> seeded = makeStockMap().keySet();
+            Map<String, Long> missing = new LinkedHashMap<>();
+            for (int i = 0; i < tickers.size(); i++) {
+                if (!seeded.contains(tickers.get(i)))
+                    missing.putIfAbsent(tickers.get(i), FIRST_STOCK_ID + i);
+            }
+            LOGGER.info(
+                "Stocks: {} of {} already seeded, fetching the rest",
+                tickers.size() - missing.size(),
+                tickers.size()
+            );
+
+            List<String> pending = new ArrayList<>(missing.keySet());
+            int saved = 0;
+            for (int from = 0; from < pending.size(); from += STOCK_CHECKPOINT_SIZE) {
+                List<String> batch =
+                    pending.subList(from, Math.min(pending.size(), from + STOCK_CHECKPOINT_SIZE));
+                Map<String, StockInfoDto> infos =
+                    marketDataFetcher.fetchAll(
+                        batch,
+                        ticker -> alphaRetrofit.getStockInfo("OVERVIEW", ticker, vantageKey)
+                    );
+
+                List<Stock> stocks = new ArrayList<>();
+                for (var info : infos.entrySet()) {
+                    Stock stock =
+                        makeStock(info.getValue(), info.getKey(), missing.get(info.getKey()));
+                    if (stock != null) stocks.add(stock);
                 }
-                stocks.add(stock);
-                Thread.sleep(200);
+                stockRepository.saveAllAndFlush(stocks);
+                saved += stocks.size();
+                LOGGER.info(
+                    "Stocks: {} of {} fetched, {} saved",
+                    from + batch.size(),
+                    pending.size(),
+                    saved
+                );
             }
-            stockRepository.saveAllAndFlush(stocks);
             LOGGER.info("Production stocks seeded successfully.");
         } catch (Exception e) {
             LOGGER.error("Error occurred while seeding prod stocks: {}", e.getMessage());
@@ -0,0 +1,40 @@
+package rs.banka4.bank_service.service.abstraction;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of how many orders were made for each asset during the current trading day.
+ * <p>
+ * Counters are kept in memory and periodically flushed to the {@code asset_daily_volumes} table.
+ * The trading day rolls over at midnight in {@link #TRADING_DAY_ZONE}.
+ */
+public interface AssetVolumeService {
+    ZoneId TRADING_DAY_ZONE = ZoneId.of("Europe/Belgrade");
+
+    /**
+     * Counts one newly created order for the given asset. If called inside a transaction, the order
+     * is only counted once that transaction commits.
+     *
+     * @param assetId the asset the order was made for
+     */
+    void recordOrder(UUID assetId);
+
+    /**
+     * @return number of orders made today for the given asset
+     */
+    int getVolume(UUID assetId);
+
+    /**
+     * @return number of orders made today for each of the given assets; assets without orders map
+     *         to zero
+     */
+    Map<UUID, Integer> getVolumes(Collection<UUID> assetIds);
+
+    /**
+     * Writes all counted but not yet persisted volume to the database.
+     */
+    void flush();
+}
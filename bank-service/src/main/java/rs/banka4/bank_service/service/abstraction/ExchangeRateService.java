@@ -25,6 +25,16 @@ public abstract class ExchangeRateService {
      */
     public abstract ExchangeRateDto getExchangeRates();
 
+    /**
+     * Identifies the snapshot of exchange rates currently in use. Values computed from exchange
+     * rates can be cached for as long as this stays the same.
+     *
+     * @return the time the current rates were published, in seconds since the epoch.
+     */
+    public long getRatesVersion() {
+        return getExchangeRates().lastUpdatedUnix();
+    }
+
     /**
      * Converts an amount from one currency to another based on exchange rates.
      *
@@ -48,7 +58,26 @@ public abstract class ExchangeRateService {
      * @throws IllegalArgumentException if an invalid currency code is provided.
      */
     public BigDecimal convertCurrency(BigDecimal amount, CurrencyCode from, CurrencyCode to) {
-        ExchangeRateDto exchangeRateDto = getExchangeRates();
+        return convertCurrency(getExchangeRates(), amount, from, to);
+    }
+
+    /**
+     * Converts an amount like {@link #convertCurrency(BigDecimal, CurrencyCode, CurrencyCode)}, but
+     * with the given rates instead of fetching the latest ones. Use this to convert many amounts
+     * with the same snapshot of rates.
+     *
+     * @param exchangeRateDto the rates to convert with, as returned by {@link #getExchangeRates()}.
+     * @param amount the amount to be converted.
+     * @param from the source currency code.
+     * @param to the target currency code.
+     * @return the converted amount.
+     */
+    public BigDecimal convertCurrency(
+        ExchangeRateDto exchangeRateDto,
+        BigDecimal amount,
+        CurrencyCode from,
+        CurrencyCode to
+    ) {
         final var exchangeRates = exchangeRateDto.exchanges();
 
         if (from.equals(CurrencyCode.RSD)) {
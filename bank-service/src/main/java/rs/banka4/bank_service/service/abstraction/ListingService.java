@@ -2,18 +2,22 @@ package rs.banka4.bank_service.service.abstraction;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
-import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.dtos.ListingDetailsDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
 import rs.banka4.bank_service.domain.listing.dtos.ListingInfoDto;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
 import rs.banka4.bank_service.domain.listing.dtos.OptionDto;
 import rs.banka4.bank_service.domain.listing.dtos.PriceChangeDto;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
 
 public interface ListingService {
     int getVolumeOfAsset(UUID securityId);
@@ -24,6 +28,25 @@ public interface ListingService {
 
     List<PriceChangeDto> getPriceChanges(UUID securityId);
 
+    /**
+     * Passes the price history of a security within {@code [from, to)} to {@code consumer}, oldest
+     * first, with one point per bucket of the given resolution. Points are streamed from the
+     * database inside a single read-only transaction rather than loaded all at once.
+     */
+    void streamPriceHistory(
+        UUID securityId,
+        OffsetDateTime from,
+        OffsetDateTime to,
+        PriceHistoryResolution resolution,
+        Consumer<PriceChangeDto> consumer
+    );
+
+    /**
+     * @return date of the latest daily price of the given security, which changes whenever its
+     *         price history does; empty if it has no price history
+     */
+    Optional<OffsetDateTime> getPriceHistoryLastModified(UUID securityId);
+
     ListingDetailsDto getListingDetails(UUID securityId);
 
     List<OptionDto> getOptionsWithSettlementDateForStock(
@@ -33,5 +56,42 @@ public interface ListingService {
 
     MonetaryAmount getLatestPriceForStock(UUID stockId);
 
-    Optional<Listing> findActiveListingByAsset(UUID assetId);
+    /**
+     * Served from an in-memory cache which is reloaded whenever listings are refreshed, so this is
+     * cheap enough to call for every order or holding.
+     *
+     * @return the quote of the active listing of the given asset, if it has one
+     */
+    Optional<ListingQuote> findActiveListingByAsset(UUID assetId);
+
+    /**
+     * Like {@link #findActiveListingByAsset(UUID)}, for several assets at once.
+     *
+     * @return the quotes of those of the given assets which have an active listing, by asset ID
+     */
+    Map<UUID, ListingQuote> findActiveListingsByAssets(Collection<UUID> assetIds);
+
+    /**
+     * @return a number which changes every time the set of active listings is refreshed, so that
+     *         values derived from listing prices can be cached until the next refresh
+     */
+    long getListingsVersion();
+
+    /**
+     * Reloads the cached active listings and bumps {@link #getListingsVersion()}. If called inside
+     * a transaction, this only happens once that transaction commits.
+     */
+    void markListingsRefreshed();
+
+    /**
+     * Like {@link #markListingsRefreshed()}, when only the listings of the given securities were
+     * refreshed. Only those are reloaded.
+     */
+    void markListingsRefreshed(Collection<UUID> securityIds);
+
+    /**
+     * Drops cached options chains, as options were regenerated. If called inside a transaction,
+     * this only happens once that transaction commits.
+     */
+    void markOptionsRefreshed();
 }
@@ -0,0 +1,34 @@
+package rs.banka4.bank_service.service.abstraction;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import rs.banka4.bank_service.domain.orders.db.Order;
+
+/**
+ * Keeps the ledger of order execution fees. Fees are accrued per executed order and settled in
+ * bulk, with a single transaction per account covering all of its pending fees.
+ */
+public interface OrderFeeService {
+    /**
+     * Records the commission for an executed order as pending on the order's account. No money is
+     * moved until the fees of the account are settled.
+     *
+     * @param order the executed order
+     * @param commission the commission, in the currency of the order's account
+     */
+    void accrueFee(Order order, BigDecimal commission);
+
+    /**
+     * @return IDs of all accounts which have unsettled fees
+     */
+    List<UUID> getAccountsWithPendingFees();
+
+    /**
+     * Settles all pending fees of the given account by transferring their sum to the bank's account
+     * in the same currency.
+     *
+     * @param accountId the account whose fees to settle
+     */
+    void settlePendingFees(UUID accountId);
+}
@@ -0,0 +1,30 @@
+package rs.banka4.bank_service.service.abstraction;
+
+import rs.banka4.bank_service.domain.orders.db.Order;
+
+/**
+ * Keeps the FIFO lot ledger used for profit calculation. Every buy fill opens a lot, and every sell
+ * fill consumes the oldest open lots of the seller and records the profit it realized, so neither
+ * unrealized nor realized profit needs to replay the order history.
+ */
+public interface PositionLedgerService {
+    /**
+     * Records that {@code quantity} units were traded between a buy and a sell order. Fills of
+     * options are ignored, as their profit does not depend on the price they were bought at.
+     *
+     * @param buy the buy order, whose remaining portions already account for the fill
+     * @param sell the sell order, whose remaining portions already account for the fill
+     * @param quantity the quantity traded
+     */
+    void recordFill(Order buy, Order sell, int quantity);
+
+    /**
+     * Saves an order that was executed in full outside of the order book, such as the order of an
+     * exercised option, and records it in the same transaction. A buy opens a lot of its whole
+     * quantity, and a sell consumes the oldest open lots of the user.
+     *
+     * @param order a done order, filled in full at its price per unit
+     * @return the saved order
+     */
+    Order saveExecutedOrder(Order order);
+}
@@ -1,7 +1,10 @@
 package rs.banka4.bank_service.service.abstraction;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.Position;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.orders.db.Order;
@@ -19,6 +22,20 @@ public interface ProfitCalculationService {
         int totalAmount
     );
 
+    /**
+     * Like {@link #calculateProfit(UUID, Asset, MonetaryAmount, int)}, but from a position which
+     * was already loaded, so that the profit of many holdings can be calculated without a query
+     * each.
+     *
+     * @param position the position of the user in {@code asset}, or {@code null} if they have none
+     */
+    MonetaryAmount calculateProfit(
+        Position position,
+        Asset asset,
+        MonetaryAmount currentPrice,
+        int totalAmount
+    );
+
     /**
      * Calculates profit (unrealized/realized) for the given option.
      */
@@ -41,4 +58,18 @@ public interface ProfitCalculationService {
      * @return a {@link MonetaryAmount} in the RSD currency
      */
     MonetaryAmount calculateRealizedProfitForActuary(Employee actuary);
+
+    /**
+     * Like {@link #calculateRealizedProfitForActuary(Employee)}, for several actuaries at once. The
+     * profit of each user is cached, per currency, until their next sell is filled.
+     *
+     * @return the realized profit of each actuary in RSD, by user ID
+     */
+    Map<UUID, MonetaryAmount> calculateRealizedProfitForActuaries(Collection<Employee> actuaries);
+
+    /**
+     * Forgets the cached realized profit of a user once the current transaction commits, or right
+     * away outside of one. Called whenever a sell of theirs is filled.
+     */
+    void evictRealizedProfit(UUID userId);
 }
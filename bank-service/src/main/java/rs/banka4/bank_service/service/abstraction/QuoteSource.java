@@ -0,0 +1,28 @@
+package rs.banka4.bank_service.service.abstraction;
+
+import java.util.Collection;
+import java.util.Map;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
+
+/**
+ * Where stock quotes for listing refreshes come from. Which one is used is chosen with the
+ * {@code listings.quote-source} property:
+ * <ul>
+ * <li>{@code alphavantage} (the default) fetches live quotes from AlphaVantage,</li>
+ * <li>{@code replay} replays a recorded tick file, possibly sped up,</li>
+ * <li>{@code synthetic} makes up quotes following a seeded random walk.</li>
+ * </ul>
+ * The latter two do not need network access and are deterministic, so they can stand in for
+ * AlphaVantage when load testing or benchmarking order execution and option greeks. With either
+ * of them, stock listings are also refreshed every {@code listings.quote-tick-millis}, on top of
+ * the regular refresh every {@code listings.refetch-min} minutes, which is the only one that
+ * regenerates options.
+ */
+public interface QuoteSource {
+    /**
+     * @param tickers the stocks to quote
+     * @return the current quote of each of the given stocks. Stocks which could not be quoted are
+     *         left out, and keep their previous prices.
+     */
+    Map<String, StockQuote> fetchQuotes(Collection<String> tickers);
+}
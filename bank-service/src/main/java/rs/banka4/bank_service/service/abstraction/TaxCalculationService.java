@@ -1,6 +1,7 @@
 package rs.banka4.bank_service.service.abstraction;
 
 import java.util.List;
+import java.util.UUID;
 import rs.banka4.bank_service.domain.account.db.Account;
 import rs.banka4.bank_service.domain.taxes.db.UserTaxDebts;
 import rs.banka4.bank_service.domain.taxes.db.dto.UserTaxInfoDto;
@@ -40,4 +41,16 @@ public interface TaxCalculationService {
      * @throws IllegalArgumentException if no debt entry exists for {@code accountFrom}
      */
     void chargeTax(Account accountFrom, Account accountTo);
+
+    /**
+     * Charges a chunk of debts in one transaction, like {@link #chargeTax(Account, Account)} does
+     * for a single one. All debts are converted with the same snapshot of exchange rates, and the
+     * state account is credited with their sum at once. Debts which are no longer due are ignored,
+     * and debts whose account has insufficient funds are logged and left as they are.
+     *
+     * @param debtIds the IDs of the {@link UserTaxDebts} to charge
+     * @param stateAccount the state account to which the tax will be credited
+     * @return the number of debts charged
+     */
+    int chargeTaxes(List<UUID> debtIds, Account stateAccount);
 }
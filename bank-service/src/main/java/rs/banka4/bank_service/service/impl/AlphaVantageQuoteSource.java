@@ -0,0 +1,65 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.config.retrofit.AlphaVantageService;
+import rs.banka4.bank_service.domain.listing.dtos.ListingApiDto;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
+import rs.banka4.bank_service.service.abstraction.QuoteSource;
+
+/** Fetches live quotes from AlphaVantage, within its request quota. */
+@Slf4j
+@Service
+@Profile("!test")
+@ConditionalOnProperty(
+    name = "listings.quote-source",
+    havingValue = "alphavantage",
+    matchIfMissing = true
+)
+@RequiredArgsConstructor
+public class AlphaVantageQuoteSource implements QuoteSource {
+    private final AlphaVantageService alphaRetrofit;
+    private final MarketDataFetcher marketDataFetcher;
+
+    @Value("${alphavantage.api-key}")
+    private String vantageKey;
+
+    @Override
+    public Map<String, StockQuote> fetchQuotes(Collection<String> tickers) {
+        Map<String, ListingApiDto> responses =
+            marketDataFetcher.fetchAll(
+                tickers,
+                ticker -> alphaRetrofit.getListingInfo("GLOBAL_QUOTE", ticker, vantageKey)
+            );
+
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        responses.forEach((ticker, response) -> {
+            try {
+                quotes.put(
+                    ticker,
+                    new StockQuote(
+                        new BigDecimal(
+                            response.globalQuoteDto()
+                                .priceStr()
+                        ),
+                        Long.parseLong(
+                            response.globalQuoteDto()
+                                .volumeStr()
+                        )
+                    )
+                );
+            } catch (RuntimeException e) {
+                log.error("Malformed quote for {}: {}", ticker, e.getMessage());
+            }
+        });
+        return quotes;
+    }
+}
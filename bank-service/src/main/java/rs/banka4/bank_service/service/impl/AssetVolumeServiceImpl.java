@@ -0,0 +1,161 @@
+package rs.banka4.bank_service.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolume;
+import rs.banka4.bank_service.repositories.AssetDailyVolumeRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AssetVolumeServiceImpl implements AssetVolumeService {
+    private final AssetDailyVolumeRepository assetDailyVolumeRepository;
+
+    /**
+     * Counters of a single trading day. {@code totals} is what gets reported, {@code pending} is
+     * what has not been written to the database yet.
+     */
+    private record DayCounters(
+        LocalDate day,
+        Map<UUID, AtomicInteger> totals,
+        Map<UUID, AtomicInteger> pending
+    ) {
+    }
+
+    private final AtomicReference<DayCounters> counters = new AtomicReference<>();
+    /**
+     * The counters of the day before. An order counted right as the day rolls over may still land
+     * in them after they were flushed, so they are flushed again along with the current ones.
+     */
+    private volatile DayCounters previousCounters;
+
+    @Override
+    public void recordOrder(UUID assetId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        increment(assetId);
+                    }
+                }
+            );
+        } else {
+            increment(assetId);
+        }
+    }
+
+    @Override
+    public int getVolume(UUID assetId) {
+        final var total =
+            currentCounters().totals()
+                .get(assetId);
+        return total == null ? 0 : total.get();
+    }
+
+    @Override
+    public Map<UUID, Integer> getVolumes(Collection<UUID> assetIds) {
+        final var totals = currentCounters().totals();
+        final var volumes = new HashMap<UUID, Integer>();
+        for (UUID assetId : assetIds) {
+            final var total = totals.get(assetId);
+            volumes.put(assetId, total == null ? 0 : total.get());
+        }
+        return volumes;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "#{${listings.volume-flush-seconds} * 1000l}")
+    public void flush() {
+        final var previous = previousCounters;
+        if (previous != null) flush(previous);
+        flush(currentCounters());
+    }
+
+    /** Forces the day to roll over (and yesterday's counters to be flushed) right at midnight. */
+    @Scheduled(
+        cron = "0 0 0 * * *",
+        zone = "Europe/Belgrade"
+    )
+    public void rollOver() {
+        currentCounters();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        final var previous = previousCounters;
+        if (previous != null) flush(previous);
+        final var c = counters.get();
+        if (c != null) flush(c);
+    }
+
+    private void increment(UUID assetId) {
+        final var c = currentCounters();
+        c.totals()
+            .computeIfAbsent(assetId, k -> new AtomicInteger())
+            .incrementAndGet();
+        c.pending()
+            .computeIfAbsent(assetId, k -> new AtomicInteger())
+            .incrementAndGet();
+    }
+
+    private DayCounters currentCounters() {
+        final var today = LocalDate.now(TRADING_DAY_ZONE);
+        var c = counters.get();
+        while (c == null || !today.equals(c.day())) {
+            /* Loaded without holding any lock; if another thread swaps first, its counters win. */
+            final var loaded = load(today);
+            if (counters.compareAndSet(c, loaded)) {
+                if (c != null) {
+                    previousCounters = c;
+                    flush(c);
+                }
+                return loaded;
+            }
+            c = counters.get();
+        }
+        return c;
+    }
+
+    private DayCounters load(LocalDate day) {
+        final var totals = new ConcurrentHashMap<UUID, AtomicInteger>();
+        for (AssetDailyVolume v : assetDailyVolumeRepository.findAllByIdDay(day)) {
+            totals.put(
+                v.getId()
+                    .getAssetId(),
+                new AtomicInteger(v.getVolume())
+            );
+        }
+        log.debug("Loaded daily volumes of {} assets for {}", totals.size(), day);
+        return new DayCounters(day, totals, new ConcurrentHashMap<>());
+    }
+
+    private void flush(DayCounters c) {
+        c.pending()
+            .forEach((assetId, pending) -> {
+                final int delta = pending.getAndSet(0);
+                if (delta == 0) return;
+                try {
+                    assetDailyVolumeRepository.addVolume(assetId, c.day(), delta);
+                } catch (RuntimeException e) {
+                    /* Try again on the next flush. */
+                    pending.addAndGet(delta);
+                    log.error("Failed to flush daily volume of asset {}", assetId, e);
+                }
+            });
+    }
+}
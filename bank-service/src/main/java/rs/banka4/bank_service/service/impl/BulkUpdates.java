@@ -0,0 +1,59 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.time.Duration;
+import java.util.function.IntSupplier;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs set-based updates, and records how many rows each one changed and how long it took.
+ * <p>
+ * The updates themselves are declared as {@code @Modifying} queries on the repositories, each a
+ * single {@code UPDATE} statement, so that jobs which change many rows take one round trip
+ * regardless of the row count instead of loading, changing and saving every entity. As with any
+ * bulk update, managed copies of the changed rows are not refreshed, so callers must not rely on
+ * entities they loaded before the update.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkUpdates {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkUpdates.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The outcome of one bulk update.
+     *
+     * @param name the name the update was run with
+     * @param affectedRows the number of rows the update changed
+     * @param duration how long the update took, including its commit
+     */
+    public record Result(String name, int affectedRows, Duration duration) {
+    }
+
+    /**
+     * Runs {@code update} in its own transaction, or in the caller's if there is one, and logs the
+     * number of rows it changed.
+     *
+     * @param name a name for the update, used in the log
+     * @param update runs the update, returning the number of rows changed
+     * @return the number of rows changed and how long it took
+     */
+    public Result run(String name, IntSupplier update) {
+        final long start = System.nanoTime();
+        final int affectedRows = transactionTemplate.execute(status -> update.getAsInt());
+        final var result =
+            new Result(name, affectedRows, Duration.ofNanos(System.nanoTime() - start));
+        LOGGER.info(
+            "Bulk update {} changed {} rows in {} ms",
+            name,
+            affectedRows,
+            result.duration()
+                .toMillis()
+        );
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package rs.banka4.bank_service.service.impl;
 
+import java.time.Duration;
+import java.time.Instant;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
@@ -14,15 +16,45 @@ import rs.banka4.bank_service.service.abstraction.ExchangeRateService;
 @Profile("!test")
 public class ExchangeRateServiceImpl extends ExchangeRateService {
     private final RestTemplate restTemplate;
+    private final Duration cacheDuration;
 
-    public ExchangeRateServiceImpl(@Value("${services.exchange}") String exchangeBaseUrl) {
+    /**
+     * Rates only change once a day, but every conversion asks for them, so a fetched snapshot is
+     * reused until it is either {@link #cacheDuration} old or past its announced next update.
+     */
+    private volatile CachedRates cachedRates;
+
+    private record CachedRates(ExchangeRateDto rates, Instant fetchedAt) {
+    }
+
+    public ExchangeRateServiceImpl(
+        @Value("${services.exchange}") String exchangeBaseUrl,
+        @Value("${services.exchange-rates-cache-seconds}") long cacheSeconds
+    ) {
         this.restTemplate = new RestTemplate();
         this.restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory(exchangeBaseUrl));
+        this.cacheDuration = Duration.ofSeconds(cacheSeconds);
     }
 
     @Override
     public ExchangeRateDto getExchangeRates() {
-        return restTemplate.exchange("/exchange-rate", HttpMethod.GET, null, ExchangeRateDto.class)
-            .getBody();
+        final var now = Instant.now();
+        final var cached = cachedRates;
+        if (
+            cached != null
+                && now.isBefore(
+                    cached.fetchedAt()
+                        .plus(cacheDuration)
+                )
+                && now.getEpochSecond()
+                    < cached.rates()
+                        .nextUpdateUnix()
+        ) return cached.rates();
+
+        final var rates =
+            restTemplate.exchange("/exchange-rate", HttpMethod.GET, null, ExchangeRateDto.class)
+                .getBody();
+        if (rates != null) cachedRates = new CachedRates(rates, now);
+        return rates;
     }
 }
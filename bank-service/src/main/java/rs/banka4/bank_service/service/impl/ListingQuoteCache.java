@@ -0,0 +1,177 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
+import rs.banka4.bank_service.repositories.ListingRepository;
+
+/**
+ * Process-local cache of the quote of the active listing of each security.
+ * <p>
+ * Quotes only change when listings are refreshed, so after every refresh all active listings are
+ * loaded in a single query and swapped in at once. Listings missing from the cache (e.g. ones
+ * saved outside of a refresh) are loaded on first use. Only immutable {@link ListingQuote}s are
+ * kept and handed out, never the listing entities they were taken from.
+ * <p>
+ * When Redis is available, a refresh also increments a shared version, which other replicas check
+ * every {@code listings.quote-cache-sync-seconds} to reload their own caches. Setting that property
+ * to zero turns the shared version off.
+ */
+@Slf4j
+@Service
+public class ListingQuoteCache {
+    static final String SHARED_VERSION_KEY = "LISTINGS_VERSION";
+
+    private final ListingRepository listingRepository;
+    private final SharedCacheVersion sharedVersion;
+
+    private volatile Snapshot snapshot = new Snapshot(0, null, new ConcurrentHashMap<>());
+
+    /**
+     * @param version local version, bumped on every reload
+     * @param sharedVersion the shared version this snapshot was loaded for, if any
+     * @param quotes quotes of active listings by security ID
+     */
+    private record Snapshot(long version, String sharedVersion, Map<UUID, ListingQuote> quotes) {
+    }
+
+    public ListingQuoteCache(
+        ListingRepository listingRepository,
+        @Autowired(required = false) RedisConnectionFactory redisConn,
+        @Value("${listings.quote-cache-sync-seconds}") long syncSeconds
+    ) {
+        this.listingRepository = listingRepository;
+        this.sharedVersion = new SharedCacheVersion(SHARED_VERSION_KEY, redisConn, syncSeconds);
+    }
+
+    /**
+     * @return the quote of the active listing of the given security, if it has one
+     */
+    public Optional<ListingQuote> get(UUID securityId) {
+        final var current = current();
+        final var cached =
+            current.quotes()
+                .get(securityId);
+        if (cached != null) return Optional.of(cached);
+
+        final var loaded =
+            listingRepository.findBySecurityIdAndActiveTrue(securityId)
+                .map(ListingQuote::of);
+        loaded.ifPresent(
+            quote -> current.quotes()
+                .putIfAbsent(securityId, quote)
+        );
+        return loaded;
+    }
+
+    /**
+     * Looks up the quotes of several securities at once. Those missing from the cache are loaded
+     * in a single query.
+     *
+     * @return the quotes of those of the given securities which have an active listing, by
+     *         security ID
+     */
+    public Map<UUID, ListingQuote> getAll(Collection<UUID> securityIds) {
+        final var current = current();
+        final var found = new HashMap<UUID, ListingQuote>();
+        final var missing = new HashSet<UUID>();
+        for (UUID securityId : securityIds) {
+            final var cached =
+                current.quotes()
+                    .get(securityId);
+            if (cached != null) found.put(securityId, cached);
+            else missing.add(securityId);
+        }
+        if (missing.isEmpty()) return found;
+
+        for (Listing listing : listingRepository.findAllActiveBySecurityIds(missing)) {
+            final var quote = ListingQuote.of(listing);
+            found.put(quote.securityId(), quote);
+            current.quotes()
+                .putIfAbsent(quote.securityId(), quote);
+        }
+        return found;
+    }
+
+    /**
+     * @return a number which changes every time this cache is reloaded
+     */
+    public long getVersion() {
+        return current().version();
+    }
+
+    /**
+     * Reloads all active listings, and lets other replicas know that they should do the same.
+     * Must be called after the refreshed listings are committed.
+     */
+    public void refresh() {
+        reload(sharedVersion.increment());
+    }
+
+    /**
+     * Reloads the active listings of the given securities only, and lets other replicas know that
+     * they should reload theirs. Must be called after the refreshed listings are committed.
+     */
+    public void refresh(Collection<UUID> securityIds) {
+        final var incremented = sharedVersion.increment();
+        final var loaded = listingRepository.findAllActiveBySecurityIds(securityIds);
+        synchronized (this) {
+            final var quotes = new ConcurrentHashMap<>(snapshot.quotes());
+            for (Listing listing : loaded) {
+                final var quote = ListingQuote.of(listing);
+                quotes.put(quote.securityId(), quote);
+            }
+            snapshot =
+                new Snapshot(
+                    snapshot.version() + 1,
+                    onlyOwnIncrement(snapshot.sharedVersion(), incremented)
+                        ? incremented
+                        : snapshot.sharedVersion(),
+                    quotes
+                );
+        }
+    }
+
+    /**
+     * @return whether {@code incremented} directly follows {@code previous}, i.e. no other replica
+     *         refreshed listings in between; otherwise, the next check of the shared version still
+     *         has to reload everything
+     */
+    private static boolean onlyOwnIncrement(String previous, String incremented) {
+        return previous != null
+            && incremented != null
+            && Long.parseLong(incremented) == Long.parseLong(previous) + 1;
+    }
+
+    private synchronized void reload(String sharedVersion) {
+        final var quotes = new ConcurrentHashMap<UUID, ListingQuote>();
+        for (Listing listing : listingRepository.findAllActiveListings()) {
+            final var quote = ListingQuote.of(listing);
+            quotes.put(quote.securityId(), quote);
+        }
+        snapshot = new Snapshot(snapshot.version() + 1, sharedVersion, quotes);
+        log.debug("Loaded {} active listings into the quote cache", quotes.size());
+    }
+
+    /**
+     * Returns the current snapshot, reloading it first if another replica refreshed listings since
+     * it was loaded. The shared version is read at most once per sync interval.
+     */
+    private Snapshot current() {
+        sharedVersion.poll()
+            .filter(version -> !version.equals(snapshot.sharedVersion()))
+            .ifPresent(this::reload);
+        return snapshot;
+    }
+}
@@ -1,14 +1,21 @@
 package rs.banka4.bank_service.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
@@ -21,8 +28,8 @@ import rs.banka4.bank_service.domain.listing.dtos.specific.StockDto;
 import rs.banka4.bank_service.domain.listing.mapper.ListingDailyPriceInfoMapper;
 import rs.banka4.bank_service.domain.listing.mapper.ListingMapper;
 import rs.banka4.bank_service.domain.listing.specificaion.ListingSpecification;
-import rs.banka4.bank_service.domain.options.db.Option;
-import rs.banka4.bank_service.domain.options.db.OptionType;
+import rs.banka4.bank_service.domain.options.db.BatchOptionPricing;
+import rs.banka4.bank_service.domain.options.dtos.OptionChainRow;
 import rs.banka4.bank_service.domain.security.Security;
 import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
 import rs.banka4.bank_service.domain.security.future.db.Future;
@@ -31,23 +38,35 @@ import rs.banka4.bank_service.exceptions.ListingNotFoundException;
 import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
 import rs.banka4.bank_service.repositories.ListingRepository;
 import rs.banka4.bank_service.repositories.OptionsRepository;
-import rs.banka4.bank_service.repositories.OrderRepository;
+import rs.banka4.bank_service.repositories.PriceHistoryRollupRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
 import rs.banka4.bank_service.service.abstraction.ListingService;
 
 @Service
 @RequiredArgsConstructor
 public class ListingServiceImpl implements ListingService {
     private final ListingRepository listingRepository;
-    private final OrderRepository orderRepository;
+    private final AssetVolumeService assetVolumeService;
     private final ListingDailyPriceInfoRepository listingDailyPriceInfoRepository;
     private final OptionsRepository optionsRepository;
+    private final PriceHistoryRollupRepository priceHistoryRollupRepository;
+    private final ListingQuoteCache quoteCache;
+
+    private record OptionChainKey(UUID stockId, OffsetDateTime start) {
+    }
+
+    /**
+     * Options chains by stock and settlement day. Chains only change when options are refreshed,
+     * at which point this is cleared by {@link #markOptionsRefreshed()}.
+     */
+    private final Cache<OptionChainKey, List<OptionChainRow>> optionChains =
+        CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
 
     @Override
     public int getVolumeOfAsset(UUID securityId) {
-        var now = OffsetDateTime.now();
-        var start = now.truncatedTo(ChronoUnit.DAYS);
-        var end = start.plusDays(1);
-        return orderRepository.findCountOfMadeOrdersToday(securityId, start, end);
+        return assetVolumeService.getVolume(securityId);
     }
 
     /**
@@ -78,19 +97,30 @@ public class ListingServiceImpl implements ListingService {
                 ListingSpecification.getSpecification(filter, isClient),
                 pageable
             );
-        return req.map((listing) -> {
-            var vol =
-                getVolumeOfAsset(
-                    listing.getSecurity()
+        var securityIds =
+            req.stream()
+                .map(
+                    listing -> listing.getSecurity()
                         .getId()
-                );
+                )
+                .toList();
+        var volumes = assetVolumeService.getVolumes(securityIds);
+        var lastPrices = new HashMap<UUID, BigDecimal>();
+        if (!securityIds.isEmpty())
+            for (var lastPrice : listingDailyPriceInfoRepository.findLatestLastPrices(securityIds))
+                lastPrices.putIfAbsent(lastPrice.securityId(), lastPrice.lastPrice());
+
+        return req.map((listing) -> {
+            var securityId =
+                listing.getSecurity()
+                    .getId();
+            var lastPrice = lastPrices.get(securityId);
             var change =
-                calculateChange(
-                    listing.getSecurity()
-                        .getId(),
-                    listing.getAsk()
-                );
-            return ListingMapper.INSTANCE.toInfoDto(listing, vol, change);
+                lastPrice == null
+                    ? null
+                    : listing.getAsk()
+                        .subtract(lastPrice);
+            return ListingMapper.INSTANCE.toInfoDto(listing, volumes.get(securityId), change);
         });
     }
 
@@ -103,9 +133,38 @@ public class ListingServiceImpl implements ListingService {
             .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPriceHistory(
+        UUID securityId,
+        OffsetDateTime from,
+        OffsetDateTime to,
+        PriceHistoryResolution resolution,
+        Consumer<PriceChangeDto> consumer
+    ) {
+        try (
+            var points =
+                resolution == PriceHistoryResolution.DAY
+                    ? listingDailyPriceInfoRepository.streamPriceChanges(securityId, from, to)
+                    : priceHistoryRollupRepository.streamPriceChanges(
+                        securityId,
+                        resolution,
+                        from,
+                        to
+                    )
+        ) {
+            points.forEach(consumer);
+        }
+    }
+
+    @Override
+    public Optional<OffsetDateTime> getPriceHistoryLastModified(UUID securityId) {
+        return listingDailyPriceInfoRepository.findLatestDate(securityId);
+    }
+
     @Override
     public ListingDetailsDto getListingDetails(UUID securityId) {
-        Optional<Listing> listing = listingRepository.getLatestListing(securityId, Limit.of(1));
+        Optional<Listing> listing = listingRepository.findBySecurityIdAndActiveTrue(securityId);
         if (listing.isEmpty()) {
             throw new ListingNotFoundException(securityId);
         } else {
@@ -134,74 +193,142 @@ public class ListingServiceImpl implements ListingService {
      * @return Specific format of two options in one Dto that should fit one row in table on
      *         frontend
      * @param stockId Id of a specific stock that we look Options for
-     * @param settlementDate Date on which Options should expire function gets all options for a
-     *        listed stock that are expiring on a settlement date, and filters them to two maps
-     *        based on Option type where key is a strike price. After that its just filing dto in
-     *        right order where left side is for CALLs and right side is for PUTs
+     * @param settlementDate Date on which Options should expire. The chain for that date is loaded
+     *        with a single query which pairs calls and puts by strike price, and is cached until
+     *        the next options refresh. Volumes and greeks are filled in on every call, as they
+     *        change more often. Left side of a row is for CALLs and right side is for PUTs; a
+     *        missing side is left empty.
      */
-
     @Override
     public List<OptionDto> getOptionsWithSettlementDateForStock(
         UUID stockId,
         OffsetDateTime settlementDate
     ) {
-        var start = settlementDate.truncatedTo(ChronoUnit.DAYS);
-        var end = start.plusDays(1);
-        List<Option> options =
-            optionsRepository.findAllOptionsForStockWithSettlementDate(stockId, start, end);
-        Map<BigDecimal, Option> callsOptions = new HashMap<>();
-        Map<BigDecimal, Option> putsOptions = new HashMap<>();
-        SortedSet<BigDecimal> strikes = new TreeSet<>();
-        for (var x : options) {
-            strikes.add(
-                x.getStrikePrice()
-                    .getAmount()
-            );
-            if (x.getOptionType() == OptionType.CALL)
-                callsOptions.put(
-                    x.getStrikePrice()
-                        .getAmount(),
-                    x
-                );
-            else
-                putsOptions.put(
-                    x.getStrikePrice()
-                        .getAmount(),
-                    x
+        var key = new OptionChainKey(stockId, settlementDate.truncatedTo(ChronoUnit.DAYS));
+        List<OptionChainRow> rows = optionChains.getIfPresent(key);
+        if (rows == null) {
+            rows =
+                optionsRepository.findChainRows(
+                    stockId,
+                    key.start(),
+                    key.start()
+                        .plusDays(1)
                 );
+            optionChains.put(key, rows);
         }
 
-        List<OptionDto> optionDtos = new ArrayList<>();
+        List<UUID> optionIds = new ArrayList<>();
+        for (var row : rows) {
+            if (row.call() != null)
+                optionIds.add(
+                    row.call()
+                        .id()
+                );
+            if (row.put() != null)
+                optionIds.add(
+                    row.put()
+                        .id()
+                );
+        }
+        Map<UUID, Integer> volumes = assetVolumeService.getVolumes(optionIds);
+        Map<UUID, OptionGreeksDto> greeks = calculateGreeks(stockId, rows, optionIds.size());
 
-        for (var strike : strikes) {
-            Option call = callsOptions.get(strike);
-            Option puts = putsOptions.get(strike);
+        List<OptionDto> optionDtos = new ArrayList<>(rows.size());
+        for (var row : rows) {
+            var call = row.call();
+            var put = row.put();
             optionDtos.add(
                 new OptionDto(
-                    call.getId(),
-                    new BigDecimal("0"),
-                    new BigDecimal("0"),
-                    call.getImpliedVolatility(),
-                    getVolumeOfAsset(call.getId()),
-                    call.getOpenInterest(),
-                    call.getPremium(),
-                    strike,
-                    puts.getId(),
-                    new BigDecimal("0"),
-                    new BigDecimal("0"),
-                    puts.getImpliedVolatility(),
-                    getVolumeOfAsset(puts.getId()),
-                    puts.getOpenInterest(),
-                    puts.getPremium()
+                    call == null ? null : call.id(),
+                    call == null ? null : BigDecimal.ZERO,
+                    call == null ? null : BigDecimal.ZERO,
+                    call == null ? null : call.impliedVolatility(),
+                    call == null ? null : volumes.get(call.id()),
+                    call == null ? null : call.openInterest(),
+                    call == null ? null : call.premium(),
+                    call == null ? null : greeks.get(call.id()),
+                    row.strike(),
+                    put == null ? null : put.id(),
+                    put == null ? null : BigDecimal.ZERO,
+                    put == null ? null : BigDecimal.ZERO,
+                    put == null ? null : put.impliedVolatility(),
+                    put == null ? null : volumes.get(put.id()),
+                    put == null ? null : put.openInterest(),
+                    put == null ? null : put.premium(),
+                    put == null ? null : greeks.get(put.id())
                 )
             );
         }
         return optionDtos;
     }
 
+    /**
+     * @return greeks of all options in the given chain of a stock by option ID, or an empty map if
+     *         the stock has no active listing to take the current price from
+     */
+    private Map<UUID, OptionGreeksDto> calculateGreeks(
+        UUID stockId,
+        List<OptionChainRow> rows,
+        int optionCount
+    ) {
+        Optional<ListingQuote> listing = quoteCache.get(stockId);
+        if (listing.isEmpty()) {
+            return Map.of();
+        }
+        double spot =
+            listing.get()
+                .ask()
+                .doubleValue();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        UUID[] ids = new UUID[optionCount];
+        double[] spots = new double[optionCount];
+        double[] strikes = new double[optionCount];
+        double[] years = new double[optionCount];
+        double[] rates = new double[optionCount];
+        double[] sigmas = new double[optionCount];
+        boolean[] calls = new boolean[optionCount];
+        int i = 0;
+        for (var row : rows) {
+            for (var side : new OptionChainRow.Side[] {
+                row.call(), row.put()
+            }) {
+                if (side == null) continue;
+                ids[i] = side.id();
+                spots[i] = spot;
+                strikes[i] =
+                    row.strike()
+                        .doubleValue();
+                years[i] = BatchOptionPricing.yearsBetween(now, side.settlementDate());
+                rates[i] = BatchOptionPricing.RISK_FREE_RATE;
+                sigmas[i] = side.impliedVolatility();
+                calls[i] = side == row.call();
+                i++;
+            }
+        }
+        BatchOptionPricing.Result result =
+            BatchOptionPricing.price(spots, strikes, years, rates, sigmas, calls);
+
+        Map<UUID, OptionGreeksDto> greeks = new HashMap<>();
+        for (i = 0; i < optionCount; i++) {
+            greeks.put(
+                ids[i],
+                new OptionGreeksDto(
+                    result.delta()[i],
+                    result.gamma()[i],
+                    result.theta()[i],
+                    result.vega()[i]
+                )
+            );
+        }
+        return greeks;
+    }
+
     @Override
     public MonetaryAmount getLatestPriceForStock(UUID stockId) {
-        Optional<MonetaryAmount> ma = listingRepository.getLatestStockPrice(stockId, Limit.of(1));
+        Optional<MonetaryAmount> ma =
+            quoteCache.get(stockId)
+                .map(quote -> new MonetaryAmount(quote.ask(), quote.currency()));
         if (ma.isEmpty()) {
             throw new ListingNotFoundException(stockId);
         } else {
@@ -234,8 +361,65 @@ public class ListingServiceImpl implements ListingService {
         );
     }
 
-    public Optional<Listing> findActiveListingByAsset(UUID assetId) {
-        return listingRepository.findBySecurityIdAndActiveTrue(assetId);
+    public Optional<ListingQuote> findActiveListingByAsset(UUID assetId) {
+        return quoteCache.get(assetId);
+    }
+
+    @Override
+    public Map<UUID, ListingQuote> findActiveListingsByAssets(Collection<UUID> assetIds) {
+        return quoteCache.getAll(assetIds);
+    }
+
+    @Override
+    public long getListingsVersion() {
+        return quoteCache.getVersion();
+    }
+
+    @Override
+    public void markListingsRefreshed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        quoteCache.refresh();
+                    }
+                }
+            );
+        } else {
+            quoteCache.refresh();
+        }
+    }
+
+    @Override
+    public void markListingsRefreshed(Collection<UUID> securityIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        quoteCache.refresh(securityIds);
+                    }
+                }
+            );
+        } else {
+            quoteCache.refresh(securityIds);
+        }
     }
 
+    @Override
+    public void markOptionsRefreshed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        optionChains.invalidateAll();
+                    }
+                }
+            );
+        } else {
+            optionChains.invalidateAll();
+        }
+    }
 }
@@ -0,0 +1,232 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
+import rs.banka4.bank_service.domain.options.db.Option;
+
+/**
+ * Saves market data snapshots (listings, options and daily price info) in bulk, with
+ * {@link BulkCopyWriter}. Rows which may already exist are copied into a temporary staging table
+ * first, and merged into the real table with a single statement.
+ * <p>
+ * Entities saved this way are not attached to the persistence context, and managed entities are not
+ * flushed before the copy, so callers must not modify managed copies of the same rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class MarketDataBulkWriter {
+    private static final List<String> LISTING_COLUMNS =
+        List.of(
+            "id",
+            "security_id",
+            "exchange_id",
+            "last_refresh",
+            "bid",
+            "ask",
+            "contract_size",
+            "active"
+        );
+    private static final List<String> OPTION_COLUMNS =
+        List.of(
+            "id",
+            "name",
+            "ticker",
+            "stock_id",
+            "option_type",
+            "strike_price_amount",
+            "strike_price_currency",
+            "premium_amount",
+            "premium_currency",
+            "implied_volatility",
+            "open_interest",
+            "settlement_date",
+            "active"
+        );
+    private static final List<String> DAILY_PRICE_INFO_COLUMNS =
+        List.of(
+            "id",
+            "security_id",
+            "exchange_id",
+            "date",
+            "last_price",
+            "ask_high",
+            "big_low",
+            "change",
+            "volume"
+        );
+
+    private final BulkCopyWriter bulkCopyWriter;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Saves fresh quotes. A listing of a security which already has an active listing is merged
+     * into that listing, so that each security keeps a single listing which is updated in place;
+     * the others are inserted as they are.
+     *
+     * @return the number of listings saved
+     */
+    @Transactional
+    public long saveListings(Collection<Listing> listings) {
+        jdbcTemplate.execute("""
+            CREATE TEMPORARY TABLE IF NOT EXISTS listings_staging (LIKE listings)
+            ON COMMIT DELETE ROWS
+            """);
+        jdbcTemplate.execute("TRUNCATE listings_staging");
+        long copied =
+            bulkCopyWriter.copy(
+                "listings_staging",
+                LISTING_COLUMNS,
+                listings,
+                (listing, row) -> row.uuid(listing.getId())
+                    .uuid(
+                        listing.getSecurity()
+                            .getId()
+                    )
+                    .uuid(
+                        listing.getExchange()
+                            .getId()
+                    )
+                    .timestamptz(listing.getLastRefresh())
+                    .numeric(listing.getBid())
+                    .numeric(listing.getAsk())
+                    .int4(listing.getContractSize())
+                    .bool(listing.isActive())
+            );
+
+        jdbcTemplate.update("""
+            UPDATE listings l
+            SET exchange_id = s.exchange_id,
+                last_refresh = s.last_refresh,
+                bid = s.bid,
+                ask = s.ask,
+                contract_size = s.contract_size
+            FROM listings_staging s
+            WHERE l.security_id = s.security_id
+              AND l.active
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO listings
+                (id, security_id, exchange_id, last_refresh, bid, ask, contract_size, active)
+            SELECT id, security_id, exchange_id, last_refresh, bid, ask, contract_size, active
+            FROM listings_staging s
+            WHERE NOT EXISTS (
+                SELECT 1 FROM listings l WHERE l.security_id = s.security_id AND l.active
+            )
+            """);
+        return copied;
+    }
+
+    /**
+     * Inserts new options and updates the premium, open interest, implied volatility and status of
+     * existing ones, matched by ID.
+     *
+     * @return the number of options saved
+     */
+    @Transactional
+    public long saveOptions(Collection<Option> options) {
+        jdbcTemplate.execute("""
+            CREATE TEMPORARY TABLE IF NOT EXISTS options_staging
+                (LIKE options, name varchar(255), ticker varchar(255))
+            ON COMMIT DELETE ROWS
+            """);
+        jdbcTemplate.execute("TRUNCATE options_staging");
+        long copied =
+            bulkCopyWriter.copy(
+                "options_staging",
+                OPTION_COLUMNS,
+                options,
+                (option, row) -> row.uuid(option.getId())
+                    .text(option.getName())
+                    .text(option.getTicker())
+                    .uuid(
+                        option.getStock()
+                            .getId()
+                    )
+                    .text(
+                        option.getOptionType()
+                            .name()
+                    )
+                    .numeric(
+                        option.getStrikePrice()
+                            .getAmount()
+                    )
+                    .text(
+                        option.getStrikePrice()
+                            .getCurrency()
+                            .name()
+                    )
+                    .numeric(
+                        option.getPremium()
+                            .getAmount()
+                    )
+                    .text(
+                        option.getPremium()
+                            .getCurrency()
+                            .name()
+                    )
+                    .float8(option.getImpliedVolatility())
+                    .int4(option.getOpenInterest())
+                    .timestamptz(option.getSettlementDate())
+                    .bool(option.isActive())
+            );
+
+        jdbcTemplate.update("""
+            INSERT INTO assets (id, name, ticker)
+            SELECT id, name, ticker FROM options_staging
+            ON CONFLICT (id) DO NOTHING
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO options
+                (id, stock_id, option_type, strike_price_amount, strike_price_currency,
+                 premium_amount, premium_currency, implied_volatility, open_interest,
+                 settlement_date, active)
+            SELECT id, stock_id, option_type, strike_price_amount, strike_price_currency,
+                   premium_amount, premium_currency, implied_volatility, open_interest,
+                   settlement_date, active
+            FROM options_staging
+            ON CONFLICT (id) DO UPDATE
+            SET premium_amount = excluded.premium_amount,
+                premium_currency = excluded.premium_currency,
+                implied_volatility = excluded.implied_volatility,
+                open_interest = excluded.open_interest,
+                active = excluded.active
+            """);
+        return copied;
+    }
+
+    /**
+     * Inserts daily price info. These are never updated, so they are copied into the table
+     * directly.
+     *
+     * @return the number of rows inserted
+     */
+    @Transactional
+    public long insertDailyPriceInfo(Collection<ListingDailyPriceInfo> infos) {
+        return bulkCopyWriter.copy(
+            "listing_daily_price_info",
+            DAILY_PRICE_INFO_COLUMNS,
+            infos,
+            (info, row) -> row.uuid(info.getId())
+                .uuid(
+                    info.getSecurity()
+                        .getId()
+                )
+                .uuid(
+                    info.getExchange()
+                        .getId()
+                )
+                .timestamptz(info.getDate())
+                .numeric(info.getLastPrice())
+                .numeric(info.getAskHigh())
+                .numeric(info.getBigLow())
+                .numeric(info.getChange())
+                .int4(info.getVolume())
+        );
+    }
+}
@@ -0,0 +1,102 @@
+package rs.banka4.bank_service.service.impl;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.Refill;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Issues market data requests concurrently, while staying within the request quota of the data
+ * provider.
+ * <p>
+ * Every request is run on its own virtual thread, and first waits for a token from a bucket which
+ * refills at {@code alphavantage.requests-per-second}. A full refresh therefore takes about as long
+ * as the quota requires, rather than the sum of all request latencies plus a fixed delay between
+ * them. The quota is shared between all callers.
+ * <p>
+ * This class does not touch the database, so callers should fetch before opening a transaction.
+ */
+@Slf4j
+@Service
+public class MarketDataFetcher {
+    private final Bucket quota;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MarketDataFetcher(@Value("${alphavantage.requests-per-second}") long requestsPerSecond) {
+        this.quota =
+            Bucket4j.builder()
+                .addLimit(
+                    Bandwidth.classic(
+                        requestsPerSecond,
+                        Refill.greedy(requestsPerSecond, Duration.ofSeconds(1))
+                    )
+                )
+                .build();
+    }
+
+    /**
+     * Fetches a response for each of the given keys.
+     *
+     * @param keys what to fetch, e.g. tickers
+     * @param request makes the request for a single key
+     * @return response bodies by key, in the iteration order of {@code keys}. Keys whose request
+     *         failed or returned no body are left out.
+     */
+    public <K, T> Map<K, T> fetchAll(Collection<K> keys, Function<K, Call<T>> request) {
+        final var pending = new LinkedHashMap<K, Future<T>>();
+        for (K key : keys) pending.put(key, executor.submit(() -> fetch(request.apply(key))));
+
+        final var results = new LinkedHashMap<K, T>();
+        try {
+            for (var entry : pending.entrySet()) {
+                try {
+                    final T body =
+                        entry.getValue()
+                            .get();
+                    if (body != null) results.put(entry.getKey(), body);
+                } catch (ExecutionException e) {
+                    log.warn("Failed to fetch market data for {}", entry.getKey(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.values()
+                .forEach(f -> f.cancel(true));
+            Thread.currentThread()
+                .interrupt();
+            throw new IllegalStateException("Interrupted while fetching market data", e);
+        }
+
+        log.info("Fetched market data for {} of {} keys", results.size(), keys.size());
+        return results;
+    }
+
+    private <T> T fetch(Call<T> call) throws IOException, InterruptedException {
+        quota.asScheduler()
+            .consume(1);
+        final Response<T> response = call.execute();
+        if (!response.isSuccessful())
+            throw new IOException("Market data request failed with HTTP " + response.code());
+        return response.body();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,294 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.security.forex.db.ForexLiquidity;
+import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
+import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * Keeps a compact binary copy of the market data which otherwise has to be fetched from
+ * AlphaVantage: stocks, forex pairs and the current quotes of all active listings. On a cold start,
+ * the stores can be filled from it in bulk, without network access, and then refreshed from the
+ * live provider in the background.
+ * <p>
+ * The file is written to a temporary file first and then moved into place, so a reader never sees
+ * a partial snapshot. It is read through a memory mapping, so it is decoded straight from the page
+ * cache without being copied onto the heap first.
+ */
+@Slf4j
+@Service
+public class MarketDataSnapshotStore {
+    private static final int MAGIC = 0x424b3453; /* "BK4S" */
+    private static final int VERSION = 1;
+
+    /** The current quote of an active listing. */
+    public record Quote(
+        UUID listingId,
+        UUID securityId,
+        UUID exchangeId,
+        BigDecimal ask,
+        BigDecimal bid,
+        int contractSize,
+        OffsetDateTime lastRefresh
+    ) {
+        public static Quote of(Listing listing) {
+            return new Quote(
+                listing.getId(),
+                listing.getSecurity()
+                    .getId(),
+                listing.getExchange()
+                    .getId(),
+                listing.getAsk(),
+                listing.getBid(),
+                listing.getContractSize(),
+                listing.getLastRefresh()
+            );
+        }
+    }
+
+    public record Snapshot(
+        Instant takenAt,
+        List<Stock> stocks,
+        List<ForexPair> forexPairs,
+        List<Quote> quotes
+    ) {
+    }
+
+    private final Path path;
+
+    public MarketDataSnapshotStore(@Value("${listings.snapshot-path}") Path path) {
+        this.path = path;
+    }
+
+    /** Replaces the stored snapshot with {@code snapshot}. */
+    public void write(Snapshot snapshot) throws IOException {
+        Path parent =
+            path.toAbsolutePath()
+                .getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, "market-data", ".tmp");
+        try {
+            try (
+                var out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))
+            ) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(
+                    snapshot.takenAt()
+                        .toEpochMilli()
+                );
+
+                out.writeInt(
+                    snapshot.stocks()
+                        .size()
+                );
+                for (Stock stock : snapshot.stocks()) {
+                    writeUuid(out, stock.getId());
+                    writeString(out, stock.getTicker());
+                    writeString(out, stock.getName());
+                    writeDecimal(out, stock.getDividendYield());
+                    out.writeLong(stock.getOutstandingShares());
+                    writeTime(out, stock.getCreatedAt());
+                }
+
+                out.writeInt(
+                    snapshot.forexPairs()
+                        .size()
+                );
+                for (ForexPair pair : snapshot.forexPairs()) {
+                    writeUuid(out, pair.getId());
+                    writeString(out, pair.getTicker());
+                    writeString(out, pair.getName());
+                    writeString(
+                        out,
+                        pair.getBaseCurrency()
+                            .name()
+                    );
+                    writeString(
+                        out,
+                        pair.getQuoteCurrency()
+                            .name()
+                    );
+                    writeString(
+                        out,
+                        pair.getLiquidity()
+                            .name()
+                    );
+                    writeDecimal(out, pair.getExchangeRate());
+                }
+
+                out.writeInt(
+                    snapshot.quotes()
+                        .size()
+                );
+                for (Quote quote : snapshot.quotes()) {
+                    writeUuid(out, quote.listingId());
+                    writeUuid(out, quote.securityId());
+                    writeUuid(out, quote.exchangeId());
+                    writeDecimal(out, quote.ask());
+                    writeDecimal(out, quote.bid());
+                    out.writeInt(quote.contractSize());
+                    writeTime(out, quote.lastRefresh());
+                }
+            }
+            Files.move(
+                temporary,
+                path,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info(
+            "Wrote market data snapshot: {} stocks, {} forex pairs, {} quotes",
+            snapshot.stocks()
+                .size(),
+            snapshot.forexPairs()
+                .size(),
+            snapshot.quotes()
+                .size()
+        );
+    }
+
+    /**
+     * @return the stored snapshot, or empty if there is none or it cannot be read
+     */
+    public Optional<Snapshot> read() {
+        if (!Files.isRegularFile(path)) return Optional.empty();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                log.warn("Ignoring market data snapshot {} of an unknown format", path);
+                return Optional.empty();
+            }
+            Instant takenAt = Instant.ofEpochMilli(in.getLong());
+
+            int stockCount = in.getInt();
+            List<Stock> stocks = new ArrayList<>(stockCount);
+            for (int i = 0; i < stockCount; i++) {
+                stocks.add(
+                    Stock.builder()
+                        .id(readUuid(in))
+                        .ticker(readString(in))
+                        .name(readString(in))
+                        .dividendYield(readDecimal(in))
+                        .outstandingShares(in.getLong())
+                        .createdAt(readTime(in))
+                        .build()
+                );
+            }
+
+            int forexPairCount = in.getInt();
+            List<ForexPair> forexPairs = new ArrayList<>(forexPairCount);
+            for (int i = 0; i < forexPairCount; i++) {
+                forexPairs.add(
+                    ForexPair.builder()
+                        .id(readUuid(in))
+                        .ticker(readString(in))
+                        .name(readString(in))
+                        .baseCurrency(CurrencyCode.valueOf(readString(in)))
+                        .quoteCurrency(CurrencyCode.valueOf(readString(in)))
+                        .liquidity(ForexLiquidity.valueOf(readString(in)))
+                        .exchangeRate(readDecimal(in))
+                        .build()
+                );
+            }
+
+            int quoteCount = in.getInt();
+            List<Quote> quotes = new ArrayList<>(quoteCount);
+            for (int i = 0; i < quoteCount; i++) {
+                quotes.add(
+                    new Quote(
+                        readUuid(in),
+                        readUuid(in),
+                        readUuid(in),
+                        readDecimal(in),
+                        readDecimal(in),
+                        in.getInt(),
+                        readTime(in)
+                    )
+                );
+            }
+
+            return Optional.of(new Snapshot(takenAt, stocks, forexPairs, quotes));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read market data snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled =
+            value.unscaledValue()
+                .toByteArray();
+        out.writeInt(value.scale());
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        int scale = in.getInt();
+        byte[] unscaled = new byte[in.getInt()];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeTime(DataOutputStream out, OffsetDateTime time) throws IOException {
+        out.writeLong(
+            time.toInstant()
+                .toEpochMilli()
+        );
+    }
+
+    private static OffsetDateTime readTime(ByteBuffer in) {
+        return Instant.ofEpochMilli(in.getLong())
+            .atOffset(ZoneOffset.UTC);
+    }
+}
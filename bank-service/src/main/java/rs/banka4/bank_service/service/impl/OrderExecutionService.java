@@ -10,8 +10,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import rs.banka4.bank_service.domain.actuaries.db.ActuaryInfo;
-import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
 import rs.banka4.bank_service.domain.orders.db.Status;
@@ -24,6 +28,7 @@ import rs.banka4.bank_service.repositories.ActuaryRepository;
 import rs.banka4.bank_service.repositories.OrderRepository;
 import rs.banka4.bank_service.service.abstraction.AssetOwnershipService;
 import rs.banka4.bank_service.service.abstraction.ListingService;
+import rs.banka4.bank_service.service.abstraction.PositionLedgerService;
 import rs.banka4.bank_service.service.abstraction.TaxService;
 import rs.banka4.bank_service.service.abstraction.TransactionService;
 import rs.banka4.bank_service.tx.TxExecutor;
@@ -44,6 +49,9 @@ public class OrderExecutionService {
     private final AssetOwnershipService assetOwnershipService;
     private final ActuaryRepository actuaryRepository;
     private final TransactionService transactionService;
+    private final OrderJournalService orderJournalService;
+    private final PositionLedgerService positionLedgerService;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Processes an order in an all-or-nothing manner. If a matching order is found, it executes the
@@ -107,9 +115,13 @@ public class OrderExecutionService {
          */
         taxService.addTaxForOrderToDB(order);
         orderRepository.save(matchedOrder);
+        positionLedgerService.recordFill(order, matchedOrder, order.getQuantity());
 
         calculateAssetOwnerships(order, matchedOrder);
 
+        orderJournalService.recordFill(order);
+        orderJournalService.recordFill(matchedOrder);
+
         log.info(
             "[AON] Order {} fully executed against order {}.",
             order.getId(),
@@ -248,6 +260,9 @@ public class OrderExecutionService {
 
             }
 
+            /* Recorded once, so that a rollback above has nothing to undo. */
+            positionLedgerService.recordFill(lockedOrder, matchedOrder, executedPortions);
+
             try {
                 createOrderTransaction(order, matchedOrder);
             } catch (Exception e) {
@@ -263,6 +278,12 @@ public class OrderExecutionService {
 
             orderRepository.save(lockedOrder);
 
+            /*
+             * The journal only needs the final state of both orders, not every chunk.
+             */
+            orderJournalService.recordFill(lockedOrder);
+            orderJournalService.recordFill(matchedOrder);
+
             return CompletableFuture.completedFuture(true);
 
         } catch (InsufficientVolume e) {
@@ -280,6 +301,7 @@ public class OrderExecutionService {
             orderRepository.save(matchedOrder);
             lockedOrder.setRemainingPortions(remainingPortions + executedPortions);
             orderRepository.save(lockedOrder);
+            releaseUsedLimit(order);
 
             log.warn(
                 "[Partial] Rolled back order {} due to insufficient volume.",
@@ -416,56 +438,97 @@ public class OrderExecutionService {
         }
     }
 
-    @Transactional
+    /**
+     * Reserves the cost of a BUY order made by an agent from their trading limit. The reservation
+     * is a single conditional update committed in its own short transaction, so the actuary row is
+     * not locked for the rest of the execution and concurrent orders of the same agent are safe to
+     * execute in parallel. Should the surrounding execution roll back, the reservation is released
+     * again.
+     *
+     * @param order the order being executed; non-agent and SELL orders are ignored
+     * @throws TradingLimitException if the reservation would exceed the agent's limit
+     * @throws ActuaryNotFoundException if the agent has no actuary information
+     */
     protected void ensureUsedLimitExceeded(Order order) {
-        if (order.getDirection() != Direction.BUY) return;
-        if (
-            !order.getUser()
-                .getPrivileges()
-                .contains(Privilege.AGENT)
-        ) return;
+        if (!usesTradingLimit(order)) return;
+
+        UUID userId =
+            order.getUser()
+                .getId();
+        Optional<BigDecimal> reserved =
+            inNewTransaction(
+                status -> actuaryRepository.reserveUsedLimit(userId, orderCost(order))
+            );
+        if (reserved.isPresent()) {
+            releaseUsedLimitAfterCompletion(order, false);
+            return;
+        }
 
-        ActuaryInfo actuaryInfo =
-            actuaryRepository.findByUserId(
-                order.getUser()
-                    .getId()
-            )
-                .orElseThrow(
-                    () -> new ActuaryNotFoundException(
-                        order.getUser()
-                            .getId()
-                    )
-                );
+        /* Nothing was updated.  Only now is it worth finding out why. */
+        if (!actuaryRepository.existsById(userId)) throw new ActuaryNotFoundException(userId);
+        throw new TradingLimitException();
+    }
 
-        BigDecimal cost =
-            order.getPricePerUnit()
-                .getAmount()
-                .multiply(BigDecimal.valueOf(order.getQuantity()));
-
-        if (
-            actuaryInfo.getUsedLimit()
-                .getAmount()
-                .add(cost)
-                .compareTo(
-                    actuaryInfo.getLimit()
-                        .getAmount()
-                )
-                > 0
-        ) {
-            throw new TradingLimitException();
+    /**
+     * Gives back the limit reserved by {@link #ensureUsedLimitExceeded(Order)} for an order whose
+     * execution was undone, once the surrounding transaction commits.
+     *
+     * @param order the order whose reservation should be released
+     */
+    protected void releaseUsedLimit(Order order) {
+        if (!usesTradingLimit(order)) return;
+
+        releaseUsedLimitAfterCompletion(order, true);
+    }
+
+    /**
+     * Releases the reservation of {@code order} in a transaction of its own once the current
+     * transaction completes: if it committed when {@code onCommit} is set, and if it did not
+     * commit otherwise. Registering both kinds for one order thus releases it exactly once.
+     */
+    private void releaseUsedLimitAfterCompletion(Order order, boolean onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit) releaseUsedLimitNow(order);
+            return;
         }
 
-        actuaryInfo.setUsedLimit(
-            new MonetaryAmount(
-                actuaryInfo.getUsedLimit()
-                    .getAmount()
-                    .add(cost),
-                actuaryInfo.getUsedLimit()
-                    .getCurrency()
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if ((status == STATUS_COMMITTED) == onCommit) releaseUsedLimitNow(order);
+                }
+            }
+        );
+    }
+
+    private void releaseUsedLimitNow(Order order) {
+        inNewTransaction(
+            status -> actuaryRepository.releaseUsedLimit(
+                order.getUser()
+                    .getId(),
+                orderCost(order)
             )
         );
+    }
+
+    private <T> T inNewTransaction(TransactionCallback<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(action);
+    }
+
+    private boolean usesTradingLimit(Order order) {
+        return order.getDirection() == Direction.BUY
+            && order.getUser()
+                .getPrivileges()
+                .contains(Privilege.AGENT);
+    }
 
-        actuaryRepository.save(actuaryInfo);
+    private BigDecimal orderCost(Order order) {
+        return order.getPricePerUnit()
+            .getAmount()
+            .multiply(BigDecimal.valueOf(order.getQuantity()));
     }
 
     /**
@@ -0,0 +1,126 @@
+package rs.banka4.bank_service.service.impl;
+
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.account.db.Account;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.orders.db.Order;
+import rs.banka4.bank_service.domain.orders.db.OrderFee;
+import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
+import rs.banka4.bank_service.repositories.OrderFeeRepository;
+import rs.banka4.bank_service.service.abstraction.BankAccountService;
+import rs.banka4.bank_service.service.abstraction.OrderFeeService;
+import rs.banka4.bank_service.service.abstraction.TransactionService;
+import rs.banka4.bank_service.tx.TxExecutor;
+import rs.banka4.bank_service.tx.data.DoubleEntryTransaction;
+import rs.banka4.bank_service.tx.data.Posting;
+import rs.banka4.bank_service.tx.data.TxAccount;
+import rs.banka4.bank_service.tx.data.TxAsset;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderFeeServiceImpl implements OrderFeeService {
+    private final OrderFeeRepository orderFeeRepository;
+    private final BankAccountService bankAccountService;
+    private final TxExecutor txExecutor;
+    private final TransactionService transactionService;
+
+    @Override
+    @Transactional
+    public void accrueFee(Order order, BigDecimal commission) {
+        if (commission.signum() <= 0) return;
+
+        orderFeeRepository.save(
+            OrderFee.builder()
+                .account(order.getAccount())
+                .orderId(order.getId())
+                .amount(
+                    new MonetaryAmount(
+                        commission,
+                        order.getAccount()
+                            .getCurrency()
+                    )
+                )
+                .accruedAt(OffsetDateTime.now())
+                .build()
+        );
+    }
+
+    @Override
+    public List<UUID> getAccountsWithPendingFees() {
+        return orderFeeRepository.findAccountIdsWithPendingFees();
+    }
+
+    @Override
+    @Transactional
+    public void settlePendingFees(UUID accountId) {
+        final var fees = orderFeeRepository.findAllByAccount_IdAndSettledAtIsNull(accountId);
+        if (fees.isEmpty()) return;
+
+        final Account account =
+            fees.getFirst()
+                .getAccount();
+        final var currency = account.getCurrency();
+        final var total =
+            fees.stream()
+                .map(
+                    fee -> fee.getAmount()
+                        .getAmount()
+                )
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        /*
+         * The fees are marked settled and flushed before any money moves. submitImmediateTx posts
+         * in this same transaction, so should posting fail, the settlement is rolled back with it,
+         * and the fees stay pending for the next sweep.
+         */
+        final var now = OffsetDateTime.now();
+        for (OrderFee fee : fees) fee.setSettledAt(now);
+        orderFeeRepository.saveAllAndFlush(fees);
+
+        final Account bankAccount = bankAccountService.getBankAccountForCurrency(currency);
+        final var transaction =
+            new DoubleEntryTransaction(
+                List.of(
+                    new Posting(
+                        new TxAccount.Account(account.getAccountNumber()),
+                        total.negate(),
+                        new TxAsset.Monas(currency)
+                    ),
+                    new Posting(
+                        new TxAccount.Account(bankAccount.getAccountNumber()),
+                        total,
+                        new TxAsset.Monas(currency)
+                    )
+                ),
+                "Order execution fees",
+                ForeignBankId.our(UUID.randomUUID())
+            );
+
+        final ForeignBankId id = txExecutor.submitImmediateTx(transaction);
+        for (OrderFee fee : fees) fee.setSettlingTransaction(id);
+        orderFeeRepository.saveAll(fees);
+        transactionService.createFeeTransaction(
+            account,
+            bankAccount.getAccountNumber(),
+            currency,
+            total,
+            id
+        );
+
+        log.info(
+            "Settled {} order fees of account {} for {} {}",
+            fees.size(),
+            account.getAccountNumber(),
+            total,
+            currency
+        );
+    }
+}
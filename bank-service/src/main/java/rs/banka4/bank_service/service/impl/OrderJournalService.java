@@ -0,0 +1,249 @@
+package rs.banka4.bank_service.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.banka4.bank_service.domain.orders.OpenOrderBook;
+import rs.banka4.bank_service.domain.orders.db.*;
+import rs.banka4.bank_service.repositories.OrderBookSnapshotRepository;
+import rs.banka4.bank_service.repositories.OrderEventRepository;
+
+/**
+ * Maintains the append-only journal of order lifecycle events and an in-memory
+ * {@link OpenOrderBook} built from it.
+ * <p>
+ * On startup, the book is recovered from the latest snapshot plus the journal tail, so recovery time
+ * depends on the number of events since the last snapshot rather than on the size of the
+ * {@code orders} table. Snapshots are taken periodically. Since events are appended inside the
+ * transaction that changes the order, and those can run for a long time during partial execution,
+ * snapshots only cover events older than {@code orders.journal.snapshot-grace-minutes}; events
+ * committed later than that would otherwise be skipped on recovery.
+ * <p>
+ * Order execution still matches orders through the database, so nothing reads the book yet. It is
+ * kept up to date so that an in-memory matcher can start from it without scanning the
+ * {@code orders} table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderJournalService {
+    private static final int REPLAY_PAGE_SIZE = 10_000;
+    private static final TypeReference<List<OpenOrderBook.OpenOrder>> OPEN_ORDERS_TYPE =
+        new TypeReference<>() {
+        };
+    /** Written on every snapshot pass, so that a pass with no open orders is still recorded. */
+    private static final UUID SNAPSHOT_MARKER_ASSET = new UUID(0L, 0L);
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderBookSnapshotRepository orderBookSnapshotRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.journal.snapshot-grace-minutes}")
+    private long snapshotGraceMinutes;
+
+    private OpenOrderBook liveBook = new OpenOrderBook();
+    /**
+     * Events applied to {@link #liveBook} while {@link #recover()} loads a new book, or null when
+     * not recovering. Guarded by {@code this}, like the book.
+     */
+    private List<OrderEvent> appliedDuringRecovery;
+
+    /**
+     * Appends an event describing the current state of {@code order} to the journal. The event is
+     * written in the caller's transaction, and only applied to the in-memory book once that
+     * transaction commits.
+     */
+    @Transactional
+    public void record(Order order, OrderEventType type) {
+        final var event =
+            orderEventRepository.save(
+                OrderEvent.builder()
+                    .orderId(order.getId())
+                    .assetId(
+                        order.getAsset()
+                            .getId()
+                    )
+                    .type(type)
+                    .direction(order.getDirection())
+                    .pricePerUnit(order.getPricePerUnit())
+                    .remainingPortions(order.isDone() ? 0 : order.getRemainingPortions())
+                    .approved(order.getStatus() == Status.APPROVED)
+                    .allOrNothing(order.isAllOrNothing())
+                    .occurredAt(OffsetDateTime.now())
+                    .build()
+            );
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        applyToLiveBook(event);
+                    }
+                }
+            );
+        } else {
+            applyToLiveBook(event);
+        }
+    }
+
+    /**
+     * Records a {@link OrderEventType#FILLED} or {@link OrderEventType#PARTIALLY_FILLED} event,
+     * depending on whether any portions of {@code order} remain.
+     */
+    @Transactional
+    public void recordFill(Order order) {
+        record(
+            order,
+            order.isDone() || order.getRemainingPortions() == 0
+                ? OrderEventType.FILLED
+                : OrderEventType.PARTIALLY_FILLED
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recover() {
+        final long start = System.nanoTime();
+        synchronized (this) {
+            appliedDuringRecovery = new ArrayList<>();
+        }
+        final var book = loadBook(Long.MAX_VALUE);
+        synchronized (this) {
+            /*
+             * Events committed while loading may or may not have been read. Events of one order
+             * commit in order, so applying all of them again leaves every order at its latest one.
+             */
+            appliedDuringRecovery.forEach(book::apply);
+            appliedDuringRecovery = null;
+            liveBook = book;
+        }
+        log.info(
+            "Recovered {} open orders up to journal sequence {} in {} ms",
+            book.size(),
+            book.getLastSequenceNumber(),
+            Duration.ofNanos(System.nanoTime() - start)
+                .toMillis()
+        );
+    }
+
+    /**
+     * Writes a new snapshot of all open orders, covering journal events older than the grace
+     * period, and removes older snapshots.
+     */
+    @Scheduled(fixedDelayString = "#{${orders.journal.snapshot-interval-minutes} * 60l * 1000l}")
+    @Transactional
+    public void takeSnapshot() {
+        final var cutoff = OffsetDateTime.now()
+            .minusMinutes(snapshotGraceMinutes);
+        final long upTo =
+            orderEventRepository.findLastSequenceNumberBefore(cutoff)
+                .orElse(0L);
+        final long previous =
+            orderBookSnapshotRepository.findLatestSequenceNumber()
+                .orElse(0L);
+        if (upTo <= previous) return;
+
+        final var book = loadBook(upTo);
+        final var now = OffsetDateTime.now();
+        final var snapshots = new ArrayList<OrderBookSnapshot>();
+        snapshots.add(makeSnapshot(SNAPSHOT_MARKER_ASSET, upTo, now, List.of()));
+        for (UUID assetId : book.getAssetIds())
+            snapshots.add(makeSnapshot(assetId, upTo, now, book.getOpenOrders(assetId)));
+
+        orderBookSnapshotRepository.saveAll(snapshots);
+        orderBookSnapshotRepository.deleteAllOlderThan(upTo);
+        log.info(
+            "Took order book snapshot of {} open orders at journal sequence {}",
+            book.size(),
+            upTo
+        );
+    }
+
+    private synchronized void applyToLiveBook(OrderEvent event) {
+        liveBook.apply(event);
+        if (appliedDuringRecovery != null) appliedDuringRecovery.add(event);
+    }
+
+    /**
+     * Builds a book from the latest snapshot and the journal events after it, up to and including
+     * {@code upTo}.
+     */
+    private OpenOrderBook loadBook(long upTo) {
+        final var book = new OpenOrderBook();
+        final long snapshotSequence =
+            orderBookSnapshotRepository.findLatestSequenceNumber()
+                .orElse(0L);
+        if (snapshotSequence > 0) {
+            for (
+                OrderBookSnapshot snapshot : orderBookSnapshotRepository.findAllByLastSequenceNumber(
+                    snapshotSequence
+                )
+            ) {
+                book.restore(
+                    snapshot.getAssetId(),
+                    snapshot.getLastSequenceNumber(),
+                    readOpenOrders(snapshot.getOpenOrders())
+                );
+            }
+        }
+
+        long after = snapshotSequence;
+        while (true) {
+            final var page =
+                orderEventRepository.findBySequenceNumberGreaterThanAndSequenceNumberLessThanEqualOrderBySequenceNumberAsc(
+                    after,
+                    upTo,
+                    Limit.of(REPLAY_PAGE_SIZE)
+                );
+            page.forEach(book::apply);
+            if (page.size() < REPLAY_PAGE_SIZE) break;
+            after =
+                page.getLast()
+                    .getSequenceNumber();
+        }
+        return book;
+    }
+
+    private OrderBookSnapshot makeSnapshot(
+        UUID assetId,
+        long sequenceNumber,
+        OffsetDateTime createdAt,
+        List<OpenOrderBook.OpenOrder> orders
+    ) {
+        try {
+            return OrderBookSnapshot.builder()
+                .assetId(assetId)
+                .lastSequenceNumber(sequenceNumber)
+                .createdAt(createdAt)
+                .openOrders(objectMapper.writeValueAsString(orders))
+                .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order book snapshot", e);
+        }
+    }
+
+    private List<OpenOrderBook.OpenOrder> readOpenOrders(String json) {
+        try {
+            return objectMapper.readValue(json, OPEN_ORDERS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read order book snapshot", e);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package rs.banka4.bank_service.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -12,18 +14,17 @@ import org.springframework.stereotype.Service;
 import rs.banka4.bank_service.domain.account.db.Account;
 import rs.banka4.bank_service.domain.actuaries.db.ActuaryInfo;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
-import rs.banka4.bank_service.domain.exchanges.db.Exchange;
-import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
+import rs.banka4.bank_service.domain.orders.db.OrderEventType;
 import rs.banka4.bank_service.domain.orders.db.OrderType;
 import rs.banka4.bank_service.domain.orders.db.Status;
 import rs.banka4.bank_service.domain.orders.dtos.*;
 import rs.banka4.bank_service.domain.orders.mapper.OrderMapper;
 import rs.banka4.bank_service.domain.security.future.db.Future;
-import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
 import rs.banka4.bank_service.domain.user.User;
 import rs.banka4.bank_service.exceptions.*;
 import rs.banka4.bank_service.repositories.ActuaryRepository;
@@ -31,8 +32,6 @@ import rs.banka4.bank_service.repositories.AssetRepository;
 import rs.banka4.bank_service.repositories.OrderRepository;
 import rs.banka4.bank_service.repositories.UserRepository;
 import rs.banka4.bank_service.service.abstraction.*;
-import rs.banka4.bank_service.tx.TxExecutor;
-import rs.banka4.bank_service.tx.data.*;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 import rs.banka4.rafeisen.common.exceptions.jwt.Unauthorized;
 import rs.banka4.rafeisen.common.security.AuthenticatedBankUserAuthentication;
@@ -53,9 +52,28 @@ public class OrderServiceImpl implements OrderService {
     private final UserRepository userRepository;
     private final AccountService accountService;
     private final ExchangeRateService exchangeRateService;
-    private final BankAccountService bankAccountService;
-    private final TxExecutor txExecutor;
-    private final TransactionService transactionService;
+    private final AssetVolumeService assetVolumeService;
+    private final OrderJournalService orderJournalService;
+    private final OrderFeeService orderFeeService;
+
+    private record PreviewKey(
+        UUID assetId,
+        Direction direction,
+        OrderType orderType,
+        BigDecimal limitValue,
+        CurrencyCode limitCurrency,
+        int quantity,
+        CurrencyCode accountCurrency
+    ) {
+    }
+
+    private record CachedPreview(long listingsVersion, long ratesVersion, BigDecimal price) {
+    }
+
+    private final Cache<PreviewKey, CachedPreview> previewCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
 
     @Override
     public OrderDto createOrder(
@@ -81,23 +99,21 @@ public class OrderServiceImpl implements OrderService {
         }
 
         OrderType orderType = determineOrderType(dto.limitValue(), dto.stopValue());
-        Exchange exchange = resolveExchangeForAsset(asset);
-
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(asset.getId())
-                .orElseThrow(() -> new ListingNotFoundException(null));
+                .orElseThrow(ExchangeNotFound::new);
 
         boolean afterHours =
             OffsetDateTime.now()
-                .isAfter(exchange.getCloseTime())
+                .isAfter(listing.closeTime())
                 || OffsetDateTime.now()
-                    .isBefore(exchange.getOpenTime());
+                    .isBefore(listing.openTime());
         BigDecimal pricePerUnit =
             resolveExecutionPrice(
                 orderType,
                 dto.direction(),
-                listing.getAsk(),
-                listing.getBid(),
+                listing.ask(),
+                listing.bid(),
                 dto.limitValue(),
                 getContractSize(asset)
             );
@@ -126,7 +142,7 @@ public class OrderServiceImpl implements OrderService {
 
         BigDecimal convertedPrice;
         if (
-            !exchange.getCurrency()
+            !listing.currency()
                 .equals(CurrencyCode.RSD)
                 && !account.getCurrency()
                     .equals(CurrencyCode.RSD)
@@ -134,7 +150,7 @@ public class OrderServiceImpl implements OrderService {
             BigDecimal convertedRsd =
                 exchangeRateService.convertCurrency(
                     pricePerUnit,
-                    exchange.getCurrency(),
+                    listing.currency(),
                     CurrencyCode.RSD
                 );
             convertedPrice =
@@ -145,7 +161,7 @@ public class OrderServiceImpl implements OrderService {
                 );
         } else
             if (
-                exchange.getCurrency()
+                listing.currency()
                     .equals(account.getCurrency())
             ) {
                 convertedPrice = pricePerUnit;
@@ -153,7 +169,7 @@ public class OrderServiceImpl implements OrderService {
                 convertedPrice =
                     exchangeRateService.convertCurrency(
                         pricePerUnit,
-                        exchange.getCurrency(),
+                        listing.currency(),
                         account.getCurrency()
                     );
             }
@@ -175,64 +191,96 @@ public class OrderServiceImpl implements OrderService {
         order.setAccount(account);
 
         Order savedOrder = orderRepository.saveAndFlush(order);
+        assetVolumeService.recordOrder(asset.getId());
+        orderJournalService.record(savedOrder, OrderEventType.CREATED);
         return OrderMapper.INSTANCE.toDto(savedOrder);
     }
 
+    /**
+     * Previews are requested on every keystroke in the order form, so computed prices are kept
+     * until either the listings or the exchange rates they were computed from are refreshed.
+     */
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public OrderPreviewDto calculateAveragePrice(CreateOrderPreviewDto request) {
+        OrderType orderType = determineOrderType(request.limitValue(), request.stopValue());
+        String typeLabel = buildOrderTypeLabel(orderType, request.allOrNothing(), request.margin());
+        CurrencyCode accountCurrency =
+            accountService.getAccountByAccountNumber(request.accountNumber())
+                .getCurrency();
+
+        /* Read the versions first, so a refresh during the computation invalidates the result. */
+        long listingsVersion = listingService.getListingsVersion();
+        long ratesVersion = exchangeRateService.getRatesVersion();
+        PreviewKey key =
+            new PreviewKey(
+                request.assetId(),
+                request.direction(),
+                orderType,
+                request.limitValue() != null
+                    ? request.limitValue()
+                        .getAmount()
+                        .stripTrailingZeros()
+                    : null,
+                request.limitValue() != null
+                    ? request.limitValue()
+                        .getCurrency()
+                    : null,
+                request.quantity(),
+                accountCurrency
+            );
+
+        CachedPreview cached = previewCache.getIfPresent(key);
+        if (
+            cached == null
+                || cached.listingsVersion() != listingsVersion
+                || cached.ratesVersion() != ratesVersion
+        ) {
+            cached =
+                new CachedPreview(
+                    listingsVersion,
+                    ratesVersion,
+                    computePreviewPrice(request, orderType, accountCurrency)
+                );
+            previewCache.put(key, cached);
+        }
+
+        return new OrderPreviewDto(typeLabel, cached.price(), request.quantity());
+    }
+
+    private BigDecimal computePreviewPrice(
+        CreateOrderPreviewDto request,
+        OrderType orderType,
+        CurrencyCode accountCurrency
+    ) {
         Asset asset =
             assetRepository.findById(request.assetId())
                 .orElseThrow(AssetNotFound::new);
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(asset.getId())
                 .orElseThrow(ExchangeNotFound::new);
 
-        OrderType orderType = determineOrderType(request.limitValue(), request.stopValue());
         BigDecimal pricePerUnit =
             resolveExecutionPrice(
                 orderType,
                 request.direction(),
-                listing.getAsk(),
-                listing.getBid(),
+                listing.ask(),
+                listing.bid(),
                 request.limitValue(),
                 getContractSize(asset)
             );
 
-        String typeLabel = buildOrderTypeLabel(orderType, request.allOrNothing(), request.margin());
         BigDecimal price =
             pricePerUnit.multiply(
                 BigDecimal.valueOf((long) request.quantity() * getContractSize(asset))
             );
 
-        Account account = accountService.getAccountByAccountNumber(request.accountNumber());
-
-        if (
-            account.getCurrency() != CurrencyCode.RSD
-                && listing.getExchange()
-                    .getCurrency()
-                    != CurrencyCode.RSD
-        ) {
+        if (accountCurrency != CurrencyCode.RSD && listing.currency() != CurrencyCode.RSD) {
             BigDecimal toRsd =
-                exchangeRateService.convertCurrency(
-                    price,
-                    listing.getExchange()
-                        .getCurrency(),
-                    CurrencyCode.RSD
-                );
-            price =
-                exchangeRateService.convertCurrency(toRsd, CurrencyCode.RSD, account.getCurrency());
-        } else {
-            price =
-                exchangeRateService.convertCurrency(
-                    price,
-                    listing.getExchange()
-                        .getCurrency(),
-                    account.getCurrency()
-                );
+                exchangeRateService.convertCurrency(price, listing.currency(), CurrencyCode.RSD);
+            return exchangeRateService.convertCurrency(toRsd, CurrencyCode.RSD, accountCurrency);
         }
-
-
-        return new OrderPreviewDto(typeLabel, price, request.quantity());
+        return exchangeRateService.convertCurrency(price, listing.currency(), accountCurrency);
     }
 
     @Override
@@ -264,6 +312,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Status.APPROVED);
 
         orderRepository.save(order);
+        orderJournalService.record(order, OrderEventType.APPROVED);
     }
 
     @Override
@@ -282,6 +331,7 @@ public class OrderServiceImpl implements OrderService {
         order.setUsed(true);
 
         orderRepository.save(order);
+        orderJournalService.record(order, OrderEventType.DECLINED);
     }
 
     @Override
@@ -324,6 +374,10 @@ public class OrderServiceImpl implements OrderService {
         order.setUsed(true);
 
         orderRepository.save(order);
+        orderJournalService.record(
+            order,
+            newStatus == Status.APPROVED ? OrderEventType.APPROVED : OrderEventType.DECLINED
+        );
     }
 
     private String buildOrderTypeLabel(OrderType type, boolean allOrNone, boolean margin) {
@@ -390,12 +444,6 @@ public class OrderServiceImpl implements OrderService {
         return false;
     }
 
-    private Exchange resolveExchangeForAsset(Asset asset) {
-        return listingService.findActiveListingByAsset(asset.getId())
-            .map(Listing::getExchange)
-            .orElseThrow(ExchangeNotFound::new);
-    }
-
     private int getContractSize(Asset asset) {
         return switch (asset) {
         case null -> 1;
@@ -487,6 +535,7 @@ public class OrderServiceImpl implements OrderService {
             if (hasSettlementDatePassed(order.getAsset())) {
                 order.setStatus(Status.DECLINED);
                 orderRepository.save(order);
+                orderJournalService.record(order, OrderEventType.DECLINED);
                 continue;
             }
 
@@ -512,7 +561,7 @@ public class OrderServiceImpl implements OrderService {
      *         the order.
      */
     private void executeMarketOrder(Order order) {
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(
                 order.getAsset()
                     .getId()
@@ -525,7 +574,7 @@ public class OrderServiceImpl implements OrderService {
                 );
 
         BigDecimal price =
-            (order.getDirection() == Direction.BUY ? listing.getAsk() : listing.getBid()).multiply(
+            (order.getDirection() == Direction.BUY ? listing.ask() : listing.bid()).multiply(
                 BigDecimal.valueOf((long) order.getQuantity() * order.getContractSize())
             );
 
@@ -555,7 +604,7 @@ public class OrderServiceImpl implements OrderService {
      * @throws RequiredPriceException If the limit value is null or invalid for the order.
      */
     private void executeLimitOrder(Order order) {
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(
                 order.getAsset()
                     .getId()
@@ -571,7 +620,7 @@ public class OrderServiceImpl implements OrderService {
             order.getLimitValue()
                 .getAmount();
         BigDecimal currentPrice =
-            order.getDirection() == Direction.BUY ? listing.getAsk() : listing.getBid();
+            order.getDirection() == Direction.BUY ? listing.ask() : listing.bid();
         /*
          * Check if the current market price satisfies the limit condition. If the order is a buy
          * order, check if the current price is less than or equal to the limit value. If the order
@@ -624,7 +673,7 @@ public class OrderServiceImpl implements OrderService {
      * @throws RequiredPriceException If the stop value is null or invalid for the order.
      */
     private void executeStopOrder(Order order) {
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(
                 order.getAsset()
                     .getId()
@@ -640,7 +689,7 @@ public class OrderServiceImpl implements OrderService {
             order.getStopValue()
                 .getAmount();
         BigDecimal currentPrice =
-            order.getDirection() == Direction.BUY ? listing.getAsk() : listing.getBid();
+            order.getDirection() == Direction.BUY ? listing.ask() : listing.bid();
 
         boolean shouldTrigger =
             (order.getDirection() == Direction.BUY && currentPrice.compareTo(stopValue) >= 0)
@@ -666,7 +715,7 @@ public class OrderServiceImpl implements OrderService {
      *         order.
      */
     private void executeStopLimitOrder(Order order) {
-        Listing listing =
+        ListingQuote listing =
             listingService.findActiveListingByAsset(
                 order.getAsset()
                     .getId()
@@ -682,7 +731,7 @@ public class OrderServiceImpl implements OrderService {
             order.getStopValue()
                 .getAmount();
         BigDecimal currentPrice =
-            order.getDirection() == Direction.BUY ? listing.getAsk() : listing.getBid();
+            order.getDirection() == Direction.BUY ? listing.ask() : listing.bid();
 
         boolean shouldTrigger =
             (order.getDirection() == Direction.BUY && currentPrice.compareTo(stopValue) >= 0)
@@ -703,7 +752,7 @@ public class OrderServiceImpl implements OrderService {
         orderExecutionService.processAllOrNothingOrderAsync(order)
             .thenAccept(executed -> {
                 if (executed) {
-                    payFee(order, commission);
+                    orderFeeService.accrueFee(order, commission);
                 }
             })
             .exceptionally(ex -> null);
@@ -712,7 +761,7 @@ public class OrderServiceImpl implements OrderService {
     /**
      * Executes an order in partial chunks by finding and matching available orders until the entire
      * order is fulfilled or no further matches are found. If the execution completes successfully,
-     * a fee is paid based on the provided commission.
+     * a fee is accrued based on the provided commission.
      *
      * @param order The order to be executed in partial chunks. Must contain valid asset, direction,
      *        and quantity details.
@@ -724,63 +773,9 @@ public class OrderServiceImpl implements OrderService {
         orderExecutionService.processPartialOrderAsync(order)
             .thenAccept(executed -> {
                 if (executed) {
-                    payFee(order, commission);
+                    orderFeeService.accrueFee(order, commission);
                 }
             })
             .exceptionally(ex -> null);
     }
-
-
-    private void payFee(Order order, BigDecimal commission) {
-        StockDescription stockDescription =
-            new StockDescription(
-                order.getAsset()
-                    .getTicker()
-            );
-
-        Account bankAccount =
-            bankAccountService.getBankAccountForCurrency(
-                order.getAccount()
-                    .getCurrency()
-            );
-
-        Posting orderPosting =
-            new Posting(
-                new TxAccount.Account(
-                    order.getAccount()
-                        .getAccountNumber()
-                ),
-                commission.negate(),
-                new TxAsset.Stock(stockDescription)
-            );
-
-        Posting bankPosting =
-            new Posting(
-                new TxAccount.Account(bankAccount.getAccountNumber()),
-                commission,
-                new TxAsset.Stock(stockDescription)
-            );
-
-        DoubleEntryTransaction transaction =
-            new DoubleEntryTransaction(
-                List.of(orderPosting, bankPosting),
-                "Order execution fee",
-                ForeignBankId.our(UUID.randomUUID())
-            );
-
-        try {
-            ForeignBankId id = txExecutor.submitImmediateTx(transaction);
-            transactionService.createFeeTransaction(
-                order.getAccount(),
-                bankAccount.getAccountNumber(),
-                order.getAccount()
-                    .getCurrency(),
-                commission,
-                id
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to submit transaction", e);
-        }
-    }
-
 }
@@ -0,0 +1,219 @@
+package rs.banka4.bank_service.service.impl;
+
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.FifoLots;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.assets.db.PositionId;
+import rs.banka4.bank_service.domain.assets.db.PositionLot;
+import rs.banka4.bank_service.domain.assets.db.RealizedProfit;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.db.Order;
+import rs.banka4.bank_service.repositories.OrderRepository;
+import rs.banka4.bank_service.repositories.PositionLotRepository;
+import rs.banka4.bank_service.repositories.PositionRepository;
+import rs.banka4.bank_service.repositories.RealizedProfitRepository;
+import rs.banka4.bank_service.service.abstraction.PositionLedgerService;
+import rs.banka4.bank_service.service.abstraction.ProfitCalculationService;
+
+@Service
+@RequiredArgsConstructor
+public class PositionLedgerServiceImpl implements PositionLedgerService {
+    private final PositionRepository positionRepository;
+    private final PositionLotRepository positionLotRepository;
+    private final RealizedProfitRepository realizedProfitRepository;
+    private final OrderRepository orderRepository;
+    private final ProfitCalculationService profitCalculationService;
+
+    @Override
+    @Transactional
+    public void recordFill(Order buy, Order sell, int quantity) {
+        if (quantity <= 0 || buy.getAsset() instanceof Option) return;
+
+        /*
+         * Both positions are locked up front, in the order of their users' IDs, so that two fills
+         * between the same users in opposite directions cannot deadlock.
+         */
+        final var buyer = positionId(buy);
+        final var seller = positionId(sell);
+        final boolean buyerFirst =
+            buyer.getUserId()
+                .compareTo(seller.getUserId())
+                <= 0;
+        final var first = lockPosition(buyerFirst ? buyer : seller);
+        final var second = lockPosition(buyerFirst ? seller : buyer);
+        final var buyerPosition = buyerFirst ? first : second;
+        final var sellerPosition = buyerFirst ? second : first;
+
+        final var now = OffsetDateTime.now();
+        openLot(buyerPosition, buy, quantity, FifoLots.feeForFill(buy, quantity), now);
+        closeLots(
+            sellerPosition,
+            sell,
+            quantity,
+            sell.getQuantity() - sell.getRemainingPortions() - quantity,
+            now
+        );
+    }
+
+    @Override
+    @Transactional
+    public Order saveExecutedOrder(Order order) {
+        final var saved = orderRepository.save(order);
+        if (saved.getAsset() instanceof Option) return saved;
+
+        final int quantity = FifoLots.filled(saved);
+        if (quantity <= 0) return saved;
+        final var position = lockPosition(positionId(saved));
+        if (saved.getDirection() == Direction.BUY) {
+            final var fee =
+                FifoLots.fee(
+                    saved.getOrderType(),
+                    saved.getPricePerUnit()
+                        .getAmount(),
+                    0,
+                    quantity
+                );
+            openLot(position, saved, quantity, fee, saved.getLastModified());
+        } else {
+            closeLots(position, saved, quantity, 0, saved.getLastModified());
+        }
+        return saved;
+    }
+
+    private void openLot(
+        Position position,
+        Order buy,
+        int quantity,
+        BigDecimal fee,
+        OffsetDateTime at
+    ) {
+        final var cost =
+            buy.getPricePerUnit()
+                .getAmount()
+                .multiply(BigDecimal.valueOf(quantity))
+                .add(fee);
+
+        positionLotRepository.save(
+            PositionLot.builder()
+                .userId(
+                    position.getId()
+                        .getUserId()
+                )
+                .assetId(
+                    position.getId()
+                        .getAssetId()
+                )
+                .orderId(buy.getId())
+                .acquiredAt(at)
+                .quantity(quantity)
+                .cost(cost)
+                .build()
+        );
+        position.setQuantity(position.getQuantity() + quantity);
+        position.setCostBasis(
+            position.getCostBasis()
+                .add(cost)
+        );
+        positionRepository.save(position);
+    }
+
+    /**
+     * Consumes the oldest lots of the seller. Only the part of the sell covered by open lots has a
+     * known cost, so the profit recorded is that of the covered part alone, as if it were the first
+     * units of the fill.
+     *
+     * @param filledBefore the quantity of {@code sell} filled before this fill
+     */
+    private void closeLots(
+        Position position,
+        Order sell,
+        int quantity,
+        int filledBefore,
+        OffsetDateTime at
+    ) {
+        final var lots =
+            positionLotRepository.findAllByUserIdAndAssetIdOrderByAcquiredAtAscIdAsc(
+                position.getId()
+                    .getUserId(),
+                position.getId()
+                    .getAssetId()
+            );
+        final var consumed = FifoLots.consume(lots, quantity);
+
+        /* The partly consumed lot, if any, is managed, so it is updated on flush. */
+        final List<PositionLot> emptied = new ArrayList<>();
+        for (PositionLot lot : lots) if (lot.getQuantity() == 0) emptied.add(lot);
+        positionLotRepository.deleteAll(emptied);
+
+        position.setQuantity(position.getQuantity() - consumed.quantity());
+        position.setCostBasis(
+            position.getCostBasis()
+                .subtract(consumed.cost())
+        );
+        if (position.getQuantity() == 0) positionRepository.delete(position);
+        else positionRepository.save(position);
+
+        if (consumed.quantity() == 0) return;
+
+        final var price =
+            sell.getPricePerUnit()
+                .getAmount();
+        final var proceeds =
+            price.multiply(BigDecimal.valueOf(consumed.quantity()))
+                .subtract(
+                    FifoLots.fee(sell.getOrderType(), price, filledBefore, consumed.quantity())
+                );
+        realizedProfitRepository.save(
+            RealizedProfit.builder()
+                .sellOrderId(sell.getId())
+                .userId(
+                    position.getId()
+                        .getUserId()
+                )
+                .assetId(
+                    position.getId()
+                        .getAssetId()
+                )
+                .quantity(consumed.quantity())
+                .proceeds(proceeds)
+                .cost(consumed.cost())
+                .profit(
+                    new MonetaryAmount(
+                        proceeds.subtract(consumed.cost()),
+                        sell.getPricePerUnit()
+                            .getCurrency()
+                    )
+                )
+                .realizedAt(at)
+                .build()
+        );
+        profitCalculationService.evictRealizedProfit(
+            position.getId()
+                .getUserId()
+        );
+    }
+
+    private static PositionId positionId(Order order) {
+        return new PositionId(
+            order.getUser()
+                .getId(),
+            order.getAsset()
+                .getId()
+        );
+    }
+
+    /** Locks a position, creating it if needed. */
+    private Position lockPosition(PositionId id) {
+        positionRepository.createIfMissing(id.getUserId(), id.getAssetId());
+        return positionRepository.findAndLockById(id)
+            .orElseThrow();
+    }
+}
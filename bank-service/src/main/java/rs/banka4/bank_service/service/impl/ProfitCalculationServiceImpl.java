@@ -2,44 +2,91 @@ package rs.banka4.bank_service.service.impl;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayDeque;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Limit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.assets.db.PositionId;
+import rs.banka4.bank_service.domain.assets.db.RealizedProfitTotal;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.options.db.Option;
-import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
 import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
 import rs.banka4.bank_service.domain.security.future.db.Future;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
 import rs.banka4.bank_service.domain.user.employee.db.Employee;
 import rs.banka4.bank_service.exceptions.AssetNotFound;
-import rs.banka4.bank_service.repositories.ListingRepository;
-import rs.banka4.bank_service.repositories.OrderRepository;
+import rs.banka4.bank_service.repositories.PositionRepository;
+import rs.banka4.bank_service.repositories.RealizedProfitRepository;
 import rs.banka4.bank_service.service.abstraction.ExchangeRateService;
+import rs.banka4.bank_service.service.abstraction.ListingService;
 import rs.banka4.bank_service.service.abstraction.ProfitCalculationService;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 
 /**
  * A unified calculator that, for any asset type (Stock, Future, ForexPair, Option), determines
- * profit using Fifo method for profit calculation Returns unrealized profit
+ * profit using Fifo method for profit calculation Returns unrealized profit. Lots are matched when
+ * orders are filled, by {@link rs.banka4.bank_service.service.abstraction.PositionLedgerService},
+ * so this only reads the results.
+ * <p>
+ * Realized profit of actuaries is cached until a fill of theirs commits. When Redis is available,
+ * every such eviction also increments a shared version, and a replica which notices that version
+ * change (checked at most every {@code profits.realized-cache-sync-seconds}) drops its whole
+ * cache, so that fills committed by other replicas are not missed.
  */
 @Service
-@RequiredArgsConstructor
 public class ProfitCalculationServiceImpl implements ProfitCalculationService {
-    private final OrderRepository orderRepository;
-    private final ListingRepository listingRepository;
+    static final String SHARED_VERSION_KEY = "REALIZED_PROFIT_VERSION";
+
+    private final PositionRepository positionRepository;
+    private final RealizedProfitRepository realizedProfitRepository;
+    private final ListingService listingService;
     private final ExchangeRateService exchangeRateService;
 
     /**
-     * Calculates total profit (unrealized) for the given user and asset.
+     * Realized profit of users, per currency. Kept in the currency it was realized in, so that it
+     * does not go stale when exchange rates change.
+     */
+    private final Map<UUID, Map<CurrencyCode, BigDecimal>> realizedProfitByUser =
+        new ConcurrentHashMap<>();
+    /** Bumped on every eviction, so that a load racing with a fill is not cached. */
+    private final AtomicLong evictions = new AtomicLong();
+    private final SharedCacheVersion sharedVersion;
+    /** The shared version the cache was last dropped for. */
+    private volatile String seenSharedVersion;
+
+    public ProfitCalculationServiceImpl(
+        PositionRepository positionRepository,
+        RealizedProfitRepository realizedProfitRepository,
+        ListingService listingService,
+        ExchangeRateService exchangeRateService,
+        @Autowired(required = false) RedisConnectionFactory redisConn,
+        @Value("${profits.realized-cache-sync-seconds}") long syncSeconds
+    ) {
+        this.positionRepository = positionRepository;
+        this.realizedProfitRepository = realizedProfitRepository;
+        this.listingService = listingService;
+        this.exchangeRateService = exchangeRateService;
+        this.sharedVersion = new SharedCacheVersion(SHARED_VERSION_KEY, redisConn, syncSeconds);
+    }
+
+    /**
+     * Calculates total profit (unrealized) for the given user and asset, from the open lots of
+     * their position.
      */
     public MonetaryAmount calculateProfit(
         UUID userId,
@@ -51,87 +98,33 @@ public class ProfitCalculationServiceImpl implements ProfitCalculationService {
             return calculateOptionProfit(currentPrice, option, totalAmount);
         }
 
-        var buyOrders =
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                userId,
-                asset,
-                Direction.BUY,
-                true
-            );
-        var sellOrders =
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                userId,
-                asset,
-                Direction.SELL,
-                true
-            );
-        sellOrders.addAll(
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                userId,
-                asset,
-                Direction.SELL,
-                false
-            )
-                .stream()
-                .peek(o -> o.setQuantity(o.getQuantity() - o.getRemainingPortions()))
-                .toList()
+        return calculateProfit(
+            positionRepository.findById(new PositionId(userId, asset.getId()))
+                .orElse(null),
+            asset,
+            currentPrice,
+            totalAmount
         );
+    }
 
-        buyOrders.sort(Comparator.comparing(Order::getCreatedAt));
-        sellOrders.sort(Comparator.comparing(Order::getCreatedAt));
-
-        var lots = new LinkedList<Lot>();
-        for (Order buy : buyOrders) {
-            var qty = BigDecimal.valueOf(buy.getQuantity());
-            var baseCost =
-                buy.getPricePerUnit()
-                    .getAmount()
-                    .multiply(qty);
-            var fee = computeFee(buy, baseCost);
-
-            BigDecimal totalCost = baseCost.add(fee);
-
-            lots.add(new Lot(qty, totalCost));
-        }
-
-        for (Order sell : sellOrders) {
-            var sellQty = BigDecimal.valueOf(sell.getQuantity());
-
-            while (sellQty.compareTo(BigDecimal.ZERO) > 0 && !lots.isEmpty()) {
-                var firstLot = lots.getFirst();
-                int cmp = firstLot.quantity.compareTo(sellQty);
-                if (cmp > 0) {
-                    var fraction = sellQty.divide(firstLot.quantity, 4, RoundingMode.HALF_UP);
-                    var costForThisSell = firstLot.cost.multiply(fraction);
-
-                    firstLot.cost = firstLot.cost.subtract(costForThisSell);
-                    firstLot.quantity = firstLot.quantity.subtract(sellQty);
-                    sellQty = BigDecimal.ZERO;
-                } else if (cmp == 0) {
-                    firstLot.quantity = BigDecimal.ZERO;
-                    lots.removeFirst();
-                    sellQty = BigDecimal.ZERO;
-                } else {
-                    sellQty = sellQty.subtract(firstLot.quantity);
-                    firstLot.quantity = BigDecimal.ZERO;
-                    lots.removeFirst();
-                }
-            }
-        }
-
-        var leftoverQty = BigDecimal.ZERO;
-        var leftoverCost = BigDecimal.ZERO;
-
-        for (Lot lot : lots) {
-            leftoverQty = leftoverQty.add(lot.quantity);
-            leftoverCost = leftoverCost.add(lot.cost);
+    @Override
+    public MonetaryAmount calculateProfit(
+        Position position,
+        Asset asset,
+        MonetaryAmount currentPrice,
+        int totalAmount
+    ) {
+        if (asset instanceof Option option) {
+            return calculateOptionProfit(currentPrice, option, totalAmount);
         }
-
-        if (leftoverQty.compareTo(BigDecimal.ZERO) <= 0) {
+        if (position == null || position.getQuantity() <= 0) {
             return new MonetaryAmount(BigDecimal.ZERO, currentPrice.getCurrency());
         }
 
-        var avgBuyPrice = leftoverCost.divide(leftoverQty, 4, RoundingMode.HALF_UP);
+        var leftoverQty = BigDecimal.valueOf(position.getQuantity());
+        var avgBuyPrice =
+            position.getCostBasis()
+                .divide(leftoverQty, 4, RoundingMode.HALF_UP);
 
         var multiplier = getMultiplier(asset);
 
@@ -145,113 +138,109 @@ public class ProfitCalculationServiceImpl implements ProfitCalculationService {
     }
 
     /**
-     * Calculate realized profit (P&L) for exactly one sell order, using FIFO matching against prior
-     * buys (including partial fills), and accounting for both buy- and sell-side fees.
+     * Calculate realized profit (P&L) for exactly one sell order, as recorded by the
+     * {@link rs.banka4.bank_service.service.abstraction.PositionLedgerService} for its fills so
+     * far.
      *
      * @param sellOrder the SELL {@link Order} for which we want realized profit
      * @return a {@link MonetaryAmount} in the sell order’s currency
      */
     public MonetaryAmount calculateRealizedProfitForSell(Order sellOrder) {
-        var userId =
-            sellOrder.getUser()
-                .getId();
-        var asset = sellOrder.getAsset();
-        var sellQty =
-            BigDecimal.valueOf(sellOrder.getQuantity() - (sellOrder.getRemainingPortions()));
-        var sellGross =
+        return new MonetaryAmount(
+            realizedProfitRepository.sumProfitBySellOrderId(sellOrder.getId()),
             sellOrder.getPricePerUnit()
-                .getAmount()
-                .multiply(sellQty);
-        var sellFee = computeFee(sellOrder, sellGross);
-        var sellNet = sellGross.subtract(sellFee);
+                .getCurrency()
+        );
+    }
 
-        var buyOrders =
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                userId,
-                asset,
-                Direction.BUY,
-                true
-            )
-                .stream()
-                .filter(
-                    o -> !o.getLastModified()
-                        .isAfter(sellOrder.getLastModified())
-                )
-                .sorted(Comparator.comparing(Order::getCreatedAt))
-                .toList();
+    @Override
+    public MonetaryAmount calculateRealizedProfitForActuary(Employee actuary) {
+        return calculateRealizedProfitForActuaries(List.of(actuary)).get(actuary.getId());
+    }
 
-        var lots = new ArrayDeque<>();
-        for (var buy : buyOrders) {
-            var qty = BigDecimal.valueOf(buy.getQuantity());
-            var grossCost =
-                buy.getPricePerUnit()
-                    .getAmount()
-                    .multiply(qty);
-            var fee = computeFee(buy, grossCost);
-            lots.addLast(new Lot(qty, grossCost.add(fee)));
+    @Override
+    public Map<UUID, MonetaryAmount> calculateRealizedProfitForActuaries(
+        Collection<Employee> actuaries
+    ) {
+        final var userIds =
+            actuaries.stream()
+                .map(Employee::getId)
+                .collect(Collectors.toSet());
+        dropIfChangedElsewhere();
+        final var totals = new HashMap<UUID, Map<CurrencyCode, BigDecimal>>();
+        final var missing = new HashSet<UUID>();
+        for (UUID userId : userIds) {
+            final var cached = realizedProfitByUser.get(userId);
+            if (cached != null) totals.put(userId, cached);
+            else missing.add(userId);
         }
 
-        var remainingToMatch = sellQty;
-        var consumedCost = BigDecimal.ZERO;
-
-        while (remainingToMatch.compareTo(BigDecimal.ZERO) > 0 && !lots.isEmpty()) {
-            Lot head = (Lot) lots.peekFirst();
-            int cmp = head.quantity.compareTo(remainingToMatch);
-
-            if (cmp > 0) {
-                var fraction = remainingToMatch.divide(head.quantity, 8, RoundingMode.HALF_UP);
-                var costForPortion = head.cost.multiply(fraction);
-                consumedCost = consumedCost.add(costForPortion);
-
-                head.cost = head.cost.subtract(costForPortion);
-                head.quantity = head.quantity.subtract(remainingToMatch);
-                remainingToMatch = BigDecimal.ZERO;
-
-            } else {
-                consumedCost = consumedCost.add(head.cost);
-                remainingToMatch = remainingToMatch.subtract(head.quantity);
-                lots.removeFirst();
-            }
+        if (!missing.isEmpty()) {
+            final long generation = evictions.get();
+            final var loaded = new HashMap<UUID, Map<CurrencyCode, BigDecimal>>();
+            for (UUID userId : missing) loaded.put(userId, new EnumMap<>(CurrencyCode.class));
+            for (RealizedProfitTotal total : realizedProfitRepository.sumProfitByUserIds(missing))
+                loaded.get(total.userId())
+                    .put(total.currency(), total.amount());
+            totals.putAll(loaded);
+            /* Unless a fill committed meanwhile, in which case what was loaded may be stale. */
+            if (evictions.get() == generation) realizedProfitByUser.putAll(loaded);
         }
 
-        var profit = sellNet.subtract(consumedCost);
-        return new MonetaryAmount(
-            profit,
-            sellOrder.getPricePerUnit()
-                .getCurrency()
-        );
+        final var profits = new HashMap<UUID, MonetaryAmount>();
+        totals.forEach((userId, byCurrency) -> {
+            var profit = BigDecimal.ZERO;
+            for (var entry : byCurrency.entrySet()) {
+                profit =
+                    profit.add(
+                        entry.getKey() == CurrencyCode.RSD
+                            ? entry.getValue()
+                            : exchangeRateService.convertCurrency(
+                                entry.getValue(),
+                                entry.getKey(),
+                                CurrencyCode.RSD
+                            )
+                    );
+            }
+            profits.put(userId, new MonetaryAmount(profit, CurrencyCode.RSD));
+        });
+        return profits;
     }
 
     @Override
-    public MonetaryAmount calculateRealizedProfitForActuary(Employee actuary) {
-        var sellOrders =
-            orderRepository.findByUserIdAndDirectionAndIsDone(actuary.id, Direction.SELL, true);
-        sellOrders.addAll(
-            orderRepository.findByUserIdAndDirectionAndIsDone(actuary.id, Direction.SELL, false)
-                .stream()
-                .peek(o -> o.setQuantity(o.getQuantity() - o.getRemainingPortions()))
-                .toList()
-        );
-        var profit =
-            sellOrders.stream()
-                .map(sell -> {
-                    var p = calculateRealizedProfitForSell(sell);
-                    var pAmount = p.getAmount();
-                    if (
-                        !p.getCurrency()
-                            .equals(CurrencyCode.RSD)
-                    ) {
-                        pAmount =
-                            exchangeRateService.convertCurrency(
-                                p.getAmount(),
-                                p.getCurrency(),
-                                CurrencyCode.RSD
-                            );
+    public void evictRealizedProfit(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evict(userId);
                     }
-                    return pAmount;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        return new MonetaryAmount(profit, CurrencyCode.RSD);
+                }
+            );
+        } else {
+            evict(userId);
+        }
+    }
+
+    private void evict(UUID userId) {
+        evictions.incrementAndGet();
+        realizedProfitByUser.remove(userId);
+        sharedVersion.increment();
+    }
+
+    /**
+     * Drops the whole cache if the shared version changed since it was last checked, i.e. some
+     * replica (possibly this one) evicted realized profit meanwhile.
+     */
+    private void dropIfChangedElsewhere() {
+        sharedVersion.poll()
+            .filter(version -> !version.equals(seenSharedVersion))
+            .ifPresent(version -> {
+                seenSharedVersion = version;
+                evictions.incrementAndGet();
+                realizedProfitByUser.clear();
+            });
     }
 
     /**
@@ -259,37 +248,16 @@ public class ProfitCalculationServiceImpl implements ProfitCalculationService {
      */
     public MonetaryAmount calculateOptionProfit(Option option, int totalAmount) {
         var optionalListing =
-            listingRepository.getLatestListing(
+            listingService.findActiveListingByAsset(
                 option.getStock()
-                    .getId(),
-                Limit.of(1)
+                    .getId()
             );
         var currentPrice =
-            optionalListing.map(
-                listing -> new MonetaryAmount(
-                    listing.getBid(),
-                    listing.getExchange()
-                        .getCurrency()
-                )
-            )
+            optionalListing.map(listing -> new MonetaryAmount(listing.bid(), listing.currency()))
                 .orElseThrow(AssetNotFound::new);
         return calculateOptionProfit(currentPrice, option, totalAmount);
     }
 
-    private BigDecimal computeFee(Order order, BigDecimal baseCost) {
-        return switch (order.getOrderType()) {
-        case MARKET -> {
-            BigDecimal mFee = baseCost.multiply(BigDecimal.valueOf(0.14));
-            yield mFee.min(BigDecimal.valueOf(7));
-        }
-        case LIMIT -> {
-            BigDecimal lFee = baseCost.multiply(BigDecimal.valueOf(0.24));
-            yield lFee.min(BigDecimal.valueOf(12));
-        }
-        default -> BigDecimal.ZERO;
-        };
-    }
-
     private MonetaryAmount calculateOptionProfit(
         MonetaryAmount monetaryCurrPrice,
         Option option,
@@ -333,11 +301,4 @@ public class ProfitCalculationServiceImpl implements ProfitCalculationService {
         }
         return BigDecimal.ONE;
     }
-
-    @AllArgsConstructor
-    @Data
-    private static class Lot {
-        private BigDecimal quantity;
-        private BigDecimal cost;
-    }
 }
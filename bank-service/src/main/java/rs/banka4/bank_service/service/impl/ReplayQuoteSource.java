@@ -0,0 +1,145 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
+import rs.banka4.bank_service.service.abstraction.QuoteSource;
+
+/**
+ * Replays a recorded tick file, {@code listings.replay.file}, at {@code listings.replay.speed}
+ * times the recorded pace (between 1 and 1000). The file is a CSV with a header and lines of
+ * {@code offset_ms,ticker,price,volume}, where {@code offset_ms} is the time of the tick since the
+ * start of the recording.
+ * <p>
+ * Each fetch returns the latest tick of every requested ticker up to the current point of the
+ * replay. Once the recording is over, it starts again from the beginning.
+ */
+@Slf4j
+@Service
+@Profile("!test")
+@ConditionalOnProperty(
+    name = "listings.quote-source",
+    havingValue = "replay"
+)
+public class ReplayQuoteSource implements QuoteSource {
+    public record Tick(long offsetMillis, String ticker, StockQuote quote) {
+    }
+
+    private final List<Tick> ticks;
+    /** Length of one pass over the recording, which is never zero. */
+    private final long lapMillis;
+    private final double speed;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    private final Map<String, StockQuote> latest = new HashMap<>();
+    private long lap = 0;
+    private int cursor = 0;
+
+    @Autowired
+    public ReplayQuoteSource(
+        @Value("${listings.replay.file}") Path file,
+        @Value("${listings.replay.speed:1}") double speed
+    ) {
+        this(readTicks(file), speed, System::nanoTime);
+        log.info("Replaying {} ticks from {} at {}x", ticks.size(), file, speed);
+    }
+
+    public ReplayQuoteSource(List<Tick> ticks, double speed, LongSupplier nanoClock) {
+        if (speed < 1 || speed > 1000)
+            throw new IllegalArgumentException("Replay speed must be between 1 and 1000");
+        if (ticks.isEmpty()) throw new IllegalArgumentException("Tick file has no ticks");
+        this.ticks =
+            ticks.stream()
+                .sorted(Comparator.comparingLong(Tick::offsetMillis))
+                .toList();
+        this.lapMillis =
+            this.ticks.getLast()
+                .offsetMillis()
+                + 1;
+        this.speed = speed;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /** Parses ticks in the format of the tick file, including the header. */
+    public static List<Tick> parseTicks(BufferedReader reader) throws IOException {
+        List<Tick> ticks = new ArrayList<>();
+        /* Skip the header. */
+        String line = reader.readLine();
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            String[] fields = line.split(",");
+            ticks.add(
+                new Tick(
+                    Long.parseLong(fields[0].strip()),
+                    fields[1].strip(),
+                    new StockQuote(
+                        new BigDecimal(fields[2].strip()),
+                        Long.parseLong(fields[3].strip())
+                    )
+                )
+            );
+        }
+        return ticks;
+    }
+
+    private static List<Tick> readTicks(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            return parseTicks(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read tick file " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized Map<String, StockQuote> fetchQuotes(Collection<String> tickers) {
+        advanceTo((long) ((nanoClock.getAsLong() - startNanos) / 1_000_000d * speed));
+
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            StockQuote quote = latest.get(ticker);
+            if (quote != null) quotes.put(ticker, quote);
+        }
+        return quotes;
+    }
+
+    /** Applies all ticks up to {@code replayedMillis} since the start of the replay. */
+    private void advanceTo(long replayedMillis) {
+        /* Laps before the previous one would be overwritten completely anyway. */
+        long currentLap = replayedMillis / lapMillis;
+        if (lap < currentLap - 1) {
+            lap = currentLap - 1;
+            cursor = 0;
+        }
+
+        while (true) {
+            if (cursor == ticks.size()) {
+                lap++;
+                cursor = 0;
+            }
+            Tick tick = ticks.get(cursor);
+            if (lap * lapMillis + tick.offsetMillis() > replayedMillis) return;
+            latest.put(tick.ticker(), tick.quote());
+            cursor++;
+        }
+    }
+}
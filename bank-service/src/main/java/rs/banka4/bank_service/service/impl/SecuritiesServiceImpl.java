@@ -2,17 +2,20 @@ package rs.banka4.bank_service.service.impl;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
-import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.assets.db.AssetOwnership;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.options.db.OptionType;
@@ -23,12 +26,14 @@ import rs.banka4.bank_service.domain.security.responses.AssetTypeDto;
 import rs.banka4.bank_service.domain.security.responses.SecurityHoldingDto;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
 import rs.banka4.bank_service.domain.taxes.db.dto.UserTaxInfoDto;
+import rs.banka4.bank_service.domain.trading.db.OtcRequest;
 import rs.banka4.bank_service.exceptions.AssetNotFound;
 import rs.banka4.bank_service.repositories.AssetOwnershipRepository;
-import rs.banka4.bank_service.repositories.ListingRepository;
 import rs.banka4.bank_service.repositories.OtcRequestRepository;
+import rs.banka4.bank_service.repositories.PositionRepository;
 import rs.banka4.bank_service.repositories.UserTaxDebtsRepository;
 import rs.banka4.bank_service.service.abstraction.ExchangeRateService;
+import rs.banka4.bank_service.service.abstraction.ListingService;
 import rs.banka4.bank_service.service.abstraction.ProfitCalculationService;
 import rs.banka4.bank_service.service.abstraction.SecuritiesService;
 import rs.banka4.bank_service.service.abstraction.TaxCalculationService;
@@ -39,12 +44,13 @@ import rs.banka4.rafeisen.common.currency.CurrencyCode;
 public class SecuritiesServiceImpl implements SecuritiesService {
 
     private final AssetOwnershipRepository assetOwnershipRepository;
-    private final ListingRepository listingRepository;
+    private final ListingService listingService;
     private final ProfitCalculationService profitCalculator;
     private final ExchangeRateService exchangeRateService;
     private final UserTaxDebtsRepository userTaxDebtsRepository;
     private final TaxCalculationService taxCalculationService;
     private final OtcRequestRepository otcRequestRepository;
+    private final PositionRepository positionRepository;
 
     @Override
     public ResponseEntity<Page<SecurityDto>> getSecurities(
@@ -58,6 +64,7 @@ public class SecuritiesServiceImpl implements SecuritiesService {
     @Override
     public Page<SecurityHoldingDto> getMyPortfolio(UUID myId, Pageable pageable) {
         var ownerships = assetOwnershipRepository.findByUserId(myId, pageable);
+        var valuation = loadValuation(myId, ownerships.getContent());
         return ownerships.map(ownership -> {
             OptionType optionType = null;
             var asset =
@@ -65,34 +72,22 @@ public class SecuritiesServiceImpl implements SecuritiesService {
                     .getAsset();
             int publicAmount = asset instanceof Stock ? ownership.getPublicAmount() : 0;
             int totalAmount = ownership.getPrivateAmount() + publicAmount;
-            Optional<Listing> optionalListing;
             if (asset instanceof Option option) {
                 optionType = option.getOptionType();
-                optionalListing =
-                    listingRepository.getLatestListing(
-                        option.getStock()
-                            .getId(),
-                        Limit.of(1)
-                    );
-                var otc = otcRequestRepository.findByOptionId(option.getId());
-                if (otc.isPresent())
-                    totalAmount =
-                        otc.get()
-                            .getAmount();
-            } else {
-                optionalListing = listingRepository.getLatestListing(asset.getId(), Limit.of(1));
+                totalAmount =
+                    valuation.otcAmounts()
+                        .getOrDefault(option.getId(), totalAmount);
             }
-            var currentPrice =
-                optionalListing.map(
-                    listing -> new MonetaryAmount(
-                        listing.getBid(),
-                        listing.getExchange()
-                            .getCurrency()
-                    )
-                )
-                    .orElseThrow(AssetNotFound::new);
+            var currentPrice = valuation.currentPrice(asset);
 
-            var profit = profitCalculator.calculateProfit(myId, asset, currentPrice, totalAmount);
+            var profit =
+                profitCalculator.calculateProfit(
+                    valuation.positions()
+                        .get(asset.getId()),
+                    asset,
+                    currentPrice,
+                    totalAmount
+                );
             var ticker = asset.getTicker();
 
 //            var lastModified=orderRepository.findNewestOrder(myId,asset,true);
@@ -112,34 +107,29 @@ public class SecuritiesServiceImpl implements SecuritiesService {
 
     @Override
     public MonetaryAmount calculateTotalProfit(UUID myId) {
-        var ownerships = assetOwnershipRepository.findByUserId(myId);
+        var ownerships =
+            assetOwnershipRepository.findByUserId(myId)
+                .stream()
+                .filter(
+                    ownership -> ownership.getId()
+                        .getAsset() instanceof Stock
+                )
+                .toList();
+        var valuation = loadValuation(myId, ownerships);
 
         return ownerships.stream()
             .map(ownership -> {
                 var asset =
                     ownership.getId()
                         .getAsset();
-                if (asset instanceof Stock) {
-                    var listingOpt = listingRepository.getLatestListing(asset.getId(), Limit.of(1));
-                    var currentPrice =
-                        listingOpt.map(
-                            listing -> new MonetaryAmount(
-                                listing.getBid(),
-                                listing.getExchange()
-                                    .getCurrency()
-                            )
-                        )
-                            .orElseThrow(AssetNotFound::new);
-                    return profitCalculator.calculateProfit(
-                        myId,
-                        asset,
-                        currentPrice,
-                        ownership.getPrivateAmount() + ownership.getPublicAmount()
-                    );
-                }
-                return null;
+                return profitCalculator.calculateProfit(
+                    valuation.positions()
+                        .get(asset.getId()),
+                    asset,
+                    valuation.currentPrice(asset),
+                    ownership.getPrivateAmount() + ownership.getPublicAmount()
+                );
             })
-            .filter(Objects::nonNull)
             .reduce(new MonetaryAmount(BigDecimal.ZERO, CurrencyCode.USD), (m1, m2) -> {
                 if (
                     !m1.getCurrency()
@@ -182,6 +172,96 @@ public class SecuritiesServiceImpl implements SecuritiesService {
     }
 
 
+    /**
+     * Everything needed to value holdings besides the holdings themselves.
+     *
+     * @param listings quotes of active listings by security ID
+     * @param otcAmounts amounts of the OTC contracts of options, by option ID
+     * @param positions the positions of the user, by asset ID
+     */
+    private record Valuation(
+        Map<UUID, ListingQuote> listings,
+        Map<UUID, Integer> otcAmounts,
+        Map<UUID, Position> positions
+    ) {
+        /**
+         * @return the current price of {@code asset}, or of the underlying stock of an option
+         */
+        MonetaryAmount currentPrice(Asset asset) {
+            var listing = listings.get(quotedSecurityId(asset));
+            if (listing == null) throw new AssetNotFound();
+            return new MonetaryAmount(listing.bid(), listing.currency());
+        }
+    }
+
+    /**
+     * Loads the quotes, OTC amounts and positions of all the given holdings of a user, with one
+     * query for each kind rather than one per holding.
+     */
+    private Valuation loadValuation(UUID userId, List<AssetOwnership> ownerships) {
+        var assets =
+            ownerships.stream()
+                .map(
+                    ownership -> ownership.getId()
+                        .getAsset()
+                )
+                .toList();
+        if (assets.isEmpty()) return new Valuation(Map.of(), Map.of(), Map.of());
+
+        var listings =
+            listingService.findActiveListingsByAssets(
+                assets.stream()
+                    .map(SecuritiesServiceImpl::quotedSecurityId)
+                    .collect(Collectors.toSet())
+            );
+
+        var optionIds =
+            assets.stream()
+                .filter(Option.class::isInstance)
+                .map(Asset::getId)
+                .toList();
+        Map<UUID, Integer> otcAmounts =
+            optionIds.isEmpty()
+                ? Map.of()
+                : otcRequestRepository.findAllByOptionIdIn(optionIds)
+                    .stream()
+                    .collect(
+                        Collectors.toMap(
+                            OtcRequest::getOptionId,
+                            OtcRequest::getAmount,
+                            (first, second) -> first
+                        )
+                    );
+
+        var otherIds =
+            assets.stream()
+                .filter(asset -> !(asset instanceof Option))
+                .map(Asset::getId)
+                .toList();
+        Map<UUID, Position> positions =
+            otherIds.isEmpty()
+                ? Map.of()
+                : positionRepository.findAllByUserIdAndAssetIds(userId, otherIds)
+                    .stream()
+                    .collect(
+                        Collectors.toMap(
+                            position -> position.getId()
+                                .getAssetId(),
+                            Function.identity()
+                        )
+                    );
+
+        return new Valuation(listings, otcAmounts, positions);
+    }
+
+    /** Options are priced off the listing of their underlying stock. */
+    private static UUID quotedSecurityId(Asset asset) {
+        if (asset instanceof Option option)
+            return option.getStock()
+                .getId();
+        return asset.getId();
+    }
+
     private AssetTypeDto mapToAssetTypeDto(Asset asset) {
         if (asset instanceof Stock) {
             return AssetTypeDto.STOCK;
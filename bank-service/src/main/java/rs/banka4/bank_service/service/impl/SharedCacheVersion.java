@@ -0,0 +1,78 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * A counter shared by all replicas through Redis, which a process-local cache increments whenever
+ * it changes what it holds, and reads to find out when another replica did the same.
+ * <p>
+ * Without Redis, or with a sync interval of zero, there is no shared version: it is never read and
+ * incrementing it does nothing.
+ */
+@Slf4j
+final class SharedCacheVersion {
+    private final String key;
+    private final StringRedisTemplate redisTemplate;
+    private final long syncIntervalNanos;
+    private final AtomicLong nextSyncAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param key the Redis key holding the version
+     * @param redisConn the Redis connection, if there is one
+     * @param syncSeconds how often the version is read, at most
+     */
+    SharedCacheVersion(String key, RedisConnectionFactory redisConn, long syncSeconds) {
+        this.key = key;
+        this.syncIntervalNanos =
+            Duration.ofSeconds(syncSeconds)
+                .toNanos();
+        this.redisTemplate =
+            redisConn != null && syncSeconds > 0 ? new StringRedisTemplate(redisConn) : null;
+    }
+
+    /**
+     * @return the incremented version, or {@code null} if there is no shared version or it could
+     *         not be incremented
+     */
+    String increment() {
+        if (redisTemplate == null) return null;
+        try {
+            return String.valueOf(
+                redisTemplate.opsForValue()
+                    .increment(key)
+            );
+        } catch (DataAccessException e) {
+            log.warn("Failed to increment the shared cache version {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the version, unless it was already read during the current sync interval.
+     *
+     * @return the version, or empty if it was not read, could not be read or was never set
+     */
+    Optional<String> poll() {
+        if (redisTemplate == null) return Optional.empty();
+        final long now = System.nanoTime();
+        final long syncAt = nextSyncAt.get();
+        if (now - syncAt < 0 || !nextSyncAt.compareAndSet(syncAt, now + syncIntervalNanos))
+            return Optional.empty();
+
+        try {
+            return Optional.ofNullable(
+                redisTemplate.opsForValue()
+                    .get(key)
+            );
+        } catch (DataAccessException e) {
+            log.warn("Failed to read the shared cache version {}", key, e);
+            return Optional.empty();
+        }
+    }
+}
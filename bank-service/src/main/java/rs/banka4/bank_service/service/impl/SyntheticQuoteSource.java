@@ -0,0 +1,76 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
+import rs.banka4.bank_service.service.abstraction.QuoteSource;
+
+/**
+ * Makes up quotes: every fetch moves the price of each requested stock one step along a geometric
+ * random walk with volatility {@code listings.synthetic.volatility} per step. Every stock has its
+ * own generator seeded from {@code listings.synthetic.seed} and its ticker, so the same sequence of
+ * fetches always produces the same quotes.
+ */
+@Service
+@Profile("!test")
+@ConditionalOnProperty(
+    name = "listings.quote-source",
+    havingValue = "synthetic"
+)
+public class SyntheticQuoteSource implements QuoteSource {
+    private static final class Walk {
+        private final Random random;
+        private double price;
+
+        private Walk(Random random, double price) {
+            this.random = random;
+            this.price = price;
+        }
+    }
+
+    private final long seed;
+    private final double volatility;
+    private final Map<String, Walk> walks = new HashMap<>();
+
+    public SyntheticQuoteSource(
+        @Value("${listings.synthetic.seed:42}") long seed,
+        @Value("${listings.synthetic.volatility:0.002}") double volatility
+    ) {
+        this.seed = seed;
+        this.volatility = volatility;
+    }
+
+    @Override
+    public synchronized Map<String, StockQuote> fetchQuotes(Collection<String> tickers) {
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            Walk walk = walks.computeIfAbsent(ticker, this::startWalk);
+            double z = walk.random.nextGaussian();
+            walk.price *= Math.exp(volatility * z - volatility * volatility / 2);
+            quotes.put(
+                ticker,
+                new StockQuote(
+                    BigDecimal.valueOf(walk.price)
+                        .setScale(4, RoundingMode.HALF_UP),
+                    1000 + walk.random.nextInt(1_000_000)
+                )
+            );
+        }
+        return quotes;
+    }
+
+    /** Starts a stock at a price between 20 and 500, depending on its ticker. */
+    private Walk startWalk(String ticker) {
+        Random random = new Random(seed * 31 + ticker.hashCode());
+        return new Walk(random, 20 + random.nextDouble() * 480);
+    }
+}
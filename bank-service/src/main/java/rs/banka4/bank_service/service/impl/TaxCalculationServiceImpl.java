@@ -3,9 +3,12 @@ package rs.banka4.bank_service.service.impl;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import rs.banka4.bank_service.domain.account.db.Account;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
@@ -24,10 +27,13 @@ import rs.banka4.rafeisen.common.currency.CurrencyCode;
 @Service
 @RequiredArgsConstructor
 public class TaxCalculationServiceImpl implements TaxCalculationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaxCalculationServiceImpl.class);
+
     private final TransactionRepository transactionRepository;
     private final ExchangeRateService exchangeRateService;
     private final UserTaxDebtsRepository userTaxDebtsRepository;
     private final AccountRepository accountRepository;
+    private final TaxCollectionWriter taxCollectionWriter;
 
     public UserTaxInfoDto calculateTax(List<UserTaxDebts> debts) {
         var totalUnpaid =
@@ -111,20 +117,81 @@ public class TaxCalculationServiceImpl implements TaxCalculationService {
         userTaxDebtsRepository.save(debt);
 
         accountRepository.saveAll(List.of(accountFrom, accountTo));
-        transactionRepository.save(buildTransfer(accountFrom, accountTo, rawDebt, amountToDebit));
+        transactionRepository.save(
+            buildTransfer(
+                accountFrom.getAccountNumber(),
+                accountFrom.getCurrency(),
+                accountTo,
+                rawDebt,
+                amountToDebit
+            )
+        );
+    }
+
+    @Transactional
+    @Override
+    public int chargeTaxes(List<UUID> debtIds, Account stateAccount) {
+        final var rates = exchangeRateService.getExchangeRates();
+        final var charges = new ArrayList<TaxCollectionWriter.Charge>();
+        final var transfers = new ArrayList<Transaction>();
+        var collected = BigDecimal.ZERO;
+        for (var debt : taxCollectionWriter.lockDueDebts(debtIds)) {
+            if (
+                debt.availableBalance()
+                    .compareTo(debt.amount())
+                    < 0
+            ) {
+                LOGGER.error("Insufficient funds in account {}", debt.accountNumber());
+                continue;
+            }
+
+            var credited = debt.amount();
+            if (
+                !debt.currency()
+                    .equals(stateAccount.getCurrency())
+            ) {
+                credited =
+                    exchangeRateService.convertCurrency(
+                        rates,
+                        debt.amount(),
+                        debt.currency(),
+                        stateAccount.getCurrency()
+                    );
+            }
+            charges.add(new TaxCollectionWriter.Charge(debt, credited));
+            transfers.add(
+                buildTransfer(
+                    debt.accountNumber(),
+                    debt.currency(),
+                    stateAccount,
+                    debt.amount(),
+                    credited
+                )
+            );
+            collected = collected.add(credited);
+        }
+        if (charges.isEmpty()) return 0;
+
+        taxCollectionWriter.charge(charges);
+        taxCollectionWriter.insertTransactions(transfers);
+        /* Last, so that chunks charged in parallel hold the lock on the state account briefly. */
+        accountRepository.credit(stateAccount.getId(), collected);
+        return charges.size();
     }
 
     /**
      * Builds a transfer transaction between two accounts.
      *
-     * @param fromAccount the source account
+     * @param fromAccountNumber the number of the source account
+     * @param fromCurrency the currency of the source account
      * @param toAccount the destination account
      * @param fromAmount the amount debited from the source (in source currency)
      * @param toAmount the amount credited to the destination (in destination currency)
      * @return a new {@link Transaction} entity ready for persistence
      */
     private Transaction buildTransfer(
-        Account fromAccount,
+        String fromAccountNumber,
+        CurrencyCode fromCurrency,
         Account toAccount,
         BigDecimal fromAmount,
         BigDecimal toAmount
@@ -135,9 +202,9 @@ public class TaxCalculationServiceImpl implements TaxCalculationService {
                 UUID.randomUUID()
                     .toString()
             )
-            .fromAccount(fromAccount.getAccountNumber())
+            .fromAccount(fromAccountNumber)
             .toAccount(toAccount.getAccountNumber())
-            .from(new MonetaryAmount(fromAmount, fromAccount.getCurrency()))
+            .from(new MonetaryAmount(fromAmount, fromCurrency))
             .to(new MonetaryAmount(toAmount, toAccount.getCurrency()))
             .recipient(toAccount.getClient().firstName)
             .paymentCode("101")
@@ -0,0 +1,181 @@
+package rs.banka4.bank_service.service.impl;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import rs.banka4.bank_service.domain.transaction.db.Transaction;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+/**
+ * Reads and charges chunks of tax debts with plain SQL, bypassing Hibernate. Each chunk is locked
+ * with one query, and its debits and transfers are written as JDBC batches instead of one
+ * statement per entity.
+ * <p>
+ * All methods run in the transaction of the caller. The persistence context knows nothing about
+ * the rows written here, so managed copies of the same accounts, debts or transactions must not be
+ * modified in that transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaxCollectionWriter {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** A debt which is due, with the balance of the account it is charged from. */
+    public record DueDebt(
+        UUID debtId,
+        UUID accountId,
+        String accountNumber,
+        CurrencyCode currency,
+        BigDecimal availableBalance,
+        BigDecimal amount
+    ) {
+    }
+
+    /**
+     * A debt to charge in full from its account, and the amount it adds to the yearly debt (in the
+     * currency of the state account).
+     */
+    public record Charge(DueDebt debt, BigDecimal credited) {
+    }
+
+    /**
+     * Locks the given debts which are still due, along with their accounts, until the end of the
+     * transaction.
+     *
+     * @return the due debts, in ID order
+     */
+    public List<DueDebt> lockDueDebts(Collection<UUID> debtIds) {
+        if (debtIds.isEmpty()) return List.of();
+        return jdbcTemplate.query("""
+            SELECT d.id, d.debt_amount, a.id AS account_id, a.account_number, a.currency,
+                   a.available_balance
+            FROM user_tax_debts d
+            JOIN accounts a ON a.id = d.account_id
+            WHERE d.id IN (:ids)
+              AND d.debt_amount > 0
+            ORDER BY d.id
+            FOR UPDATE
+            """,
+            new MapSqlParameterSource("ids", debtIds),
+            (rs, rowNum) -> new DueDebt(
+                rs.getObject("id", UUID.class),
+                rs.getObject("account_id", UUID.class),
+                rs.getString("account_number"),
+                CurrencyCode.valueOf(rs.getString("currency")),
+                rs.getBigDecimal("available_balance"),
+                rs.getBigDecimal("debt_amount")
+            )
+        );
+    }
+
+    /**
+     * Debits each debt from its account, clears it and adds the credited amount to its yearly debt.
+     */
+    public void charge(List<Charge> charges) {
+        jdbcTemplate.batchUpdate("""
+            UPDATE accounts
+            SET balance = balance - :amount,
+                available_balance = available_balance - :amount
+            WHERE id = :accountId
+            """,
+            charges.stream()
+                .map(Charge::debt)
+                .map(
+                    debt -> new MapSqlParameterSource("accountId", debt.accountId())
+                        .addValue("amount", debt.amount())
+                )
+                .toArray(SqlParameterSource[]::new)
+        );
+        jdbcTemplate.batchUpdate("""
+            UPDATE user_tax_debts
+            SET debt_amount = 0,
+                yearly_debt_amount = yearly_debt_amount + :credited
+            WHERE id = :debtId
+            """,
+            charges.stream()
+                .map(
+                    charge -> new MapSqlParameterSource(
+                        "debtId",
+                        charge.debt()
+                            .debtId()
+                    ).addValue("credited", charge.credited())
+                )
+                .toArray(SqlParameterSource[]::new)
+        );
+    }
+
+    /** Inserts new transactions. */
+    public void insertTransactions(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO transactions
+                (id, transaction_number, from_account, to_account, from_amount, from_currency,
+                 to_amount, to_currency, fee_amount, fee_currency, recipient, payment_code,
+                 reference_number, payment_purpose, payment_date_time, status, is_transfer)
+            VALUES
+                (:id, :transactionNumber, :fromAccount, :toAccount, :fromAmount,
+                 CAST(:fromCurrency AS currency), :toAmount, CAST(:toCurrency AS currency),
+                 :feeAmount, CAST(:feeCurrency AS currency), :recipient, :paymentCode,
+                 :referenceNumber, :paymentPurpose, :paymentDateTime, :status, :isTransfer)
+            """,
+            transactions.stream()
+                .map(
+                    tx -> new MapSqlParameterSource("id", tx.getId())
+                        .addValue("transactionNumber", tx.getTransactionNumber())
+                        .addValue("fromAccount", tx.getFromAccount())
+                        .addValue("toAccount", tx.getToAccount())
+                        .addValue(
+                            "fromAmount",
+                            tx.getFrom()
+                                .getAmount()
+                        )
+                        .addValue(
+                            "fromCurrency",
+                            tx.getFrom()
+                                .getCurrency()
+                                .name()
+                        )
+                        .addValue(
+                            "toAmount",
+                            tx.getTo()
+                                .getAmount()
+                        )
+                        .addValue(
+                            "toCurrency",
+                            tx.getTo()
+                                .getCurrency()
+                                .name()
+                        )
+                        .addValue(
+                            "feeAmount",
+                            tx.getFee()
+                                .getAmount()
+                        )
+                        .addValue(
+                            "feeCurrency",
+                            tx.getFee()
+                                .getCurrency()
+                                .name()
+                        )
+                        .addValue("recipient", tx.getRecipient())
+                        .addValue("paymentCode", tx.getPaymentCode())
+                        .addValue("referenceNumber", tx.getReferenceNumber())
+                        .addValue("paymentPurpose", tx.getPaymentPurpose())
+                        .addValue("paymentDateTime", Timestamp.valueOf(tx.getPaymentDateTime()))
+                        .addValue(
+                            "status",
+                            tx.getStatus()
+                                .name()
+                        )
+                        .addValue("isTransfer", tx.isTransfer())
+                )
+                .toArray(SqlParameterSource[]::new)
+        );
+    }
+}
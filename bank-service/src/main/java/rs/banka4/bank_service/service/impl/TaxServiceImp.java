@@ -2,9 +2,16 @@ package rs.banka4.bank_service.service.impl;
 
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -15,10 +22,11 @@ import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.domain.taxes.db.TaxCollectionRun;
 import rs.banka4.bank_service.domain.taxes.db.UserTaxDebts;
 import rs.banka4.bank_service.domain.taxes.db.dto.TaxableUserDto;
-import rs.banka4.bank_service.exceptions.transaction.InsufficientFunds;
 import rs.banka4.bank_service.repositories.AccountRepository;
+import rs.banka4.bank_service.repositories.TaxCollectionRunRepository;
 import rs.banka4.bank_service.repositories.UserTaxDebtsRepository;
 import rs.banka4.bank_service.service.abstraction.ProfitCalculationService;
 import rs.banka4.bank_service.service.abstraction.TaxCalculationService;
@@ -28,10 +36,17 @@ import rs.banka4.bank_service.utils.DataSourceService;
 @Service
 @RequiredArgsConstructor
 public class TaxServiceImp implements TaxService {
+    private static final int CHUNK_SIZE = 500;
+    private static final int PARALLEL_CHUNKS = 4;
+    /** Lower than any other UUID, in the order Postgres sorts them. */
+    private static final UUID FIRST_DEBT_ID = new UUID(0, 0);
+
     private final UserTaxDebtsRepository userTaxDebtsRepository;
     private final TaxCalculationService taxCalculationService;
     private final AccountRepository accountRepository;
     private final ProfitCalculationService profitCalculationService;
+    private final TaxCollectionRunRepository taxCollectionRunRepository;
+    private final BulkUpdates bulkUpdates;
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(TaxServiceImp.class);
 
     @Override
@@ -60,20 +75,87 @@ public class TaxServiceImp implements TaxService {
         debts.forEach(debt -> taxCalculationService.chargeTax(debt.getAccount(), stateAcc));
     }
 
+    /**
+     * Charges all due debts. Their IDs are read in chunks of {@link #CHUNK_SIZE} in ID order, and
+     * up to {@link #PARALLEL_CHUNKS} chunks are charged at the same time, each in its own
+     * transaction. The run records the last debt charged after each round of chunks, so if it is
+     * interrupted, the next call in the same month resumes it instead of starting over.
+     */
     @Scheduled(cron = "0 0 0 1 * *")
     @Override
     public void taxMonthly() {
         var stateAcc =
             accountRepository.findAccountByAccountNumber(DataSourceService.STATE_ACCOUNT_NUMBER)
                 .orElseThrow(() -> new IllegalArgumentException("State account not found"));
-        userTaxDebtsRepository.findAll()
-            .forEach(debt -> {
-                try {
-                    taxCalculationService.chargeTax(debt.getAccount(), stateAcc);
-                } catch (InsufficientFunds e) {
-                    logger.error("Insufficient funds in account " + debt.getAccount());
+        var run = currentRun();
+        if (run.getLastDebtId() != null)
+            logger.info(
+                "Resuming tax collection run {} after debt {}",
+                run.getId(),
+                run.getLastDebtId()
+            );
+
+        var after = run.getLastDebtId() != null ? run.getLastDebtId() : FIRST_DEBT_ID;
+        int charged = 0;
+        boolean exhausted = false;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!exhausted) {
+                var chunks = new ArrayList<CompletableFuture<Integer>>(PARALLEL_CHUNKS);
+                while (!exhausted && chunks.size() < PARALLEL_CHUNKS) {
+                    var ids =
+                        userTaxDebtsRepository.findDueDebtIdsAfter(after, Limit.of(CHUNK_SIZE));
+                    exhausted = ids.size() < CHUNK_SIZE;
+                    if (ids.isEmpty()) break;
+                    after = ids.getLast();
+                    chunks.add(
+                        CompletableFuture.supplyAsync(
+                            () -> taxCalculationService.chargeTaxes(ids, stateAcc),
+                            executor
+                        )
+                    );
                 }
-            });
+                /* A failed chunk fails the run before it is marked, so it is retried on resume. */
+                for (var chunk : chunks) charged += chunk.join();
+                run.setLastDebtId(after);
+                run = taxCollectionRunRepository.save(run);
+            }
+        }
+
+        run.setFinishedAt(OffsetDateTime.now());
+        taxCollectionRunRepository.save(run);
+        logger.info("Tax collection run {} charged {} debts", run.getId(), charged);
+    }
+
+    /**
+     * Returns the interrupted run of this month, or starts a new one. A run only covers the month
+     * it was started in, as debts which became due since then may have any ID, including ones
+     * before its last charged debt. An interrupted run of an earlier month is therefore closed,
+     * and the new run starts from the first due debt.
+     */
+    private TaxCollectionRun currentRun() {
+        var open = taxCollectionRunRepository.findFirstByFinishedAtIsNullOrderByStartedAtDesc();
+        if (open.isPresent()) {
+            var run = open.get();
+            var startedIn =
+                YearMonth.from(
+                    run.getStartedAt()
+                        .atZoneSameInstant(ZoneId.systemDefault())
+                );
+            if (startedIn.equals(YearMonth.now())) return run;
+
+            logger.warn(
+                "Closing tax collection run {} interrupted in {}, starting over",
+                run.getId(),
+                startedIn
+            );
+            run.setFinishedAt(OffsetDateTime.now());
+            taxCollectionRunRepository.save(run);
+        }
+        return taxCollectionRunRepository.save(
+            TaxCollectionRun.builder()
+                .startedAt(OffsetDateTime.now())
+                .build()
+        );
     }
 
     @Transactional
@@ -131,10 +213,6 @@ public class TaxServiceImp implements TaxService {
 
     @Scheduled(cron = "0 0 0 1 1 *")
     public void cleanYearlyDebt() {
-        userTaxDebtsRepository.findAll()
-            .forEach(debt -> {
-                debt.setYearlyDebtAmount(BigDecimal.ZERO);
-                userTaxDebtsRepository.save(debt);
-            });
+        bulkUpdates.run("reset-yearly-tax-debts", userTaxDebtsRepository::resetYearlyDebts);
     }
 }
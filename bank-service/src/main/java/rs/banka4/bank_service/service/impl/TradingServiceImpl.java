@@ -18,7 +18,6 @@ import rs.banka4.bank_service.domain.orders.db.Status;
 import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
 import rs.banka4.bank_service.domain.trading.db.OtcRequest;
 import rs.banka4.bank_service.exceptions.user.UserNotFound;
-import rs.banka4.bank_service.repositories.OrderRepository;
 import rs.banka4.bank_service.repositories.UserRepository;
 import rs.banka4.bank_service.service.abstraction.*;
 import rs.banka4.bank_service.tx.TxExecutor;
@@ -34,8 +33,9 @@ public class TradingServiceImpl implements TradingService {
     private final ExchangeRateService exchangeRateService;
     private final BankAccountService bankAccountService;
     private final UserRepository userRepository;
-    private final OrderRepository orderRepository;
+    private final AssetVolumeService assetVolumeService;
     private final TaxService taxService;
+    private final PositionLedgerService positionLedgerService;
 
     @Override
     public void sendPremiumAndGetOption(OtcRequest otcRequest) {
@@ -358,7 +358,11 @@ public class TradingServiceImpl implements TradingService {
                 .account(a)
                 .used(true)
                 .build();
-        orderRepository.save(order);
+        positionLedgerService.saveExecutedOrder(order);
+        assetVolumeService.recordOrder(
+            order.getAsset()
+                .getId()
+        );
         taxService.addTaxForOtcToDB(o, a, amount);
     }
 
@@ -510,7 +514,11 @@ public class TradingServiceImpl implements TradingService {
                 .account(a)
                 .used(true)
                 .build();
-        orderRepository.save(order);
+        positionLedgerService.saveExecutedOrder(order);
+        assetVolumeService.recordOrder(
+            order.getAsset()
+                .getId()
+        );
     }
 
     @Override
@@ -606,7 +614,11 @@ public class TradingServiceImpl implements TradingService {
                     taxService.addTaxForOtcToDB(o, acc, amount);
                 }
             }
-            orderRepository.save(order);
+            positionLedgerService.saveExecutedOrder(order);
+            assetVolumeService.recordOrder(
+                order.getAsset()
+                    .getId()
+            );
         }
     }
 }
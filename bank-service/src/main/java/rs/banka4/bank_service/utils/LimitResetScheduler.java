@@ -1,42 +1,28 @@
 package rs.banka4.bank_service.utils;
 
-import jakarta.transaction.Transactional;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import rs.banka4.bank_service.domain.actuaries.db.ActuaryInfo;
 import rs.banka4.bank_service.repositories.ActuaryRepository;
-import rs.banka4.bank_service.service.impl.EmployeeServiceImpl;
+import rs.banka4.bank_service.service.impl.BulkUpdates;
 
 @Component
 @RequiredArgsConstructor
 public class LimitResetScheduler {
     private final ActuaryRepository actuaryInfoRepository;
+    private final BulkUpdates bulkUpdates;
 
     /**
      * <p>
-     * Scheduled task that resets the {@code usedLimit} to 10,000 RSD for all agents (who require
-     * approval) (i.e., {@code needApproval == true}).
+     * Scheduled task that resets the {@code usedLimit} to 0 for all agents (who require approval)
+     * (i.e., {@code needApproval == true}).
      * </p>
      * <p>
-     * This method runs daily at midnight and updates the database in a single transaction.
+     * This method runs daily at midnight and updates the database with a single statement.
      * </p>
      */
     @Scheduled(cron = "0 0 0 * * *")
-    @Transactional
     public void resetUsedLimit() {
-        List<ActuaryInfo> toReset = actuaryInfoRepository.findByNeedApprovalTrue();
-
-        for (ActuaryInfo info : toReset) {
-            if (info.getUsedLimit() == null) continue;
-            info.setUsedLimit(
-                EmployeeServiceImpl.resetLimit(
-                    info.getUsedLimit()
-                        .getCurrency()
-                )
-            );
-        }
-        actuaryInfoRepository.saveAll(toReset);
+        bulkUpdates.run("reset-agent-used-limits", actuaryInfoRepository::resetAgentUsedLimits);
     }
 }
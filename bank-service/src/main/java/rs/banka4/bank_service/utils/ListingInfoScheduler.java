@@ -1,45 +1,42 @@
 package rs.banka4.bank_service.utils;
 
 import jakarta.transaction.Transactional;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import rs.banka4.bank_service.domain.exchanges.db.Exchange;
-import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
-import rs.banka4.bank_service.domain.security.Security;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
+import rs.banka4.bank_service.repositories.DailyQuoteAggregateRepository;
 import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
-import rs.banka4.bank_service.repositories.ListingRepository;
-import rs.banka4.bank_service.repositories.SecurityRepository;
+import rs.banka4.bank_service.repositories.PriceHistoryRollupRepository;
 import rs.banka4.bank_service.runners.ListingsDataRunner;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
 
 @Profile("!test")
 @Component
 @RequiredArgsConstructor
 public class ListingInfoScheduler {
 
-    private final SecurityRepository securityRepository;
+    private final ListingDailyPriceInfoRepository listingDailyPriceInfoRepository;
 
-    private final ListingRepository listingRepository;
+    private final DailyQuoteAggregateRepository dailyQuoteAggregateRepository;
 
-    private final ListingDailyPriceInfoRepository listingDailyPriceInfoRepository;
+    private final PriceHistoryRollupRepository priceHistoryRollupRepository;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ListingInfoScheduler.class);
 
-    // @Scheduled(fixedDelayString = "#{7l * 60l * 1000l}")
+    /**
+     * Writes yesterday's {@link ListingDailyPriceInfo} of every security at once, from the
+     * aggregates accumulated as listings were refreshed during the day. Any info already written
+     * for yesterday is replaced. Weekly and monthly price history rollups are then updated with
+     * the new info.
+     */
     @Scheduled(
         cron = "0 1 0 * * *",
         zone = "Europe/Belgrade"
@@ -55,148 +52,41 @@ public class ListingInfoScheduler {
 
         LOGGER.info("Starting scheduleListingInfoUpdates");
 
-        ZoneId zoneBelgrade = ZoneId.of("Europe/Belgrade");
-        ZonedDateTime nowBelgrade = ZonedDateTime.now(zoneBelgrade);
-        // ZonedDateTime nowBelgrade = ZonedDateTime.now(zoneBelgrade) .plusDays(1); // only for
-        // testing
-        ZonedDateTime startOfToday = nowBelgrade.truncatedTo(ChronoUnit.DAYS);
-
+        LocalDate yesterday =
+            LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE)
+                .minusDays(1);
         OffsetDateTime startOfYesterday =
-            startOfToday.minusDays(1)
+            yesterday.atStartOfDay(AssetVolumeService.TRADING_DAY_ZONE)
+                .toOffsetDateTime();
+        OffsetDateTime endOfYesterday =
+            yesterday.plusDays(1)
+                .atStartOfDay(AssetVolumeService.TRADING_DAY_ZONE)
                 .toOffsetDateTime();
-        OffsetDateTime endOfYesterday = startOfToday.toOffsetDateTime();
 
         LOGGER.info("startOfYesterday: {}, endOfYesterday: {}", startOfYesterday, endOfYesterday);
 
-        List<ListingDailyPriceInfo> ldpis = new ArrayList<>();
-        List<Security> securities = securityRepository.findAll();
-        for (Security s : securities) {
-
-            ListingDailyPriceInfo ldpi =
-                makeYesterdaysListingDailyPriceInfo(s, startOfYesterday, endOfYesterday);
-            if (ldpi == null) continue;
-
-            Optional<List<ListingDailyPriceInfo>> yesterdaysInfoOptional =
-                listingDailyPriceInfoRepository.getListingDailyPriceInfoForDate(
-                    s.getId(),
-                    startOfYesterday,
-                    endOfYesterday
-                );
-
-            if (
-                yesterdaysInfoOptional.isPresent()
-                    && !yesterdaysInfoOptional.get()
-                        .isEmpty()
-            ) {
-                LOGGER.error(
-                    "There is already yesterday's listing info! Count: {}. Security: {}",
-                    yesterdaysInfoOptional.get()
-                        .size(),
-                    s.getTicker()
-                );
-                LOGGER.error("Deleting before new save.");
-                listingDailyPriceInfoRepository.deleteListingDailyPriceInfoForDate(
-                    s.getId(),
-                    startOfYesterday,
-                    endOfYesterday
-                );
-            }
-
-            ldpis.add(ldpi);
+        int deleted =
+            listingDailyPriceInfoRepository.deleteAllForDate(startOfYesterday, endOfYesterday);
+        if (deleted > 0) {
+            LOGGER.error("There was already yesterday's listing info! Count: {}", deleted);
+            LOGGER.error("Deleted it before the new save.");
         }
 
-        LOGGER.info(
-            "Finished scheduleListingInfoUpdates for {} out of {} securities in the system.",
-            ldpis.size(),
-            securities.size()
-        );
-
-        listingDailyPriceInfoRepository.saveAllAndFlush(ldpis);
-    }
-
-    public ListingDailyPriceInfo makeYesterdaysListingDailyPriceInfo(
-        Security s,
-        OffsetDateTime startOfYesterday,
-        OffsetDateTime endOfYesterday
-    ) {
-        UUID securityId = s.getId();
-
-        Optional<List<Listing>> yesterdaysListings =
-            listingRepository.getAllSecurityListingsInAPeriod(
-                securityId,
+        int inserted =
+            listingDailyPriceInfoRepository.insertFromDailyQuoteAggregates(
+                yesterday,
                 startOfYesterday,
-                endOfYesterday
+                endOfYesterday.minusHours(12)
             );
-
-        if (
-            !yesterdaysListings.isPresent()
-                || yesterdaysListings.get()
-                    .isEmpty()
-        ) {
-            LOGGER.error("No yesterday listings for {}", s.getTicker());
-            return null;
-        }
-
-        Exchange exchange =
-            yesterdaysListings.get()
-                .getFirst()
-                .getExchange();
-        BigDecimal askHigh = BigDecimal.ZERO;
-        BigDecimal bigLow = BigDecimal.valueOf(1e15);
-        for (Listing l : yesterdaysListings.get()) {
-            bigLow =
-                l.getBid()
-                    .min(bigLow);
-            askHigh =
-                l.getAsk()
-                    .max(askHigh);
-        }
-
-        Listing lastListing =
-            yesterdaysListings.get()
-                .getLast(); // more than 1 shouldn't exist anyways
-
-        Optional<List<ListingDailyPriceInfo>> twoDaysAgoInfoOpt =
-            listingDailyPriceInfoRepository.getListingDailyPriceInfoForDate(
-                s.getId(),
-                startOfYesterday.minusDays(1),
-                endOfYesterday.minusDays(1)
+        dailyQuoteAggregateRepository.deleteAllBefore(yesterday);
+        for (var resolution : List.of(PriceHistoryResolution.WEEK, PriceHistoryResolution.MONTH))
+            priceHistoryRollupRepository.rollUp(
+                resolution.name(),
+                resolution.truncField(),
+                startOfYesterday,
+                endOfYesterday
             );
 
-
-        ListingDailyPriceInfo twoDaysAgoInfo = null;
-        if (
-            twoDaysAgoInfoOpt.isPresent()
-                && !twoDaysAgoInfoOpt.get()
-                    .isEmpty()
-        ) {
-            twoDaysAgoInfo =
-                twoDaysAgoInfoOpt.get()
-                    .getLast();
-        }
-
-        BigDecimal lastPrice =
-            lastListing.getAsk()
-                .add(lastListing.getBid())
-                .divide(BigDecimal.valueOf(2), RoundingMode.DOWN);
-        BigDecimal twoDaysAgoPrice;
-        if (twoDaysAgoInfo != null) twoDaysAgoPrice = twoDaysAgoInfo.getLastPrice();
-        else {
-            twoDaysAgoPrice = lastPrice;
-            // fake info change = 0 but the program will be able to start somewhere
-        }
-        return ListingDailyPriceInfo.builder()
-            .askHigh(askHigh)
-            .bigLow(bigLow)
-            .security(s)
-            .exchange(exchange)
-            .date(endOfYesterday.minusHours(12))
-            .lastPrice(lastPrice)
-            .volume(
-                yesterdaysListings.get()
-                    .size() // This should be fixed once we have orders in the db
-            )
-            .change(lastPrice.subtract(twoDaysAgoPrice))
-            .build();
+        LOGGER.info("Finished scheduleListingInfoUpdates for {} securities.", inserted);
     }
 }
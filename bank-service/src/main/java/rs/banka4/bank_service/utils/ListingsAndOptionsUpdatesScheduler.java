@@ -6,9 +6,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,14 +18,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import rs.banka4.bank_service.config.retrofit.AlphaVantageService;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 import rs.banka4.bank_service.domain.exchanges.db.Exchange;
 import rs.banka4.bank_service.domain.listing.db.Listing;
-import rs.banka4.bank_service.domain.listing.dtos.ListingApiDto;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
 import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.options.db.OptionsMaker;
 import rs.banka4.bank_service.domain.security.Security;
+import rs.banka4.bank_service.domain.security.forex.db.ForexCrossRates;
 import rs.banka4.bank_service.domain.security.forex.db.ForexLiquidity;
 import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
 import rs.banka4.bank_service.domain.security.forex.dtos.ForexPairApiDto;
@@ -32,6 +36,11 @@ import rs.banka4.bank_service.domain.security.stock.db.Stock;
 import rs.banka4.bank_service.exceptions.ExchangeAcronymNotFound;
 import rs.banka4.bank_service.repositories.*;
 import rs.banka4.bank_service.runners.ListingsDataRunner;
+import rs.banka4.bank_service.service.abstraction.ListingService;
+import rs.banka4.bank_service.service.abstraction.QuoteSource;
+import rs.banka4.bank_service.service.impl.MarketDataBulkWriter;
+import rs.banka4.bank_service.service.impl.MarketDataFetcher;
+import rs.banka4.bank_service.service.impl.MarketDataSnapshotStore;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 
 
@@ -43,6 +52,8 @@ public class ListingsAndOptionsUpdatesScheduler {
     // TODO first update ^
     private static final Logger LOGGER =
         LoggerFactory.getLogger(ListingsAndOptionsUpdatesScheduler.class);
+    /** The only currency whose exchange rates are fetched; all others are derived. */
+    private static final CurrencyCode FOREX_BASE_CURRENCY = CurrencyCode.USD;
 
     private final ForexRepository forexPairRepository;
     private final StockRepository stockRepository;
@@ -50,7 +61,15 @@ public class ListingsAndOptionsUpdatesScheduler {
     private final ListingRepository listingRepository;
     private final ExchangeRepository exchangeRepository;
     private final OptionsRepository optionsRepository;
+    private final QuoteHistoryRepository quoteHistoryRepository;
+    private final DailyQuoteAggregateRepository dailyQuoteAggregateRepository;
     private final AlphaVantageService alphaRetrofit;
+    private final ListingService listingService;
+    private final MarketDataBulkWriter marketDataBulkWriter;
+    private final MarketDataFetcher marketDataFetcher;
+    private final QuoteSource quoteSource;
+    private final MarketDataSnapshotStore snapshotStore;
+    private final TransactionTemplate transactionTemplate;
 
     private Map<String, Exchange> exchangesMap;
     private Map<String, Stock> stocksMap;
@@ -69,9 +88,13 @@ public class ListingsAndOptionsUpdatesScheduler {
             );
     }
 
+    /**
+     * Fetches fresh quotes for all forex pairs and stocks, then saves them together with new
+     * listings and options. All fetching happens before the transaction starts, so that the
+     * connection is only held for the final bulk write.
+     */
     @Scheduled(fixedDelayString = "#{${listings.refetch-min} * 60l * 1000l}")
-    @Transactional
-    public void updateListingsAndOptions() {
+    public synchronized void updateListingsAndOptions() {
         if (!ListingsDataRunner.finishedSeeding) {
             System.out.println(
                 "Database not seeded yet. Skipping scheduled update of listings and options."
@@ -85,39 +108,108 @@ public class ListingsAndOptionsUpdatesScheduler {
                 .toLocalTime()
                 .truncatedTo(ChronoUnit.SECONDS)
         );
+        final long start = System.nanoTime();
 
+        List<ForexPair> forexPairs;
         try {
-            refreshForexPairs();
-            LOGGER.info("Forex pairs updated");
+            forexPairs = fetchForexPairs();
+            LOGGER.info("Forex pairs fetched");
         } catch (Exception e) {
             LOGGER.error("Error occurred while fetching forex pairs: {}", e.getMessage());
+            forexPairs = List.of();
         }
 
-        long listingsBefore = listingRepository.count();
-        long optionsBefore = optionsRepository.count();
-
-        // throwing an error after logging in so the @Transaction would fail
+        final List<Listing> stockListings;
         try {
-            updateListings();
-            LOGGER.info("Listings updated");
+            stockListings = fetchStockListings();
+            LOGGER.info("Listings fetched");
         } catch (Exception e) {
             LOGGER.error("Error occurred while fetching listings: {}", e.getMessage());
             throw new RuntimeException("Error occurred while fetching listings", e);
         }
 
+        final long fetchedAt = System.nanoTime();
+        final var fetchedForexPairs = forexPairs;
+        transactionTemplate.executeWithoutResult(status -> {
+            long listingsBefore = listingRepository.count();
+            long optionsBefore = optionsRepository.count();
+
+            if (!fetchedForexPairs.isEmpty())
+                forexPairRepository.saveAllAndFlush(fetchedForexPairs);
+            saveListings(stockListings);
+            LOGGER.info("Listings updated");
+
+            try {
+                updateOptions();
+                LOGGER.info("Options updated");
+            } catch (Exception e) {
+                LOGGER.error("Error occurred while fetching options: {}", e.getMessage());
+                throw new RuntimeException("Error occurred while making options", e);
+            }
+
+            long listingsAfter = listingRepository.count();
+            long optionsAfter = optionsRepository.count();
+
+            LOGGER.info("Listings: before = {}, after = {}", listingsBefore, listingsAfter);
+            LOGGER.info("Options:  before = {}, after = {}", optionsBefore, optionsAfter);
+        });
+
+        LOGGER.info(
+            "Listings and options updated: fetching took {} ms, writing took {} ms",
+            (fetchedAt - start) / 1_000_000,
+            (System.nanoTime() - fetchedAt) / 1_000_000
+        );
+        writeSnapshot();
+    }
+
+    /**
+     * Refreshes stock listings only, in between the full refreshes. Forex and future listings are
+     * left alone, and only the refreshed stocks are appended to the quote history, folded into the
+     * daily aggregates and reloaded into the quote cache. Options are not regenerated, so their
+     * premiums only change on a full refresh; their greeks are computed from the cached stock
+     * quotes, so those follow every tick. Only scheduled when the {@link QuoteSource} is local,
+     * see {@link LocalQuoteFeedScheduler}.
+     */
+    public synchronized void refreshStockQuotes() {
+        if (!ListingsDataRunner.finishedSeeding) return;
+
+        final long start = System.nanoTime();
+        final List<Listing> stockListings;
         try {
-            updateOptions();
-            LOGGER.info("Options updated");
+            stockListings = fetchStockListings();
         } catch (Exception e) {
-            LOGGER.error("Error occurred while fetching options: {}", e.getMessage());
-            throw new RuntimeException("Error occurred while making options", e);
+            LOGGER.error("Error occurred while fetching listings: {}", e.getMessage());
+            return;
         }
+        if (stockListings.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status -> saveStockListings(stockListings));
+        LOGGER.debug(
+            "Refreshed {} stock quotes in {} ms",
+            stockListings.size(),
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
 
-        long listingsAfter = listingRepository.count();
-        long optionsAfter = optionsRepository.count();
-
-        LOGGER.info("Listings: before = {}, after = {}", listingsBefore, listingsAfter);
-        LOGGER.info("Options:  before = {}, after = {}", optionsBefore, optionsAfter);
+    /**
+     * Writes the current stocks, forex pairs and active listings to the market data snapshot, so
+     * that the next cold start does not have to wait for AlphaVantage.
+     */
+    public void writeSnapshot() {
+        try {
+            snapshotStore.write(
+                new MarketDataSnapshotStore.Snapshot(
+                    Instant.now(),
+                    stockRepository.findAll(),
+                    forexPairRepository.findAll(),
+                    listingRepository.findAllActiveListings()
+                        .stream()
+                        .map(MarketDataSnapshotStore.Quote::of)
+                        .toList()
+                )
+            );
+        } catch (IOException e) {
+            LOGGER.error("Error occurred while writing market data snapshot: {}", e.getMessage());
+        }
     }
 
     Map<String, Exchange> makeExchangeMap() {
@@ -136,43 +228,14 @@ public class ListingsAndOptionsUpdatesScheduler {
         return stocksMap;
     }
 
-    private Listing fetchListingInfo(
-        String ticker,
-        Stock stock,
-        String exchangeAcronym,
-        Map<String, Exchange> exchangesMap
-    ) throws IOException {
-        retrofit2.Call<ListingApiDto> call =
-            alphaRetrofit.getListingInfo("GLOBAL_QUOTE", ticker, vantageKey);
-
-        ListingApiDto listingApiDto =
-            call.execute()
-                .body();
-
-        double price = 0.0;
-        long fakeContractSize = 0L;
-        try {
-            price =
-                Double.parseDouble(
-                    listingApiDto.globalQuoteDto()
-                        .priceStr()
-                );
-            fakeContractSize =
-                Long.parseLong(
-                    listingApiDto.globalQuoteDto()
-                        .volumeStr()
-                ) / 1000L;
-            fakeContractSize = Long.max(1L, fakeContractSize);
-        } catch (Exception e) {
-            LOGGER.error("{}", e.getMessage());
-        }
+    private Listing makeListing(StockQuote quote, Stock stock, Exchange exchange) {
+        double price =
+            quote.price()
+                .doubleValue();
+        long fakeContractSize = Long.max(1L, quote.volume() / 1000L);
 
         double fakeBid = price * 0.993;
         double fakeAsk = price * 1.007;
-        /*
-         * System.out.println("----------------"); System.out.println(exchangesMap.get(stock));
-         * System.out.println(stock); System.out.println("--------------");
-         */
         return Listing.builder()
             .id(UUID.randomUUID())
             .ask(new BigDecimal(fakeAsk))
@@ -180,12 +243,28 @@ public class ListingsAndOptionsUpdatesScheduler {
             .contractSize((int) fakeContractSize)
             .active(true)
             .lastRefresh(OffsetDateTime.now())
-            .exchange(exchangesMap.get(exchangeAcronym))
+            .exchange(exchange)
             .security(stock)
             .build();
     }
 
-    public void updateListings() throws IOException, InterruptedException {
+    /**
+     * Fetches and saves new stock listings, and makes new listings for all forex pairs and
+     * futures.
+     */
+    public void updateListings() throws IOException {
+        saveListings(fetchStockListings());
+    }
+
+    private record TickerExchange(String ticker, String exchange) {
+    }
+
+    /**
+     * Fetches a quote for every stock in {@code ticker_exchange.csv} from the {@link QuoteSource}.
+     * Stocks whose quote could not be fetched keep the prices of their current listing, so that
+     * they do not lose their listing.
+     */
+    private List<Listing> fetchStockListings() throws IOException {
         try {
             srbForexExchange = getExchange("SRBFORX");
             srbFutureExchange = getExchange("SRBFUTU");
@@ -198,8 +277,7 @@ public class ListingsAndOptionsUpdatesScheduler {
         exchangesMap = makeExchangeMap();
         stocksMap = makeStockMap();
 
-        List<Listing> listings = new ArrayList<>();
-        List<String[]> records = new ArrayList<>();
+        List<TickerExchange> records = new ArrayList<>();
         InputStream is = ListingsDataRunner.class.getResourceAsStream("ticker_exchange.csv");
         if (is == null) {
             throw new IllegalArgumentException("File not found!");
@@ -214,18 +292,59 @@ public class ListingsAndOptionsUpdatesScheduler {
                 isHeader = false;
                 continue;
             }
-            records.add(line.split(","));
+            String[] record = line.split(",");
+            if (stocksMap.get(record[0]) == null) continue;
+            records.add(new TickerExchange(record[0], record[1]));
         }
 
-        for (String[] record : records) {
-            String ticker = record[0];
-            String exchange = record[1];
-            if (stocksMap.get(ticker) == null) continue;
-            Listing l = fetchListingInfo(ticker, stocksMap.get(ticker), exchange, exchangesMap);
-            listings.add(l);
-            Thread.sleep(200);
+        Map<String, StockQuote> quotes =
+            quoteSource.fetchQuotes(
+                records.stream()
+                    .map(TickerExchange::ticker)
+                    .toList()
+            );
+
+        Map<UUID, Listing> currentListings = new HashMap<>();
+        for (Listing listing : listingRepository.findAllActiveListings())
+            currentListings.put(
+                listing.getSecurity()
+                    .getId(),
+                listing
+            );
+
+        List<Listing> listings = new ArrayList<>();
+        for (TickerExchange record : records) {
+            Stock stock = stocksMap.get(record.ticker());
+            StockQuote quote = quotes.get(record.ticker());
+            if (quote != null) {
+                listings.add(makeListing(quote, stock, exchangesMap.get(record.exchange())));
+                continue;
+            }
+
+            Listing current = currentListings.get(stock.getId());
+            if (current == null) continue;
+            LOGGER.warn("Keeping previous prices for {}", stock.getTicker());
+            listings.add(current);
         }
+        return listings;
+    }
 
+    private void saveStockListings(List<Listing> stockListings) {
+        final var securityIds =
+            stockListings.stream()
+                .map(
+                    listing -> listing.getSecurity()
+                        .getId()
+                )
+                .collect(Collectors.toSet());
+        marketDataBulkWriter.saveListings(stockListings);
+        quoteHistoryRepository.appendActiveListingsOf(securityIds);
+        dailyQuoteAggregateRepository.accumulateActiveListingsOf(securityIds);
+        listingService.markListingsRefreshed(securityIds);
+    }
+
+    private void saveListings(List<Listing> stockListings) {
+        List<Listing> listings = new ArrayList<>(stockListings);
         long stocksCount = listings.size();
 
         for (ForexPair fp : forexPairRepository.findAll()) {
@@ -270,10 +389,20 @@ public class ListingsAndOptionsUpdatesScheduler {
                 + listings.size()
         );
 
-        listingRepository.deactivateAll();
-        listingRepository.saveAllAndFlush(listings);
+        marketDataBulkWriter.saveListings(listings);
+        int appended = quoteHistoryRepository.appendActiveListings();
+        LOGGER.info("Appended {} quotes to the quote history", appended);
+        dailyQuoteAggregateRepository.accumulateActiveListings();
+        listingService.markListingsRefreshed();
     }
 
+    /**
+     * Brings the options chains of all listed stocks up to date. Options are matched to the
+     * existing ones by ticker, so an option keeps its ID for as long as it is part of a chain:
+     * existing options only get their premium and open interest updated (and are only written if
+     * those changed), options for new strikes and expiries are inserted, and options which are no
+     * longer part of any chain are retired. Retired options nobody refers to are deleted.
+     */
     public void updateOptions() {
         OptionsMaker optionsMaker = new OptionsMaker();
         List<Option> options = new ArrayList<>();
@@ -298,85 +427,152 @@ public class ListingsAndOptionsUpdatesScheduler {
             options.addAll(lOptions);
         }
 
-        optionsRepository.deleteOptionsWithoutOrders();
-        optionsRepository.deactivateAll();
-        optionsRepository.saveAllAndFlush(options);
-    }
-
-    public void refreshForexPairs() throws IOException, InterruptedException {
-        List<ForexPair> forexPairs = new ArrayList<>();
+        Map<String, Option> existing = new HashMap<>();
+        for (Option option : optionsRepository.findAllOwnOptions()) {
+            Option previous = existing.putIfAbsent(option.getTicker(), option);
+            if (previous != null && !previous.isActive() && option.isActive())
+                existing.put(option.getTicker(), option);
+        }
 
-        for (int i = 0; i < CurrencyCode.values().length; i++) {
-            for (int j = 0; j < CurrencyCode.values().length; j++) {
-                if (i == j) continue;
-
-                // FETCHING THE FOREX PAIRS
-                retrofit2.Call<ForexPairApiDto> call =
-                    alphaRetrofit.getForexPair(
-                        "CURRENCY_EXCHANGE_RATE",
-                        CurrencyCode.values()[i].name(),
-                        CurrencyCode.values()[j].name(),
-                        vantageKey
-                    );
-
-
-                retrofit2.Response<ForexPairApiDto> response2 = call.execute();
-                ForexPairApiDto forexPairApiDto = response2.body();
-                Thread.sleep(200);
-
-                if (forexPairApiDto.realTimeCurrencyExchangeRate() == null) continue;
-
-                CurrencyCode baseCurrency =
-                    forexPairApiDto.realTimeCurrencyExchangeRate()
-                        .baseCurrency();
-                CurrencyCode quoteCurrency =
-                    forexPairApiDto.realTimeCurrencyExchangeRate()
-                        .quoteCurrency();
-
-                String ticker =
-                    baseCurrency.name()
-                        .toUpperCase()
-                        + "/"
-                        + quoteCurrency.name()
-                            .toUpperCase();
-                String name =
-                    baseCurrency.name()
-                        .toUpperCase()
-                        + " to "
-                        + quoteCurrency.name()
-                            .toUpperCase();
-
-                UUID id;
-
-                Optional<ForexPair> existing = forexPairRepository.findByTicker(ticker);
-                if (existing.isPresent()) {
-                    id =
-                        existing.get()
-                            .getId();
-                } else {
-                    id = UUID.randomUUID();
-                }
-
-                ForexPair forexPair =
-                    ForexPair.builder()
-                        .id(id)
-                        .baseCurrency(baseCurrency)
-                        .quoteCurrency(quoteCurrency)
-                        .liquidity(ForexLiquidity.LOW)
-                        .exchangeRate(
-                            forexPairApiDto.realTimeCurrencyExchangeRate()
-                                .exchangeRate()
-                        )
-                        .ticker(ticker)
-                        .name(name)
-                        .build();
-
-                forexPairs.add(forexPair);
+        List<Option> changed = new ArrayList<>();
+        int inserted = 0;
+        for (Option generated : options) {
+            Option current = existing.remove(generated.getTicker());
+            if (current == null) {
+                changed.add(generated);
+                inserted++;
+            } else if (updateOption(current, generated)) {
+                changed.add(current);
             }
         }
 
-        forexPairRepository.saveAllAndFlush(forexPairs);
+        int retired = 0;
+        for (Option stale : existing.values()) {
+            if (!stale.isActive()) continue;
+            stale.setActive(false);
+            changed.add(stale);
+            retired++;
+        }
+
+        marketDataBulkWriter.saveOptions(changed);
+        optionsRepository.deleteOptionsWithoutOrders();
+        listingService.markOptionsRefreshed();
+        LOGGER.info(
+            "Options: {} inserted, {} updated, {} retired, {} unchanged",
+            inserted,
+            changed.size() - inserted - retired,
+            retired,
+            options.size() - changed.size() + retired
+        );
+    }
+
+    /**
+     * Copies the recomputed values of {@code generated} into {@code current}, the existing option
+     * with the same ticker, and reactivates it if it was retired.
+     *
+     * @return whether {@code current} changed
+     */
+    private static boolean updateOption(Option current, Option generated) {
+        MonetaryAmount premium =
+            generated.getPremium()
+                .withAmount(
+                    generated.getPremium()
+                        .getAmount()
+                        .setScale(2, RoundingMode.HALF_UP)
+                );
+        if (
+            current.isActive()
+                && current.getOpenInterest() == generated.getOpenInterest()
+                && current.getImpliedVolatility() == generated.getImpliedVolatility()
+                && current.getPremium()
+                    .getCurrency()
+                    == premium.getCurrency()
+                && current.getPremium()
+                    .getAmount()
+                    .compareTo(premium.getAmount())
+                    == 0
+        ) return false;
+
+        current.setPremium(premium);
+        current.setOpenInterest(generated.getOpenInterest());
+        current.setImpliedVolatility(generated.getImpliedVolatility());
+        current.setActive(true);
+        return true;
+    }
+
+    /**
+     * Fetches and saves the exchange rates of all ordered currency pairs.
+     */
+    public void refreshForexPairs() {
+        forexPairRepository.saveAllAndFlush(fetchForexPairs());
         // This will overwrite the old id's if said forex pairs exist in the db This whole refresh
         // is happening only because we save exchange rate (price) in both ForexPair and its Listing
     }
+
+    /**
+     * Fetches quotes of {@link #FOREX_BASE_CURRENCY} against every other currency, and derives the
+     * rates of all other pairs from them. Pairs involving a currency whose quote could not be
+     * fetched are left out, so they keep their previous rate.
+     */
+    private List<ForexPair> fetchForexPairs() {
+        List<CurrencyCode> quoted = new ArrayList<>();
+        for (CurrencyCode currency : CurrencyCode.values()) {
+            if (currency != FOREX_BASE_CURRENCY) quoted.add(currency);
+        }
+
+        Map<CurrencyCode, ForexPairApiDto> responses =
+            marketDataFetcher.fetchAll(
+                quoted,
+                currency -> alphaRetrofit.getForexPair(
+                    "CURRENCY_EXCHANGE_RATE",
+                    FOREX_BASE_CURRENCY.name(),
+                    currency.name(),
+                    vantageKey
+                )
+            );
+
+        Map<CurrencyCode, BigDecimal> quotes = new EnumMap<>(CurrencyCode.class);
+        responses.forEach((currency, forexPairApiDto) -> {
+            if (forexPairApiDto.realTimeCurrencyExchangeRate() == null) return;
+            quotes.put(
+                currency,
+                forexPairApiDto.realTimeCurrencyExchangeRate()
+                    .exchangeRate()
+            );
+        });
+
+        Map<String, UUID> existingIds = new HashMap<>();
+        for (ForexPair existing : forexPairRepository.findAll())
+            existingIds.put(existing.getTicker(), existing.getId());
+
+        List<ForexPair> forexPairs = new ArrayList<>();
+        for (ForexCrossRates.Rate rate : ForexCrossRates.derive(FOREX_BASE_CURRENCY, quotes)) {
+            String ticker =
+                rate.baseCurrency()
+                    .name()
+                    + "/"
+                    + rate.quoteCurrency()
+                        .name();
+            String name =
+                rate.baseCurrency()
+                    .name()
+                    + " to "
+                    + rate.quoteCurrency()
+                        .name();
+
+            ForexPair forexPair =
+                ForexPair.builder()
+                    .id(existingIds.getOrDefault(ticker, UUID.randomUUID()))
+                    .baseCurrency(rate.baseCurrency())
+                    .quoteCurrency(rate.quoteCurrency())
+                    .liquidity(ForexLiquidity.LOW)
+                    .exchangeRate(rate.rate())
+                    .ticker(ticker)
+                    .name(name)
+                    .build();
+
+            forexPairs.add(forexPair);
+        }
+        return forexPairs;
+    }
 }
@@ -0,0 +1,26 @@
+package rs.banka4.bank_service.utils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes stock listings every {@code listings.quote-tick-millis} when quotes come from a local
+ * {@link rs.banka4.bank_service.service.abstraction.QuoteSource}, so that prices move at a pace
+ * close to a live feed. AlphaVantage quotes are only fetched by the regular refresh, as its quota
+ * would not allow more.
+ */
+@Profile("!test")
+@Component
+@ConditionalOnExpression("'${listings.quote-source:alphavantage}' != 'alphavantage'")
+@RequiredArgsConstructor
+public class LocalQuoteFeedScheduler {
+    private final ListingsAndOptionsUpdatesScheduler listingsScheduler;
+
+    @Scheduled(fixedDelayString = "${listings.quote-tick-millis}")
+    public void tick() {
+        listingsScheduler.refreshStockQuotes();
+    }
+}
@@ -0,0 +1,41 @@
+package rs.banka4.bank_service.utils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import rs.banka4.bank_service.service.abstraction.OrderFeeService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderFeeSweepScheduler {
+    private final OrderFeeService orderFeeService;
+
+    /**
+     * Settles pending order fees, one account at a time. Each account is settled in its own
+     * transaction, so an account that cannot pay (for instance, due to insufficient funds) keeps
+     * its fees pending until the next sweep without holding up the others.
+     */
+    @Scheduled(
+        cron = "${orders.fees.sweep-cron}",
+        zone = "Europe/Belgrade"
+    )
+    public void settlePendingFees() {
+        int failed = 0;
+        final var accountIds = orderFeeService.getAccountsWithPendingFees();
+        for (var accountId : accountIds) {
+            try {
+                orderFeeService.settlePendingFees(accountId);
+            } catch (Exception e) {
+                failed++;
+                log.warn("Failed to settle order fees of account {}", accountId, e);
+            }
+        }
+        log.info(
+            "Order fee sweep settled {} of {} accounts",
+            accountIds.size() - failed,
+            accountIds.size()
+        );
+    }
+}
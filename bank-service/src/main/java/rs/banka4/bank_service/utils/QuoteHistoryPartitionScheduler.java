@@ -0,0 +1,101 @@
+package rs.banka4.bank_service.utils;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import rs.banka4.bank_service.repositories.QuoteHistoryRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
+
+/**
+ * Maintains the daily partitions of {@code quote_history}. Partitions for the next few trading
+ * days are created ahead of time, and partitions older than the retention period are dropped,
+ * which is much cheaper than deleting their rows.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuoteHistoryPartitionScheduler {
+    private static final String PARTITION_PREFIX = "quote_history_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    /** Number of days after today for which partitions are created in advance. */
+    private static final int DAYS_AHEAD = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuoteHistoryRepository quoteHistoryRepository;
+
+    @Value("${listings.quote-history-retention-days}")
+    private int retentionDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        cron = "0 5 0 * * *",
+        zone = "Europe/Belgrade"
+    )
+    public void maintainPartitions() {
+        final var today = LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE);
+        for (int i = 0; i <= DAYS_AHEAD; i++) createPartition(today.plusDays(i));
+
+        final var oldestKept = today.minusDays(retentionDays);
+        for (var partition : findPartitions()) {
+            final var day =
+                LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (!day.isBefore(oldestKept)) continue;
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+            log.info("Dropped quote history partition {}", partition);
+        }
+
+        int deleted = quoteHistoryRepository.deleteFromDefaultPartitionBefore(dayStart(oldestKept));
+        if (deleted > 0) log.info("Deleted {} old quotes from the default partition", deleted);
+    }
+
+    /**
+     * Creates the partition of the given day, unless it exists already. Fails if the default
+     * partition already holds quotes of that day; those then stay in the default partition.
+     */
+    private void createPartition(LocalDate day) {
+        try {
+            jdbcTemplate.execute(
+                """
+                    CREATE TABLE IF NOT EXISTS %s%s PARTITION OF quote_history
+                    FOR VALUES FROM ('%s') TO ('%s')
+                    """.formatted(
+                    PARTITION_PREFIX,
+                    day.format(PARTITION_SUFFIX),
+                    dayStart(day),
+                    dayStart(day.plusDays(1))
+                )
+            );
+        } catch (DataAccessException e) {
+            log.warn("Could not create quote history partition for {}", day, e);
+        }
+    }
+
+    private List<String> findPartitions() {
+        return jdbcTemplate.queryForList(
+            """
+                SELECT child.relname
+                FROM pg_inherits
+                JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                WHERE parent.relname = 'quote_history'
+                  AND child.relname LIKE 'quote\\_history\\_p%'
+                """,
+            String.class
+        );
+    }
+
+    private static OffsetDateTime dayStart(LocalDate day) {
+        return day.atStartOfDay(AssetVolumeService.TRADING_DAY_ZONE)
+            .toOffsetDateTime();
+    }
+}
@@ -7,9 +7,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import rs.banka4.bank_service.domain.loan.db.Loan;
-import rs.banka4.bank_service.domain.loan.db.LoanStatus;
-import rs.banka4.bank_service.repositories.LoanRepository;
+import rs.banka4.bank_service.repositories.InterestRateRepository;
+import rs.banka4.bank_service.service.impl.BulkUpdates;
 
 /**
  * Service responsible for managing and updating loan interest rates. It performs scheduled tasks
@@ -28,7 +27,8 @@ public class LoanRateScheduler {
     @Getter
     /* TODO(arsen): destaticify. */
     private static BigDecimal interestRateVariant = generateRandomPercentage();
-    private final LoanRepository loanRepository;
+    private final InterestRateRepository interestRateRepository;
+    private final BulkUpdates bulkUpdates;
 
 
     /**
@@ -38,23 +38,10 @@ public class LoanRateScheduler {
      */
     @Scheduled(cron = "0 5 0 1 * *") // Cron expression for the first day of every month at midnight
     public void applyVariableRateToAllVariableLoans() {
-        var loans =
-            loanRepository.findByInterestTypeAndStatus(
-                Loan.InterestType.VARIABLE,
-                LoanStatus.APPROVED
-            );
-        if (loans.isEmpty()) {
-            return;
-        }
-        loans.get()
-            .forEach(loan -> {
-                loan.getInterestRate()
-                    .setFixedRate(
-                        loan.getBaseInterestRate()
-                            .add(interestRateVariant)
-                    );
-            });
-        loanRepository.saveAll(loans.get());
+        bulkUpdates.run(
+            "apply-variable-loan-rate",
+            () -> interestRateRepository.applyVariableRate(interestRateVariant)
+        );
     }
 
     /**
@@ -0,0 +1,21 @@
+-- Per-asset, per-day order counters, replacing count(*) over orders.
+create table asset_daily_volumes
+(
+    asset_id uuid    not null,
+    day      date    not null,
+    volume   integer not null,
+    primary key (asset_id, day)
+);
+
+alter table if exists asset_daily_volumes
+    add constraint fk_asset_daily_volumes_assets
+        foreign key (asset_id)
+            references assets
+            on delete cascade;
+
+-- Backfill the counters from existing orders, so that volumes do not reset
+-- when this migration is applied mid-day.
+insert into asset_daily_volumes (asset_id, day, volume)
+select o.asset_id, (o.created_at at time zone 'Europe/Belgrade')::date, count(*)
+from orders o
+group by o.asset_id, (o.created_at at time zone 'Europe/Belgrade')::date;
@@ -0,0 +1,30 @@
+-- Append-only journal of order lifecycle events, and periodic snapshots of the
+-- open order book built from it.
+create table order_events
+(
+    sequence_number         bigint generated by default as identity primary key,
+    order_id                uuid                     not null,
+    asset_id                uuid                     not null,
+    type                    varchar(255)             not null,
+    direction               varchar(255)             not null,
+    price_per_unit_amount   numeric(38, 2)           not null,
+    price_per_unit_currency currency                 not null,
+    remaining_portions      integer                  not null,
+    approved                boolean                  not null,
+    all_or_nothing          boolean                  not null,
+    occurred_at             timestamp(6) with time zone not null
+);
+
+create index order_events_occurred_at_idx on order_events (occurred_at);
+
+create table order_book_snapshots
+(
+    id                   uuid                        not null primary key,
+    asset_id             uuid                        not null,
+    last_sequence_number bigint                      not null,
+    created_at           timestamp(6) with time zone not null,
+    open_orders          text                        not null
+);
+
+create index order_book_snapshots_last_sequence_number_idx
+    on order_book_snapshots (last_sequence_number);
@@ -0,0 +1,22 @@
+-- Order execution fees, accrued per order and settled in bulk per account.
+create table order_fees
+(
+    id                                   uuid                        not null primary key,
+    account_id                           uuid                        not null,
+    order_id                             uuid                        not null,
+    amount_amount                        numeric(38, 2)              not null,
+    amount_currency                      currency                    not null,
+    accrued_at                           timestamp(6) with time zone not null,
+    settled_at                           timestamp(6) with time zone,
+    settling_transaction_routing_number  bigint,
+    settling_transaction_id              varchar(255)
+);
+
+alter table if exists order_fees
+    add constraint fk_order_fees_accounts
+        foreign key (account_id)
+            references accounts;
+
+create index order_fees_pending_idx
+    on order_fees (account_id)
+    where settled_at is null;
@@ -0,0 +1,42 @@
+-- Past quotes of securities. Listings keep only the current quote, one active listing per
+-- security, which is updated in place on every refresh.
+create table quote_history
+(
+    security_id  uuid                        not null,
+    refreshed_at timestamp(6) with time zone not null,
+    bid          numeric(38, 2)              not null,
+    ask          numeric(38, 2)              not null,
+    primary key (security_id, refreshed_at)
+) partition by range (refreshed_at);
+
+-- Daily partitions are created ahead of time by the application; this one catches the rest.
+create table quote_history_default
+    partition of quote_history default;
+
+-- Keep only the latest active listing of each security.
+update listings l
+set active = false
+where l.active
+  and exists (select 1
+              from listings newer
+              where newer.security_id = l.security_id
+                and newer.active
+                and (newer.last_refresh, newer.id) > (l.last_refresh, l.id));
+
+insert into quote_history (security_id, refreshed_at, bid, ask)
+select security_id, last_refresh, bid, ask
+from listings
+on conflict do nothing;
+
+-- Inactive listings of securities which still have an active one are now only history.
+delete
+from listings l
+where not l.active
+  and exists (select 1
+              from listings current
+              where current.security_id = l.security_id
+                and current.active);
+
+create unique index listings_active_security_idx
+    on listings (security_id)
+    where active;
@@ -0,0 +1,8 @@
+-- Listing searches only ever look at active listings, filtering and sorting by price.
+create index listings_active_ask_idx
+    on listings (ask)
+    where active;
+
+create index listings_active_bid_idx
+    on listings (bid)
+    where active;
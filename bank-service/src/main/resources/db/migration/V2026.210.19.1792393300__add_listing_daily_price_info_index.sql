@@ -0,0 +1,3 @@
+-- Listing pages look up the most recent daily price info of every listed security.
+create index listing_daily_price_info_security_date_idx
+    on listing_daily_price_info (security_id, date);
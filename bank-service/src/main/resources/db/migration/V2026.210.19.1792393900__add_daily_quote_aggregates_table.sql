@@ -0,0 +1,26 @@
+-- Running open/high/low/close of each security during a trading day, updated on every listing
+-- refresh and summarized into listing_daily_price_info after the day ends.
+create table daily_quote_aggregates
+(
+    security_id uuid           not null,
+    day         date           not null,
+    exchange_id uuid           not null,
+    open        numeric(38, 2) not null,
+    high        numeric(38, 2) not null,
+    low         numeric(38, 2) not null,
+    close       numeric(38, 2) not null,
+    primary key (security_id, day)
+);
+
+alter table if exists daily_quote_aggregates
+    add constraint fk_daily_quote_aggregates_securities
+        foreign key (security_id)
+            references securities;
+
+alter table if exists daily_quote_aggregates
+    add constraint fk_daily_quote_aggregates_exchanges
+        foreign key (exchange_id)
+            references exchanges;
+
+create index daily_quote_aggregates_day_idx
+    on daily_quote_aggregates (day);
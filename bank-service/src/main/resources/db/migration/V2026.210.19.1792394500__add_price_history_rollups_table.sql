@@ -0,0 +1,27 @@
+-- Last daily price of each security per week and per month, for charting long price histories.
+create table price_history_rollups
+(
+    security_id  uuid                        not null,
+    resolution   varchar(255)                not null
+        check (resolution in ('DAY', 'WEEK', 'MONTH')),
+    bucket_start date                        not null,
+    date         timestamp(6) with time zone not null,
+    last_price   numeric(38, 2)              not null,
+    primary key (security_id, resolution, bucket_start)
+);
+
+alter table if exists price_history_rollups
+    add constraint fk_price_history_rollups_securities
+        foreign key (security_id)
+            references securities;
+
+insert into price_history_rollups (security_id, resolution, bucket_start, date, last_price)
+select distinct on (security_id, resolution, bucket_start) security_id, resolution, bucket_start, date, last_price
+from (select i.security_id,
+             r.resolution,
+             date_trunc(lower(r.resolution), i.date at time zone 'Europe/Belgrade')::date as bucket_start,
+             i.date,
+             i.last_price
+      from listing_daily_price_info i
+               cross join (values ('WEEK'), ('MONTH')) as r (resolution)) as days
+order by security_id, resolution, bucket_start, date desc;
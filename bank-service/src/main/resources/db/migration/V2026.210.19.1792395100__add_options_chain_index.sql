@@ -0,0 +1,4 @@
+-- Options chains are looked up by stock and settlement date, among active options only.
+create index options_chain_idx
+    on options (stock_id, settlement_date, option_type, strike_price_amount)
+    where active;
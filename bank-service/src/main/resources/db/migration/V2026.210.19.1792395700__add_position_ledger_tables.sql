@@ -0,0 +1,157 @@
+-- FIFO lot ledger used for profit calculation.  Buy fills open lots, sell fills consume the
+-- oldest lots first and record the realized profit of the fill.  positions holds the running
+-- totals of the open lots of each (user, asset).
+create table positions
+(
+    user_id    uuid           not null,
+    asset_id   uuid           not null,
+    quantity   integer        not null,
+    cost_basis numeric(38, 8) not null,
+    primary key (user_id, asset_id)
+);
+
+create table position_lots
+(
+    id          uuid                        not null primary key,
+    user_id     uuid                        not null,
+    asset_id    uuid                        not null,
+    order_id    uuid                        not null,
+    acquired_at timestamp(6) with time zone not null,
+    quantity    integer                     not null,
+    cost        numeric(38, 8)              not null
+);
+
+create table realized_profits
+(
+    id              uuid                        not null primary key,
+    sell_order_id   uuid                        not null,
+    user_id         uuid                        not null,
+    asset_id        uuid                        not null,
+    quantity        integer                     not null,
+    proceeds        numeric(38, 8)              not null,
+    cost            numeric(38, 8)              not null,
+    profit_amount   numeric(38, 8)              not null,
+    profit_currency currency                    not null,
+    realized_at     timestamp(6) with time zone not null
+);
+
+alter table if exists positions
+    add constraint fk_positions_users
+        foreign key (user_id)
+            references users;
+
+alter table if exists positions
+    add constraint fk_positions_assets
+        foreign key (asset_id)
+            references assets;
+
+create index position_lots_position_idx
+    on position_lots (user_id, asset_id, acquired_at, id);
+
+create index realized_profits_sell_order_idx
+    on realized_profits (sell_order_id);
+
+create index realized_profits_user_idx
+    on realized_profits (user_id, asset_id);
+
+-- Build the ledger from the orders executed so far, by replaying them in the order they were
+-- created, as the ledger would have recorded them.  Each order counts as a single fill of the
+-- quantity filled so far (done orders count in full) at its price.  A buy opens a lot, and a sell
+-- consumes the oldest lots open at that point, so a sell never consumes buys created after it.
+-- Only the part of a sell covered by open lots has a known cost, so only that part realizes a
+-- profit.
+create function pg_temp.ledger_fee(order_type varchar, gross numeric) returns numeric
+    language sql
+    immutable
+as
+$$
+select case order_type
+           when 'MARKET' then least(gross * 0.14, 7)
+           when 'LIMIT' then least(gross * 0.24, 12)
+           else 0
+           end
+$$;
+
+do
+$$
+    declare
+        f         record;
+        lot       record;
+        wanted    integer;
+        taken     integer;
+        portion   numeric;
+        sold      integer;
+        sold_cost numeric;
+        proceeds  numeric;
+    begin
+        for f in select o.id,
+                        o.user_id,
+                        o.asset_id,
+                        o.direction,
+                        o.order_type,
+                        o.last_modified,
+                        o.price_per_unit_amount   as price,
+                        o.price_per_unit_currency as currency,
+                        case
+                            when o.is_done then o.quantity
+                            else o.quantity - o.remaining_portions
+                            end                   as filled
+                 from orders o
+                 where not exists (select 1 from options op where op.id = o.asset_id)
+                 order by o.created_at, o.id
+            loop
+                continue when f.filled <= 0;
+
+                if f.direction = 'BUY' then
+                    insert into position_lots (id, user_id, asset_id, order_id, acquired_at,
+                                               quantity, cost)
+                    values (gen_random_uuid(), f.user_id, f.asset_id, f.id, f.last_modified,
+                            f.filled,
+                            f.price * f.filled
+                                + pg_temp.ledger_fee(f.order_type, f.price * f.filled));
+                    continue;
+                end if;
+
+                wanted := f.filled;
+                sold := 0;
+                sold_cost := 0;
+                for lot in select l.id, l.quantity, l.cost
+                           from position_lots l
+                           where l.user_id = f.user_id
+                             and l.asset_id = f.asset_id
+                           order by l.acquired_at, l.id
+                    loop
+                        exit when wanted = 0;
+                        taken := least(wanted, lot.quantity);
+                        if taken = lot.quantity then
+                            portion := lot.cost;
+                            delete from position_lots where id = lot.id;
+                        else
+                            portion := round(lot.cost * taken / lot.quantity, 8);
+                            update position_lots
+                            set quantity = quantity - taken,
+                                cost     = cost - portion
+                            where id = lot.id;
+                        end if;
+                        wanted := wanted - taken;
+                        sold := sold + taken;
+                        sold_cost := sold_cost + portion;
+                    end loop;
+
+                continue when sold = 0;
+                proceeds := f.price * sold - pg_temp.ledger_fee(f.order_type, f.price * sold);
+                insert into realized_profits (id, sell_order_id, user_id, asset_id, quantity,
+                                              proceeds, cost, profit_amount, profit_currency,
+                                              realized_at)
+                values (gen_random_uuid(), f.id, f.user_id, f.asset_id, sold, proceeds, sold_cost,
+                        proceeds - sold_cost, f.currency, f.last_modified);
+            end loop;
+    end
+$$;
+
+insert into positions (user_id, asset_id, quantity, cost_basis)
+select user_id, asset_id, sum(quantity), sum(cost)
+from position_lots
+group by user_id, asset_id;
+
+drop function pg_temp.ledger_fee(varchar, numeric);
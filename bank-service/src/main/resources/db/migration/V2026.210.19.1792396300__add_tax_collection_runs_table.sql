@@ -0,0 +1,14 @@
+-- Progress of the monthly tax collection.  Debts are charged in chunks ordered by ID, and
+-- last_debt_id is advanced once every debt up to it has been charged, so that a run interrupted
+-- part way through can be resumed where it stopped instead of starting over.
+create table tax_collection_runs
+(
+    id           uuid                        not null primary key,
+    started_at   timestamp(6) with time zone not null,
+    finished_at  timestamp(6) with time zone,
+    last_debt_id uuid
+);
+
+create index user_tax_debts_due_idx
+    on user_tax_debts (id)
+    where debt_amount > 0;
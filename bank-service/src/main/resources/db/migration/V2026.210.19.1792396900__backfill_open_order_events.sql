@@ -0,0 +1,22 @@
+-- Orders opened before the journal existed have no events, so recovery would leave them out of
+-- the open order book.  Give every such open order one event describing its current state, in
+-- the order the orders were created.
+insert into order_events (order_id, asset_id, type, direction, price_per_unit_amount,
+                          price_per_unit_currency, remaining_portions, approved, all_or_nothing,
+                          occurred_at)
+select o.id,
+       o.asset_id,
+       case when o.status = 'APPROVED' then 'APPROVED' else 'CREATED' end,
+       o.direction,
+       o.price_per_unit_amount,
+       o.price_per_unit_currency,
+       o.remaining_portions,
+       o.status = 'APPROVED',
+       o.all_or_nothing,
+       o.last_modified
+from orders o
+where not o.is_done
+  and o.status <> 'DECLINED'
+  and o.remaining_portions > 0
+  and not exists (select 1 from order_events e where e.order_id = o.id)
+order by o.created_at, o.id;
@@ -21,6 +21,7 @@ import rs.banka4.bank_service.integration.generator.UserGenerator;
 import rs.banka4.bank_service.repositories.ActuaryRepository;
 import rs.banka4.bank_service.repositories.UserRepository;
 import rs.banka4.bank_service.utils.ActuaryGenerator;
+import rs.banka4.bank_service.utils.LimitResetScheduler;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 import rs.banka4.testlib.integration.DbEnabledTest;
 import rs.banka4.testlib.utils.JwtPlaceholders;
@@ -42,6 +43,9 @@ public class ActuaryTests {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LimitResetScheduler limitResetScheduler;
+
     private String jwtToken;
 
     @BeforeEach
@@ -241,6 +245,81 @@ public class ActuaryTests {
         );
     }
 
+    @Test
+    void shouldReserveUsedLimitOnlyWithinLimit() {
+        UUID actuaryId = ActuaryGenerator.ACTUARY_1_UUID;
+
+        var reserved = actuaryRepository.reserveUsedLimit(actuaryId, new BigDecimal("7000"));
+        Assertions.assertTrue(reserved.isPresent());
+        Assertions.assertEquals(
+            0,
+            reserved.get()
+                .compareTo(new BigDecimal("9500"))
+        );
+
+        var rejected = actuaryRepository.reserveUsedLimit(actuaryId, new BigDecimal("501"));
+        Assertions.assertTrue(rejected.isEmpty());
+
+        ActuaryInfo actuary =
+            actuaryRepository.findById(actuaryId)
+                .get();
+        Assertions.assertEquals(
+            0,
+            actuary.getUsedLimit()
+                .getAmount()
+                .compareTo(new BigDecimal("9500"))
+        );
+    }
+
+    @Test
+    void shouldReleaseUsedLimitWithoutGoingNegative() {
+        UUID actuaryId = ActuaryGenerator.ACTUARY_1_UUID;
+
+        Assertions.assertEquals(
+            1,
+            actuaryRepository.releaseUsedLimit(actuaryId, new BigDecimal("3000"))
+        );
+
+        ActuaryInfo actuary =
+            actuaryRepository.findById(actuaryId)
+                .get();
+        Assertions.assertEquals(
+            0,
+            actuary.getUsedLimit()
+                .getAmount()
+                .compareTo(BigDecimal.ZERO)
+        );
+    }
+
+    @Test
+    void shouldResetUsedLimitOfAgentsOnly() {
+        limitResetScheduler.resetUsedLimit();
+
+        ActuaryInfo agent =
+            actuaryRepository.findById(ActuaryGenerator.ACTUARY_1_UUID)
+                .get();
+        Assertions.assertEquals(
+            0,
+            agent.getUsedLimit()
+                .getAmount()
+                .compareTo(BigDecimal.ZERO)
+        );
+        Assertions.assertEquals(
+            CurrencyCode.RSD,
+            agent.getUsedLimit()
+                .getCurrency()
+        );
+        ActuaryInfo supervisor =
+            actuaryRepository.findById(ActuaryGenerator.ACTUARY_2_UUID)
+                .get();
+        Assertions.assertEquals(
+            0,
+            supervisor.getUsedLimit()
+                .getAmount()
+                .compareTo(new BigDecimal("10000"))
+        );
+    }
+
     private UUID createTestActuary() {
         UUID id = UUID.randomUUID();
         ActuaryInfo actuary = new ActuaryInfo();
@@ -0,0 +1,146 @@
+package rs.banka4.bank_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import rs.banka4.bank_service.domain.listing.db.DailyQuoteAggregateId;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
+import rs.banka4.bank_service.repositories.AssetRepository;
+import rs.banka4.bank_service.repositories.DailyQuoteAggregateRepository;
+import rs.banka4.bank_service.repositories.ExchangeRepository;
+import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
+import rs.banka4.bank_service.repositories.ListingRepository;
+import rs.banka4.bank_service.repositories.SecurityRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
+import rs.banka4.bank_service.utils.AssetGenerator;
+import rs.banka4.bank_service.utils.ExchangeGenerator;
+import rs.banka4.bank_service.utils.ListingGenerator;
+import rs.banka4.testlib.integration.DbEnabledTest;
+
+@SpringBootTest
+@DbEnabledTest
+public class DailyQuoteAggregateTests {
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private SecurityRepository securityRepository;
+    @Autowired
+    private ListingRepository listingRepo;
+    @Autowired
+    private ExchangeRepository exchangeRepo;
+    @Autowired
+    private ListingDailyPriceInfoRepository listingHistoryRepo;
+    @Autowired
+    private DailyQuoteAggregateRepository dailyQuoteAggregateRepository;
+
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        final var ber1 = ExchangeGenerator.makeBer1();
+        exchangeRepo.save(ber1);
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+        ListingGenerator.makeExampleListings(
+            securityRepository.findById(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow(),
+            ber1,
+            listingRepo,
+            listingHistoryRepo
+        );
+        listing =
+            listingRepo.findBySecurityIdAndActiveTrue(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow();
+    }
+
+    private DailyQuoteAggregateId aggregateId() {
+        return new DailyQuoteAggregateId(
+            AssetGenerator.STOCK_EX1_UUID,
+            listing.getLastRefresh()
+                .atZoneSameInstant(AssetVolumeService.TRADING_DAY_ZONE)
+                .toLocalDate()
+        );
+    }
+
+    private static BigDecimal mid(Listing listing) {
+        return listing.getAsk()
+            .add(listing.getBid())
+            .divide(BigDecimal.valueOf(2), 2, RoundingMode.DOWN);
+    }
+
+    @Test
+    void refreshesAreFoldedIntoDailyAggregate() {
+        dailyQuoteAggregateRepository.accumulateActiveListings();
+        final var open = mid(listing);
+        final var firstAsk = listing.getAsk();
+        final var firstBid = listing.getBid();
+
+        listing.setAsk(firstAsk.add(BigDecimal.TEN));
+        listing.setBid(firstBid.subtract(BigDecimal.ONE));
+        listing.setLastRefresh(
+            listing.getLastRefresh()
+                .plusMinutes(1)
+        );
+        listingRepo.saveAndFlush(listing);
+        dailyQuoteAggregateRepository.accumulateActiveListings();
+
+        final var aggregate =
+            dailyQuoteAggregateRepository.findById(aggregateId())
+                .orElseThrow();
+        assertThat(aggregate.getOpen()).isEqualByComparingTo(open);
+        assertThat(aggregate.getHigh()).isEqualByComparingTo(firstAsk.add(BigDecimal.TEN));
+        assertThat(aggregate.getLow()).isEqualByComparingTo(firstBid.subtract(BigDecimal.ONE));
+        assertThat(aggregate.getClose()).isEqualByComparingTo(mid(listing));
+        assertThat(aggregate.getExchangeId()).isEqualTo(
+            listing.getExchange()
+                .getId()
+        );
+    }
+
+    @Test
+    void dailyPriceInfoIsWrittenFromAggregates() {
+        dailyQuoteAggregateRepository.accumulateActiveListings();
+        final var day = aggregateId().getDay();
+        final var startOfDay =
+            day.atStartOfDay(AssetVolumeService.TRADING_DAY_ZONE)
+                .toOffsetDateTime();
+        final var previous =
+            listingHistoryRepo.findAllBySecurityId(AssetGenerator.STOCK_EX1_UUID)
+                .stream()
+                .filter(
+                    info -> info.getDate()
+                        .isBefore(startOfDay)
+                )
+                .max(Comparator.comparing(ListingDailyPriceInfo::getDate))
+                .orElseThrow();
+
+        final var date = startOfDay.plusHours(12);
+        final var inserted =
+            listingHistoryRepo.insertFromDailyQuoteAggregates(day, startOfDay, date);
+
+        assertThat(inserted).isEqualTo(1);
+        final var info =
+            listingHistoryRepo.findAllBySecurityId(AssetGenerator.STOCK_EX1_UUID)
+                .stream()
+                .filter(
+                    i -> i.getDate()
+                        .isEqual(date)
+                )
+                .findFirst()
+                .orElseThrow();
+        assertThat(info.getLastPrice()).isEqualByComparingTo(mid(listing));
+        assertThat(info.getAskHigh()).isEqualByComparingTo(listing.getAsk());
+        assertThat(info.getBigLow()).isEqualByComparingTo(listing.getBid());
+        assertThat(info.getChange()).isEqualByComparingTo(
+            mid(listing).subtract(previous.getLastPrice())
+        );
+        assertThat(info.getVolume()).isZero();
+    }
+}
@@ -8,25 +8,34 @@ import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 import rs.banka4.bank_service.domain.listing.db.Listing;
 import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
+import rs.banka4.bank_service.domain.listing.dtos.PriceHistoryResolution;
 import rs.banka4.bank_service.domain.listing.dtos.SecurityType;
 import rs.banka4.bank_service.domain.listing.specificaion.ListingSpecification;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.db.OptionType;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
 import rs.banka4.bank_service.repositories.AssetRepository;
 import rs.banka4.bank_service.repositories.ExchangeRepository;
 import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
 import rs.banka4.bank_service.repositories.ListingRepository;
+import rs.banka4.bank_service.repositories.PriceHistoryRollupRepository;
 import rs.banka4.bank_service.repositories.SecurityRepository;
 import rs.banka4.bank_service.utils.AssetGenerator;
 import rs.banka4.bank_service.utils.ExchangeGenerator;
 import rs.banka4.bank_service.utils.ListingGenerator;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
 import rs.banka4.testlib.integration.DbEnabledTest;
 import rs.banka4.testlib.utils.JwtPlaceholders;
 
@@ -46,6 +55,8 @@ public class ListingTests {
     private ExchangeRepository exchangeRepo;
     @Autowired
     private ListingDailyPriceInfoRepository listingHistoryRepo;
+    @Autowired
+    private PriceHistoryRollupRepository priceHistoryRollupRepository;
 
     @Test
     public void test_getListingDetails_basic() {
@@ -167,6 +178,143 @@ public class ListingTests {
                 """);
     }
 
+    /**
+     * Verify that a strike price with only a call still makes a row, with an empty put side.
+     */
+    @Test
+    public void test_getListingOptions_missingPut() {
+        final var ber1 = ExchangeGenerator.makeBer1();
+        exchangeRepo.save(ber1);
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+
+        var ex1 =
+            (Stock) securityRepository.findById(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow();
+        ListingGenerator.makeExampleListings(ex1, ber1, listingRepo, listingHistoryRepo);
+
+        final var settlementDate =
+            OffsetDateTime.now()
+                .plusYears(3);
+        final var callId = UUID.randomUUID();
+        assetRepository.saveAndFlush(
+            Option.builder()
+                .id(callId)
+                .name("EX1-CALL-150")
+                .ticker("EX1-CALL-150")
+                .optionType(OptionType.CALL)
+                .strikePrice(new MonetaryAmount(new BigDecimal("150"), CurrencyCode.USD))
+                .impliedVolatility(0.4)
+                .openInterest(100)
+                .settlementDate(settlementDate)
+                .stock(ex1)
+                .premium(new MonetaryAmount(new BigDecimal("2.5"), CurrencyCode.USD))
+                .build()
+        );
+
+        mvc.get()
+            .uri("/stock/listings/options/{stockId}", AssetGenerator.STOCK_EX1_UUID)
+            .header("Authorization", "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN)
+            .param("settlementDate", settlementDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+            .assertThat()
+            .hasStatusOk()
+            .bodyJson()
+            .isLenientlyEqualTo("""
+                [
+                  {
+                    "callsId": "%s",
+                    "callsLastPrice": 0,
+                    "callsChange": 0,
+                    "callsImpliedVolatility": 0.4,
+                    "callsVolume": 0,
+                    "callsOpenInterest": 100,
+                    "callsPremium":
+                    {
+                        "amount":2.50,
+                        "currency":"USD"
+                    },
+                    "strike": 150.00,
+                    "putsId": null,
+                    "putsLastPrice": null,
+                    "putsChange": null,
+                    "putsImpliedVolatility": null,
+                    "putsVolume": null,
+                    "putsOpenInterest": null,
+                    "putsPremium": null,
+                    "putsGreeks": null
+                  }
+                ]
+                """.formatted(callId));
+    }
+
+    /**
+     * Verify that options received from other banks are left out of the chain, even when they share
+     * a strike price with one of ours.
+     */
+    @Test
+    public void test_getListingOptions_skipsForeignOptions() {
+        final var ber1 = ExchangeGenerator.makeBer1();
+        exchangeRepo.save(ber1);
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+
+        var ex1 =
+            (Stock) securityRepository.findById(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow();
+        ListingGenerator.makeExampleListings(ex1, ber1, listingRepo, listingHistoryRepo);
+
+        final var settlementDate =
+            OffsetDateTime.now()
+                .plusYears(4);
+        final var callId = UUID.randomUUID();
+        assetRepository.saveAndFlush(
+            Option.builder()
+                .id(callId)
+                .name("EX1-CALL-150")
+                .ticker("EX1-CALL-150")
+                .optionType(OptionType.CALL)
+                .strikePrice(new MonetaryAmount(new BigDecimal("150"), CurrencyCode.USD))
+                .impliedVolatility(0.4)
+                .openInterest(100)
+                .settlementDate(settlementDate)
+                .stock(ex1)
+                .premium(new MonetaryAmount(new BigDecimal("2.5"), CurrencyCode.USD))
+                .build()
+        );
+        assetRepository.saveAndFlush(
+            Option.builder()
+                .id(UUID.randomUUID())
+                .name("EX1-CALL-150-REMOTE")
+                .ticker("EX1-CALL-150-REMOTE")
+                .optionType(OptionType.CALL)
+                .strikePrice(new MonetaryAmount(new BigDecimal("150"), CurrencyCode.USD))
+                .impliedVolatility(0.4)
+                .openInterest(100)
+                .settlementDate(settlementDate)
+                .stock(ex1)
+                .premium(new MonetaryAmount(new BigDecimal("2.5"), CurrencyCode.USD))
+                .foreignId(new ForeignBankId(111L, "remote-call"))
+                .build()
+        );
+
+        mvc.get()
+            .uri("/stock/listings/options/{stockId}", AssetGenerator.STOCK_EX1_UUID)
+            .header("Authorization", "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN)
+            .param("settlementDate", settlementDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+            .assertThat()
+            .hasStatusOk()
+            .bodyJson()
+            .isLenientlyEqualTo("""
+                [
+                  {
+                    "callsId": "%s",
+                    "strike": 150.00,
+                    "putsId": null
+                  }
+                ]
+                """.formatted(callId));
+    }
+
     /**
      * Verify that getPriceChanges returns all changes from oldest to newest.
      */
@@ -222,6 +370,93 @@ public class ListingTests {
             );
     }
 
+    /**
+     * Verify that the daily price history matches the price changes, and that it is not sent again
+     * to a client which already has it.
+     */
+    @Test
+    public void test_getPriceHistory_daily_conditional() {
+        final var ber1 = ExchangeGenerator.makeBer1();
+        exchangeRepo.save(ber1);
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+
+        var ex1 = securityRepository.findById(AssetGenerator.STOCK_EX1_UUID);
+        ListingGenerator.makeExampleListings(
+            ex1.orElseThrow(),
+            ber1,
+            listingRepo,
+            listingHistoryRepo
+        );
+
+        final var result =
+            mvc.get()
+                .uri("/stock/listings/" + AssetGenerator.STOCK_EX1_UUID + "/priceHistory")
+                .header("Authorization", "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN)
+                .exchange();
+        assertThat(result).hasStatusOk()
+            .bodyJson()
+            .isLenientlyEqualTo("""
+                [
+                  { "price": 28.74 },
+                  { "price": 5.90 },
+                  { "price": 12.18 },
+                  { "price": 19.21 },
+                  { "price": 44.44 }
+                ]
+                """);
+
+        final var etag =
+            result.getResponse()
+                .getHeader("ETag");
+        assertThat(etag).isNotBlank();
+        mvc.get()
+            .uri("/stock/listings/" + AssetGenerator.STOCK_EX1_UUID + "/priceHistory")
+            .header("Authorization", "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN)
+            .header("If-None-Match", etag)
+            .assertThat()
+            .hasStatus(HttpStatus.NOT_MODIFIED);
+    }
+
+    /**
+     * Verify that a monthly price history ends with the latest daily price.
+     */
+    @Test
+    public void test_getPriceHistory_monthly() {
+        final var ber1 = ExchangeGenerator.makeBer1();
+        exchangeRepo.save(ber1);
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+
+        var ex1 = securityRepository.findById(AssetGenerator.STOCK_EX1_UUID);
+        ListingGenerator.makeExampleListings(
+            ex1.orElseThrow(),
+            ber1,
+            listingRepo,
+            listingHistoryRepo
+        );
+        final var now = OffsetDateTime.now();
+        priceHistoryRollupRepository.rollUp(
+            PriceHistoryResolution.MONTH.name(),
+            PriceHistoryResolution.MONTH.truncField(),
+            now.minusDays(10),
+            now
+        );
+
+        mvc.get()
+            .uri(
+                "/stock/listings/{securityId}/priceHistory?resolution=MONTH",
+                AssetGenerator.STOCK_EX1_UUID
+            )
+            .header("Authorization", "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN)
+            .assertThat()
+            .hasStatusOk()
+            .bodyJson()
+            .extractingPath("$[-1:].price")
+            .asArray()
+            .containsExactly(44.44);
+    }
+
     /**
      * Verify that getListings returns all up-to-date listings. Given that we only generate a bunch
      * of listings for {@link AssetGenerator#STOCK_EX1_UUID} currently, that will be only one
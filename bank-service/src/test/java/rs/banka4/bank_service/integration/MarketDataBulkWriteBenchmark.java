@@ -0,0 +1,126 @@
+package rs.banka4.bank_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.db.OptionType;
+import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.repositories.AssetRepository;
+import rs.banka4.bank_service.repositories.OptionsRepository;
+import rs.banka4.bank_service.repositories.SecurityRepository;
+import rs.banka4.bank_service.service.impl.MarketDataBulkWriter;
+import rs.banka4.bank_service.utils.AssetGenerator;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+import rs.banka4.testlib.benchmark.BenchmarkTest;
+import rs.banka4.testlib.integration.DbEnabledTest;
+
+/**
+ * Compares saving an options refresh through Hibernate with saving it through
+ * {@link MarketDataBulkWriter}, both when inserting new options and when updating existing ones.
+ * Run with {@code ./gradlew benchmarkTest}.
+ */
+@SpringBootTest
+@DbEnabledTest
+@BenchmarkTest
+public class MarketDataBulkWriteBenchmark {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(MarketDataBulkWriteBenchmark.class);
+    /* 242 options per stock, as made by OptionsMaker. */
+    private static final int OPTIONS = 242 * 100;
+
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private SecurityRepository securityRepository;
+    @Autowired
+    private OptionsRepository optionsRepository;
+    @Autowired
+    private MarketDataBulkWriter bulkWriter;
+
+    private static List<Option> generateOptions(Stock stock, String prefix) {
+        final var expiry = OffsetDateTime.now(ZoneOffset.UTC);
+        final var options = new ArrayList<Option>(OPTIONS);
+        for (int i = 0; i < OPTIONS; i++) {
+            options.add(
+                Option.builder()
+                    .name(prefix + i)
+                    .ticker(prefix + i)
+                    .stock(stock)
+                    .optionType(i % 2 == 0 ? OptionType.CALL : OptionType.PUT)
+                    .strikePrice(new MonetaryAmount(BigDecimal.valueOf(i % 11), CurrencyCode.USD))
+                    .premium(new MonetaryAmount(BigDecimal.valueOf(i, 2), CurrencyCode.USD))
+                    .impliedVolatility(0.4)
+                    .openInterest(500)
+                    .settlementDate(expiry.plusDays(i % 200))
+                    .build()
+            );
+        }
+        return options;
+    }
+
+    private static long timeMillis(List<Option> options, Consumer<List<Option>> save) {
+        long start = System.nanoTime();
+        save.accept(options);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void reprice(List<Option> options) {
+        for (Option option : options)
+            option.setPremium(
+                option.getPremium()
+                    .withAmount(
+                        option.getPremium()
+                            .getAmount()
+                            .add(BigDecimal.ONE)
+                    )
+            );
+    }
+
+    @Test
+    void bulkWriterIsFasterThanHibernate() {
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+        final var stock =
+            (Stock) securityRepository.findById(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow();
+        final var viaHibernate = generateOptions(stock, "H");
+        final var viaCopy = generateOptions(stock, "C");
+
+        /* Warm both paths up with a small batch first. */
+        optionsRepository.saveAllAndFlush(generateOptions(stock, "WH").subList(0, 1000));
+        bulkWriter.saveOptions(generateOptions(stock, "WC").subList(0, 1000));
+
+        final long hibernateInsert = timeMillis(viaHibernate, optionsRepository::saveAllAndFlush);
+        final long copyInsert = timeMillis(viaCopy, bulkWriter::saveOptions);
+        reprice(viaHibernate);
+        reprice(viaCopy);
+        final long hibernateUpdate = timeMillis(viaHibernate, optionsRepository::saveAllAndFlush);
+        final long copyUpdate = timeMillis(viaCopy, bulkWriter::saveOptions);
+
+        LOGGER.info(
+            "Saving {} options: insert {} ms via Hibernate, {} ms via COPY; "
+                + "update {} ms via Hibernate, {} ms via COPY",
+            OPTIONS,
+            hibernateInsert,
+            copyInsert,
+            hibernateUpdate,
+            copyUpdate
+        );
+
+        assertThat(optionsRepository.count()).isGreaterThanOrEqualTo(2L * OPTIONS);
+        assertThat(copyInsert).isLessThan(hibernateInsert);
+        assertThat(copyUpdate).isLessThan(hibernateUpdate);
+    }
+}
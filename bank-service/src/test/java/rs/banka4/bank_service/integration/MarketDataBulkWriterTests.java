@@ -0,0 +1,200 @@
+package rs.banka4.bank_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.exchanges.db.Exchange;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.db.ListingDailyPriceInfo;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.db.OptionType;
+import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.repositories.AssetRepository;
+import rs.banka4.bank_service.repositories.ExchangeRepository;
+import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
+import rs.banka4.bank_service.repositories.ListingRepository;
+import rs.banka4.bank_service.repositories.OptionsRepository;
+import rs.banka4.bank_service.repositories.SecurityRepository;
+import rs.banka4.bank_service.service.impl.MarketDataBulkWriter;
+import rs.banka4.bank_service.utils.AssetGenerator;
+import rs.banka4.bank_service.utils.ExchangeGenerator;
+import rs.banka4.bank_service.utils.ListingGenerator;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+import rs.banka4.testlib.integration.DbEnabledTest;
+
+@SpringBootTest
+@DbEnabledTest
+public class MarketDataBulkWriterTests {
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private SecurityRepository securityRepository;
+    @Autowired
+    private ListingRepository listingRepo;
+    @Autowired
+    private ExchangeRepository exchangeRepo;
+    @Autowired
+    private ListingDailyPriceInfoRepository listingHistoryRepo;
+    @Autowired
+    private OptionsRepository optionsRepository;
+    @Autowired
+    private MarketDataBulkWriter bulkWriter;
+
+    private Exchange exchange;
+    private Stock stock1;
+    private Stock stock2;
+
+    @BeforeEach
+    void setUp() {
+        exchange = exchangeRepo.save(ExchangeGenerator.makeBer1());
+        AssetGenerator.makeExampleAssets()
+            .forEach(assetRepository::saveAndFlush);
+        stock1 =
+            (Stock) securityRepository.findById(AssetGenerator.STOCK_EX1_UUID)
+                .orElseThrow();
+        stock2 =
+            (Stock) securityRepository.findById(AssetGenerator.STOCK_EX2_UUID)
+                .orElseThrow();
+        ListingGenerator.makeExampleListings(stock1, exchange, listingRepo, listingHistoryRepo);
+    }
+
+    private Listing makeListing(Stock stock, String bid, String ask) {
+        return Listing.builder()
+            .security(stock)
+            .exchange(exchange)
+            .bid(new BigDecimal(bid))
+            .ask(new BigDecimal(ask))
+            .contractSize(3)
+            .lastRefresh(
+                OffsetDateTime.now(ZoneOffset.UTC)
+                    .truncatedTo(ChronoUnit.MICROS)
+            )
+            .active(true)
+            .build();
+    }
+
+    @Test
+    void listingsAreMergedIntoActiveListings() {
+        final var previous =
+            listingRepo.findBySecurityIdAndActiveTrue(stock1.getId())
+                .orElseThrow();
+        final var fresh1 = makeListing(stock1, "12345.675", "0.05");
+        final var fresh2 = makeListing(stock2, "-3.10", "100");
+
+        assertThat(bulkWriter.saveListings(List.of(fresh1, fresh2))).isEqualTo(2);
+
+        final var merged =
+            listingRepo.findBySecurityIdAndActiveTrue(stock1.getId())
+                .orElseThrow();
+        assertThat(merged.getId()).isEqualTo(previous.getId());
+        assertThat(merged.getBid()).isEqualByComparingTo("12345.68");
+        assertThat(merged.getAsk()).isEqualByComparingTo("0.05");
+        assertThat(merged.getContractSize()).isEqualTo(3);
+        assertThat(
+            merged.getLastRefresh()
+                .toInstant()
+        ).isEqualTo(
+            fresh1.getLastRefresh()
+                .toInstant()
+        );
+
+        final var inserted =
+            listingRepo.findBySecurityIdAndActiveTrue(stock2.getId())
+                .orElseThrow();
+        assertThat(inserted.getId()).isEqualTo(fresh2.getId());
+        assertThat(inserted.getBid()).isEqualByComparingTo("-3.10");
+        assertThat(inserted.getAsk()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void optionsAreInsertedAndUpdated() {
+        final var option =
+            Option.builder()
+                .name("EX1-CALL-100")
+                .ticker("EX1C100")
+                .stock(stock1)
+                .optionType(OptionType.CALL)
+                .strikePrice(new MonetaryAmount(new BigDecimal("100"), CurrencyCode.USD))
+                .premium(new MonetaryAmount(new BigDecimal("7.126"), CurrencyCode.USD))
+                .impliedVolatility(0.4)
+                .openInterest(250)
+                .settlementDate(
+                    OffsetDateTime.now(ZoneOffset.UTC)
+                        .plusDays(30)
+                        .truncatedTo(ChronoUnit.DAYS)
+                )
+                .build();
+
+        bulkWriter.saveOptions(List.of(option));
+        var saved =
+            optionsRepository.findById(option.getId())
+                .orElseThrow();
+        assertThat(saved.getTicker()).isEqualTo("EX1C100");
+        assertThat(
+            saved.getStock()
+                .getId()
+        ).isEqualTo(stock1.getId());
+        assertThat(
+            saved.getPremium()
+                .getAmount()
+        ).isEqualByComparingTo("7.13");
+        assertThat(saved.isActive()).isTrue();
+
+        option.setPremium(new MonetaryAmount(new BigDecimal("8.50"), CurrencyCode.EUR));
+        option.setOpenInterest(240);
+        option.setActive(false);
+        bulkWriter.saveOptions(List.of(option));
+        saved =
+            optionsRepository.findById(option.getId())
+                .orElseThrow();
+        assertThat(saved.getPremium()).isEqualTo(
+            new MonetaryAmount(new BigDecimal("8.50"), CurrencyCode.EUR)
+        );
+        assertThat(saved.getOpenInterest()).isEqualTo(240);
+        assertThat(saved.isActive()).isFalse();
+    }
+
+    @Test
+    void dailyPriceInfoIsInserted() {
+        final var info =
+            ListingDailyPriceInfo.builder()
+                .id(UUID.randomUUID())
+                .security(stock2)
+                .exchange(exchange)
+                .date(OffsetDateTime.of(2026, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC))
+                .lastPrice(new BigDecimal("1000000.5"))
+                .askHigh(new BigDecimal("0.0001"))
+                .bigLow(BigDecimal.ZERO)
+                .change(new BigDecimal("-1.25"))
+                .volume(1000)
+                .build();
+
+        assertThat(bulkWriter.insertDailyPriceInfo(List.of(info))).isEqualTo(1);
+
+        final var saved =
+            listingHistoryRepo.findById(info.getId())
+                .orElseThrow();
+        assertThat(saved.getLastPrice()).isEqualByComparingTo("1000000.50");
+        assertThat(saved.getAskHigh()).isEqualByComparingTo("0");
+        assertThat(saved.getBigLow()).isEqualByComparingTo("0");
+        assertThat(saved.getChange()).isEqualByComparingTo("-1.25");
+        assertThat(saved.getVolume()).isEqualTo(1000);
+        assertThat(
+            saved.getDate()
+                .toInstant()
+        ).isEqualTo(
+            info.getDate()
+                .toInstant()
+        );
+    }
+}
@@ -0,0 +1,166 @@
+package rs.banka4.bank_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.AssetOwnership;
+import rs.banka4.bank_service.domain.assets.db.AssetOwnershipId;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.assets.db.PositionId;
+import rs.banka4.bank_service.domain.exchanges.db.Exchange;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.db.OptionType;
+import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.domain.user.User;
+import rs.banka4.bank_service.integration.generator.PortfolioGenerator;
+import rs.banka4.bank_service.repositories.AssetOwnershipRepository;
+import rs.banka4.bank_service.repositories.AssetRepository;
+import rs.banka4.bank_service.repositories.ExchangeRepository;
+import rs.banka4.bank_service.repositories.PositionRepository;
+import rs.banka4.bank_service.service.abstraction.SecuritiesService;
+import rs.banka4.bank_service.service.impl.MarketDataBulkWriter;
+import rs.banka4.bank_service.utils.ExchangeGenerator;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+import rs.banka4.testlib.benchmark.BenchmarkTest;
+import rs.banka4.testlib.integration.DbEnabledTest;
+
+/**
+ * Reports the latency and number of SQL statements of valuing pages of a large portfolio, half
+ * stocks and half options on them. The number of statements must not grow with the page size. Run
+ * with {@code ./gradlew benchmarkTest}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DbEnabledTest
+@BenchmarkTest
+public class PortfolioValuationBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PortfolioValuationBenchmark.class);
+    private static final int STOCKS = 1000;
+    /*
+     * The ownerships and their count, underlying stocks missing from the page (in batches of 100),
+     * OTC amounts and positions; far from one or more per holding.
+     */
+    private static final int MAX_STATEMENTS_PER_PAGE = 12;
+
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private ExchangeRepository exchangeRepository;
+    @Autowired
+    private AssetOwnershipRepository assetOwnershipRepository;
+    @Autowired
+    private PositionRepository positionRepository;
+    @Autowired
+    private MarketDataBulkWriter bulkWriter;
+    @Autowired
+    private PortfolioGenerator portfolioGenerator;
+    @Autowired
+    private SecuritiesService securitiesService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private void makePortfolio(User user, Exchange exchange) {
+        final var now = OffsetDateTime.now(ZoneOffset.UTC);
+        final var stocks = new ArrayList<Stock>(STOCKS);
+        final var listings = new ArrayList<Listing>(STOCKS);
+        final var options = new ArrayList<Option>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            final var stock =
+                Stock.builder()
+                    .name("Stock " + i)
+                    .ticker("S" + i)
+                    .dividendYield(new BigDecimal("0.05"))
+                    .outstandingShares(100_000)
+                    .build();
+            stocks.add(stock);
+            listings.add(
+                Listing.builder()
+                    .security(stock)
+                    .exchange(exchange)
+                    .bid(BigDecimal.valueOf(50 + i % 50))
+                    .ask(BigDecimal.valueOf(51 + i % 50))
+                    .contractSize(1)
+                    .lastRefresh(now)
+                    .active(true)
+                    .build()
+            );
+            options.add(
+                Option.builder()
+                    .name("S" + i + "C")
+                    .ticker("S" + i + "C")
+                    .stock(stock)
+                    .optionType(i % 2 == 0 ? OptionType.CALL : OptionType.PUT)
+                    .strikePrice(new MonetaryAmount(BigDecimal.valueOf(60), CurrencyCode.USD))
+                    .premium(new MonetaryAmount(BigDecimal.ONE, CurrencyCode.USD))
+                    .impliedVolatility(0.4)
+                    .openInterest(500)
+                    .settlementDate(now.plusDays(30))
+                    .build()
+            );
+        }
+        assetRepository.saveAllAndFlush(stocks);
+        bulkWriter.saveListings(listings);
+        bulkWriter.saveOptions(options);
+
+        final var ownerships = new ArrayList<AssetOwnership>(2 * STOCKS);
+        final var positions = new ArrayList<Position>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            final var stock = stocks.get(i);
+            ownerships.add(new AssetOwnership(new AssetOwnershipId(user, stock), 10, 5, 0));
+            ownerships.add(new AssetOwnership(new AssetOwnershipId(user, options.get(i)), 1, 0, 0));
+            positions.add(
+                new Position(
+                    new PositionId(user.getId(), stock.getId()),
+                    15,
+                    BigDecimal.valueOf(15L * (40 + i % 50))
+                )
+            );
+        }
+        assetOwnershipRepository.saveAllAndFlush(ownerships);
+        positionRepository.saveAllAndFlush(positions);
+    }
+
+    @Test
+    void statementsDoNotGrowWithPageSize() {
+        final var user = portfolioGenerator.createTestClient();
+        makePortfolio(user, exchangeRepository.save(ExchangeGenerator.makeBer1()));
+        final var statistics =
+            entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+
+        /* Warm up, which also loads the listings saved above into the quote cache. */
+        securitiesService.getMyPortfolio(user.getId(), PageRequest.of(0, 2 * STOCKS));
+
+        for (int pageSize : List.of(10, 50, 500, 2 * STOCKS)) {
+            statistics.clear();
+            final long start = System.nanoTime();
+            final var page =
+                securitiesService.getMyPortfolio(user.getId(), PageRequest.of(0, pageSize));
+            final long millis = (System.nanoTime() - start) / 1_000_000;
+            final long statements = statistics.getPrepareStatementCount();
+
+            LOGGER.info(
+                "Valued a page of {} of {} holdings in {} ms with {} statements",
+                page.getNumberOfElements(),
+                page.getTotalElements(),
+                millis,
+                statements
+            );
+            assertThat(page.getNumberOfElements()).isEqualTo(pageSize);
+            assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+        }
+    }
+}
@@ -44,8 +44,6 @@ public class SecuritiesControllerTests {
     @Autowired
     private PortfolioGenerator portfolioGenerator;
     @Autowired
-    private OrderRepository orderRepository;
-    @Autowired
     private UserRepository userRepository;
     @Autowired
     private UserGenerator userGen;
@@ -694,17 +692,14 @@ public class SecuritiesControllerTests {
             BigDecimal.valueOf(20),
             CurrencyCode.USD
         );
-        var sellOrder =
-            portfolioGenerator.createDummySellOrder(
-                client,
-                stock.get(),
-                50,
-                BigDecimal.valueOf(25),
-                CurrencyCode.USD
-            );
-        sellOrder.setRemainingPortions(10);
-        sellOrder.setDone(false);
-        orderRepository.save(sellOrder);
+        portfolioGenerator.createDummyPartialSellOrder(
+            client,
+            stock.get(),
+            50,
+            40,
+            BigDecimal.valueOf(25),
+            CurrencyCode.USD
+        );
         String expectedJson = """
             {
               "content": [
@@ -874,25 +869,22 @@ public class SecuritiesControllerTests {
             listingRepo,
             listingHistoryRepo
         );
-        var orderB =
-            portfolioGenerator.createDummyBuyOrder(
-                client,
-                stock.get(),
-                100,
-                BigDecimal.valueOf(40),
-                CurrencyCode.EUR
-            );
-        var orderS =
-            portfolioGenerator.createDummySellOrder(
-                client,
-                stock.get(),
-                200,
-                BigDecimal.valueOf(50),
-                CurrencyCode.EUR
-            );
-        orderS.setUser(clients.get(0));
-        orderB.setUser(clients.get(0));
-        orderRepository.saveAllAndFlush(List.of(orderB, orderS));
+        portfolioGenerator.createDummyBuyOrder(
+            client,
+            clients.get(0),
+            stock.get(),
+            100,
+            BigDecimal.valueOf(40),
+            CurrencyCode.EUR
+        );
+        portfolioGenerator.createDummySellOrder(
+            client,
+            clients.get(0),
+            stock.get(),
+            200,
+            BigDecimal.valueOf(50),
+            CurrencyCode.EUR
+        );
         String jwtToken = "Bearer " + JwtPlaceholders.ADMIN_EMPLOYEE_TOKEN;
         userGen.createEmployee(
             e -> e.id(JwtPlaceholders.CLIENT_ID)
@@ -6,12 +6,14 @@ import static rs.banka4.bank_service.utils.AssetGenerator.STOCK_EX1_UUID;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -20,6 +22,7 @@ import rs.banka4.bank_service.domain.account.db.Account;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
 import rs.banka4.bank_service.domain.options.db.Option;
 import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.domain.taxes.db.TaxCollectionRun;
 import rs.banka4.bank_service.domain.taxes.db.UserTaxDebts;
 import rs.banka4.bank_service.domain.user.client.db.Client;
 import rs.banka4.bank_service.generator.AccountObjectMother;
@@ -58,6 +61,8 @@ public class TaxTests {
     @Autowired
     private PortfolioGenerator portfolioGenerator;
     @Autowired
+    private TaxCollectionRunRepository taxCollectionRunRepository;
+    @Autowired
     private AssetRepository assetRepository;
     @Autowired
     private SecurityRepository securityRepository;
@@ -663,6 +668,53 @@ public class TaxTests {
         );
     }
 
+    /**
+     * Verifies that a run interrupted in an earlier month is not resumed after its last charged
+     * debt, as debts which became due since may have any ID. Every due debt is charged, and both
+     * runs end up finished.
+     */
+    @Test
+    public void testTaxMonthlyResumesInterruptedRun() {
+        Client client1 = createTestClient();
+        Client client3 = createTestClient3();
+        createStateAccount(client3);
+        UserTaxGenerator.createMultipleDebtsRSD(
+            client1,
+            3,
+            userRepository,
+            accountRepository,
+            userTaxDebtsRepository
+        );
+        var lastDebtId =
+            userTaxDebtsRepository.findDueDebtIdsAfter(new UUID(0, 0), Limit.of(3))
+                .getLast();
+        taxCollectionRunRepository.save(
+            TaxCollectionRun.builder()
+                .startedAt(
+                    OffsetDateTime.now()
+                        .minusMonths(1)
+                )
+                .lastDebtId(lastDebtId)
+                .build()
+        );
+
+        taxService.taxMonthly();
+
+        userTaxDebtsRepository.findAll()
+            .forEach(
+                userDebt -> assertEquals(
+                    0,
+                    userDebt.getDebtAmount()
+                        .signum()
+                )
+            );
+        assertTrue(
+            taxCollectionRunRepository.findFirstByFinishedAtIsNullOrderByStartedAtDesc()
+                .isEmpty()
+        );
+        assertEquals(2, taxCollectionRunRepository.count());
+    }
+
     /**
      * Tests the yearly cleanup operation, which should reset all clients' yearlyDebtAmount back to
      * zero without touching the monthly debt amounts.
@@ -20,6 +20,7 @@ import rs.banka4.bank_service.domain.user.User;
 import rs.banka4.bank_service.domain.user.client.db.Client;
 import rs.banka4.bank_service.generator.AccountObjectMother;
 import rs.banka4.bank_service.repositories.*;
+import rs.banka4.bank_service.service.abstraction.PositionLedgerService;
 import rs.banka4.bank_service.utils.ActuaryGenerator;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 import rs.banka4.testlib.utils.JwtPlaceholders;
@@ -37,7 +38,7 @@ public class PortfolioGenerator {
     @Autowired
     private AssetOwnershipRepository assetOwnershipRepository;
     @Autowired
-    private OrderRepository orderRepository;
+    private PositionLedgerService positionLedgerService;
 
     public void createDummyTax(Client client) {
         var account = AccountObjectMother.generateBasicToAccount();
@@ -105,15 +106,27 @@ public class PortfolioGenerator {
         int quantity,
         BigDecimal priceValue,
         CurrencyCode currency
+    ) {
+        return createDummyBuyOrder(userId, userId, asset, quantity, priceValue, currency);
+    }
+
+    /** Creates the order for {@code trader}, paid from an account of {@code accountOwner}. */
+    public Order createDummyBuyOrder(
+        Client accountOwner,
+        User trader,
+        Asset asset,
+        int quantity,
+        BigDecimal priceValue,
+        CurrencyCode currency
     ) {
         var account = AccountObjectMother.generateBasicToAccount();
-        account.setClient(userId);
+        account.setClient(accountOwner);
         userRepository.save(account.getEmployee());
         accountRepository.save(account);
         Order buyOrder =
             Order.builder()
                 .id(UUID.fromString("123e4567-e89b-12d3-a456-426614174000"))
-                .user(userId)
+                .user(trader)
                 .asset(asset)
                 .orderType(OrderType.MARKET)
                 .quantity(quantity)
@@ -134,7 +147,7 @@ public class PortfolioGenerator {
                 .account(account)
                 .used(false)
                 .build();
-        return orderRepository.save(buyOrder);
+        return positionLedgerService.saveExecutedOrder(buyOrder);
     }
 
     public Order createDummyBuyOrder2(
@@ -171,7 +184,7 @@ public class PortfolioGenerator {
                 .account(account)
                 .used(false)
                 .build();
-        return orderRepository.save(buyOrder);
+        return positionLedgerService.saveExecutedOrder(buyOrder);
     }
 
     public void createDummyBuyOrderSTOP(
@@ -209,7 +222,7 @@ public class PortfolioGenerator {
                 .account(account)
                 .used(false)
                 .build();
-        orderRepository.save(buyOrder);
+        positionLedgerService.saveExecutedOrder(buyOrder);
     }
 
     public Order createDummySellOrder(
@@ -218,9 +231,64 @@ public class PortfolioGenerator {
         int quantity,
         BigDecimal priceValue,
         CurrencyCode currency
+    ) {
+        return createDummySellOrder(userId, userId, asset, quantity, priceValue, currency);
+    }
+
+    /** Creates the order for {@code trader}, paid from an account of {@code accountOwner}. */
+    public Order createDummySellOrder(
+        Client accountOwner,
+        User trader,
+        Asset asset,
+        int quantity,
+        BigDecimal priceValue,
+        CurrencyCode currency
+    ) {
+        return saveDummySellOrder(
+            accountOwner,
+            trader,
+            asset,
+            quantity,
+            100,
+            true,
+            priceValue,
+            currency
+        );
+    }
+
+    /** Creates a sell order of which only {@code filled} units have been executed so far. */
+    public Order createDummyPartialSellOrder(
+        Client userId,
+        Asset asset,
+        int quantity,
+        int filled,
+        BigDecimal priceValue,
+        CurrencyCode currency
+    ) {
+        return saveDummySellOrder(
+            userId,
+            userId,
+            asset,
+            quantity,
+            quantity - filled,
+            false,
+            priceValue,
+            currency
+        );
+    }
+
+    private Order saveDummySellOrder(
+        Client accountOwner,
+        User trader,
+        Asset asset,
+        int quantity,
+        int remainingPortions,
+        boolean done,
+        BigDecimal priceValue,
+        CurrencyCode currency
     ) {
         var account = AccountObjectMother.generateBasicEURFromAccount();
-        account.setClient(userId);
+        account.setClient(accountOwner);
         account.setAccountNumber(
             UUID.randomUUID()
                 .toString()
@@ -229,7 +297,7 @@ public class PortfolioGenerator {
         accountRepository.save(account);
         Order buyOrder =
             Order.builder()
-                .user(userId)
+                .user(trader)
                 .asset(asset)
                 .orderType(OrderType.MARKET)
                 .quantity(quantity)
@@ -238,10 +306,10 @@ public class PortfolioGenerator {
                 .direction(Direction.SELL)
                 .status(Status.APPROVED)
                 .approvedBy(null)
-                .isDone(true)
+                .isDone(done)
                 .lastModified(OffsetDateTime.now())
                 .createdAt(OffsetDateTime.now())
-                .remainingPortions(100)
+                .remainingPortions(remainingPortions)
                 .afterHours(false)
                 .limitValue(null)
                 .stopValue(null)
@@ -250,7 +318,7 @@ public class PortfolioGenerator {
                 .account(account)
                 .used(false)
                 .build();
-        return orderRepository.save(buyOrder);
+        return positionLedgerService.saveExecutedOrder(buyOrder);
     }
 
     public Client createTestClient() {
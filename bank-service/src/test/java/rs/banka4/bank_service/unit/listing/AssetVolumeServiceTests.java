@@ -0,0 +1,71 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolume;
+import rs.banka4.bank_service.domain.listing.db.AssetDailyVolumeId;
+import rs.banka4.bank_service.repositories.AssetDailyVolumeRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
+import rs.banka4.bank_service.service.impl.AssetVolumeServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+class AssetVolumeServiceTests {
+    @Mock
+    private AssetDailyVolumeRepository assetDailyVolumeRepository;
+
+    @InjectMocks
+    private AssetVolumeServiceImpl assetVolumeService;
+
+    private final UUID assetA = UUID.randomUUID();
+    private final UUID assetB = UUID.randomUUID();
+
+    @Test
+    void volumeStartsFromPersistedCounterAndGrowsWithOrders() {
+        LocalDate today = LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE);
+        when(assetDailyVolumeRepository.findAllByIdDay(today)).thenReturn(
+            List.of(new AssetDailyVolume(new AssetDailyVolumeId(assetA, today), 5))
+        );
+
+        assetVolumeService.recordOrder(assetA);
+        assetVolumeService.recordOrder(assetA);
+        assetVolumeService.recordOrder(assetB);
+
+        assertThat(assetVolumeService.getVolume(assetA)).isEqualTo(7);
+        assertThat(assetVolumeService.getVolume(assetB)).isEqualTo(1);
+        assertThat(assetVolumeService.getVolumes(List.of(assetA, assetB, UUID.randomUUID())))
+            .containsEntry(assetA, 7)
+            .containsEntry(assetB, 1)
+            .hasSize(3)
+            .containsValue(0);
+    }
+
+    @Test
+    void flushWritesOnlyUnpersistedDeltas() {
+        LocalDate today = LocalDate.now(AssetVolumeService.TRADING_DAY_ZONE);
+        when(assetDailyVolumeRepository.findAllByIdDay(today)).thenReturn(List.of());
+
+        assetVolumeService.recordOrder(assetA);
+        assetVolumeService.recordOrder(assetA);
+        assetVolumeService.flush();
+
+        verify(assetDailyVolumeRepository).addVolume(assetA, today, 2);
+
+        /* Nothing new was counted, so the next flush must not write anything. */
+        assetVolumeService.flush();
+        verify(assetDailyVolumeRepository, times(1)).addVolume(any(), any(), anyInt());
+        assertThat(assetVolumeService.getVolume(assetA)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,59 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static rs.banka4.rafeisen.common.currency.CurrencyCode.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.security.forex.db.ForexCrossRates;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+class ForexCrossRatesTests {
+    private static BigDecimal rateOf(
+        List<ForexCrossRates.Rate> rates,
+        CurrencyCode base,
+        CurrencyCode quote
+    ) {
+        return rates.stream()
+            .filter(r -> r.baseCurrency() == base && r.quoteCurrency() == quote)
+            .findFirst()
+            .orElseThrow()
+            .rate();
+    }
+
+    @Test
+    void derivesAllOrderedPairsFromBaseQuotes() {
+        var rates =
+            ForexCrossRates.derive(
+                USD,
+                Map.of(EUR, new BigDecimal("0.9"), RSD, new BigDecimal("105.3"))
+            );
+
+        assertThat(rates).hasSize(6);
+        assertThat(rateOf(rates, USD, EUR)).isEqualByComparingTo("0.9");
+        assertThat(rateOf(rates, EUR, USD)).isEqualByComparingTo("1.1111111111");
+        assertThat(rateOf(rates, EUR, RSD)).isEqualByComparingTo("117");
+        assertThat(rateOf(rates, RSD, EUR)).isEqualByComparingTo("0.0085470085");
+    }
+
+    @Test
+    void skipsCurrenciesWithoutQuote() {
+        var quotes = new HashMap<CurrencyCode, BigDecimal>();
+        quotes.put(EUR, new BigDecimal("0.9"));
+        quotes.put(GBP, null);
+        quotes.put(JPY, BigDecimal.ZERO);
+
+        var rates = ForexCrossRates.derive(USD, quotes);
+
+        assertThat(rates).hasSize(2)
+            .allSatisfy(
+                r -> assertThat(
+                    r.rate()
+                        .scale()
+                ).isEqualTo(ForexCrossRates.SCALE)
+            );
+    }
+}
@@ -0,0 +1,137 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
+import rs.banka4.bank_service.generator.ListingObjectMother;
+import rs.banka4.bank_service.repositories.ListingRepository;
+import rs.banka4.bank_service.service.impl.ListingQuoteCache;
+
+@ExtendWith(MockitoExtension.class)
+class ListingQuoteCacheTests {
+    @Mock
+    private ListingRepository listingRepository;
+
+    private ListingQuoteCache quoteCache;
+    private Listing listing;
+    private UUID securityId;
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = new ListingQuoteCache(listingRepository, null, 0);
+        listing = ListingObjectMother.generateBasicListing();
+        securityId =
+            listing.getSecurity()
+                .getId();
+    }
+
+    @Test
+    void refreshLoadsAllActiveListingsAtOnce() {
+        when(listingRepository.findAllActiveListings()).thenReturn(List.of(listing));
+
+        quoteCache.refresh();
+
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(listing));
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(listing));
+        verify(listingRepository, never()).findBySecurityIdAndActiveTrue(any());
+    }
+
+    @Test
+    void missingListingIsLoadedOnce() {
+        when(listingRepository.findBySecurityIdAndActiveTrue(securityId)).thenReturn(
+            Optional.of(listing)
+        );
+
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(listing));
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(listing));
+        verify(listingRepository).findBySecurityIdAndActiveTrue(securityId);
+    }
+
+    @Test
+    void cachedQuoteIsNotAffectedByChangesToTheListing() {
+        when(listingRepository.findAllActiveListings()).thenReturn(List.of(listing));
+
+        quoteCache.refresh();
+        listing.setAsk(new BigDecimal("1"));
+
+        assertThat(quoteCache.get(securityId)).hasValueSatisfying(
+            quote -> assertThat(quote.ask()).isEqualByComparingTo("1000")
+        );
+    }
+
+    @Test
+    void missingListingsAreLoadedTogether() {
+        var unlisted = UUID.randomUUID();
+        when(listingRepository.findAllActiveBySecurityIds(Set.of(securityId, unlisted))).thenReturn(
+            List.of(listing)
+        );
+
+        assertThat(quoteCache.getAll(List.of(securityId, unlisted))).isEqualTo(
+            Map.of(securityId, ListingQuote.of(listing))
+        );
+        assertThat(quoteCache.getAll(List.of(securityId))).isEqualTo(
+            Map.of(securityId, ListingQuote.of(listing))
+        );
+        verify(listingRepository).findAllActiveBySecurityIds(any());
+        verify(listingRepository, never()).findBySecurityIdAndActiveTrue(any());
+    }
+
+    @Test
+    void refreshReplacesCachedListings() {
+        var refreshed = ListingObjectMother.generateBasicListing();
+        refreshed.setId(UUID.randomUUID());
+        refreshed.setAsk(new BigDecimal("1234"));
+        when(listingRepository.findAllActiveListings()).thenReturn(List.of(listing))
+            .thenReturn(List.of(refreshed));
+
+        quoteCache.refresh();
+        long version = quoteCache.getVersion();
+        quoteCache.refresh();
+
+        assertThat(quoteCache.getVersion()).isGreaterThan(version);
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(refreshed));
+    }
+
+    @Test
+    void partialRefreshOnlyReloadsTheGivenSecurities() {
+        var other = ListingObjectMother.generateBasicListing();
+        other.getSecurity()
+            .setId(UUID.randomUUID());
+        var refreshed = ListingObjectMother.generateBasicListing();
+        refreshed.setAsk(new BigDecimal("1234"));
+        when(listingRepository.findAllActiveListings()).thenReturn(List.of(listing, other));
+        when(listingRepository.findAllActiveBySecurityIds(Set.of(securityId))).thenReturn(
+            List.of(refreshed)
+        );
+
+        quoteCache.refresh();
+        long version = quoteCache.getVersion();
+        quoteCache.refresh(Set.of(securityId));
+
+        assertThat(quoteCache.getVersion()).isGreaterThan(version);
+        assertThat(quoteCache.get(securityId)).contains(ListingQuote.of(refreshed));
+        assertThat(
+            quoteCache.get(
+                other.getSecurity()
+                    .getId()
+            )
+        ).contains(ListingQuote.of(other));
+        verify(listingRepository).findAllActiveListings();
+    }
+}
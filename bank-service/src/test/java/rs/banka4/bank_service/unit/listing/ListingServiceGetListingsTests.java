@@ -0,0 +1,104 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingFilterDto;
+import rs.banka4.bank_service.domain.listing.dtos.ListingInfoDto;
+import rs.banka4.bank_service.domain.listing.dtos.SecurityLastPrice;
+import rs.banka4.bank_service.generator.ListingObjectMother;
+import rs.banka4.bank_service.repositories.ListingDailyPriceInfoRepository;
+import rs.banka4.bank_service.repositories.ListingRepository;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
+import rs.banka4.bank_service.service.impl.ListingServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+class ListingServiceGetListingsTests {
+    @Mock
+    private ListingRepository listingRepository;
+    @Mock
+    private AssetVolumeService assetVolumeService;
+    @Mock
+    private ListingDailyPriceInfoRepository listingDailyPriceInfoRepository;
+    @InjectMocks
+    private ListingServiceImpl listingService;
+
+    private Listing makeListing(String ask) {
+        var listing = ListingObjectMother.generateBasicListing();
+        listing.setId(UUID.randomUUID());
+        listing.getSecurity()
+            .setId(UUID.randomUUID());
+        listing.setAsk(new BigDecimal(ask));
+        return listing;
+    }
+
+    private static UUID securityId(Listing listing) {
+        return listing.getSecurity()
+            .getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPage(List<Listing> listings) {
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(
+            new PageImpl<>(listings)
+        );
+    }
+
+    @Test
+    void enrichesWholePageWithOneLookupEach() {
+        var first = makeListing("110");
+        var second = makeListing("50");
+        var third = makeListing("20");
+        givenPage(List.of(first, second, third));
+        when(assetVolumeService.getVolumes(anyCollection())).thenReturn(
+            Map.of(securityId(first), 7, securityId(second), 0, securityId(third), 3)
+        );
+        when(listingDailyPriceInfoRepository.findLatestLastPrices(anyCollection())).thenReturn(
+            List.of(
+                new SecurityLastPrice(securityId(first), new BigDecimal("100")),
+                new SecurityLastPrice(securityId(third), new BigDecimal("25"))
+            )
+        );
+
+        var page =
+            listingService.getListings(new ListingFilterDto(), PageRequest.of(0, 50), false);
+
+        assertThat(page.getContent()).extracting(ListingInfoDto::volume)
+            .containsExactly(7, 0, 3);
+        assertThat(page.getContent()).extracting(ListingInfoDto::change)
+            .containsExactly(new BigDecimal("10"), null, new BigDecimal("-5"));
+        verify(assetVolumeService, times(1)).getVolumes(anyCollection());
+        verify(listingDailyPriceInfoRepository, times(1)).findLatestLastPrices(anyCollection());
+    }
+
+    @Test
+    void emptyPageSkipsPriceLookup() {
+        givenPage(List.of());
+        when(assetVolumeService.getVolumes(anyCollection())).thenReturn(Map.of());
+
+        var page =
+            listingService.getListings(new ListingFilterDto(), PageRequest.of(0, 50), false);
+
+        assertThat(page.getContent()).isEmpty();
+        verify(listingDailyPriceInfoRepository, never()).findLatestLastPrices(anyCollection());
+    }
+}
@@ -0,0 +1,50 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+import rs.banka4.bank_service.service.impl.MarketDataFetcher;
+
+class MarketDataFetcherTests {
+    private final MarketDataFetcher fetcher = new MarketDataFetcher(1000);
+
+    @SuppressWarnings("unchecked")
+    private static Call<String> call(Response<String> response) throws IOException {
+        Call<String> call = mock(Call.class);
+        when(call.execute()).thenReturn(response);
+        return call;
+    }
+
+    @Test
+    void returnsBodiesInKeyOrderAndSkipsFailures() throws IOException {
+        var ok1 = call(Response.success("first"));
+        var failed = call(Response.error(429, mock(ResponseBody.class)));
+        var ok2 = call(Response.success("second"));
+        Call<String> throwing = mock();
+        when(throwing.execute()).thenThrow(new IOException("connection reset"));
+
+        var result =
+            fetcher.fetchAll(
+                List.of("a", "b", "c", "d"),
+                key -> switch (key) {
+                case "a" -> ok1;
+                case "b" -> failed;
+                case "c" -> throwing;
+                default -> ok2;
+                }
+            );
+
+        assertThat(result).containsExactly(
+            entry("a", "first"),
+            entry("d", "second")
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rs.banka4.bank_service.domain.security.forex.db.ForexLiquidity;
+import rs.banka4.bank_service.domain.security.forex.db.ForexPair;
+import rs.banka4.bank_service.domain.security.stock.db.Stock;
+import rs.banka4.bank_service.service.impl.MarketDataSnapshotStore;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+class MarketDataSnapshotStoreTests {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        var store = new MarketDataSnapshotStore(directory.resolve("market-data.snapshot"));
+        var time = OffsetDateTime.of(2026, 10, 19, 12, 30, 0, 0, ZoneOffset.UTC);
+        var stock =
+            Stock.builder()
+                .id(UUID.randomUUID())
+                .ticker("AAPL")
+                .name("Apple Inc.")
+                .dividendYield(new BigDecimal("0.0044"))
+                .outstandingShares(15_000_000_000L)
+                .createdAt(time)
+                .build();
+        var forexPair =
+            ForexPair.builder()
+                .id(UUID.randomUUID())
+                .ticker("EUR/RSD")
+                .name("EUR to RSD")
+                .baseCurrency(CurrencyCode.EUR)
+                .quoteCurrency(CurrencyCode.RSD)
+                .liquidity(ForexLiquidity.LOW)
+                .exchangeRate(new BigDecimal("117.1234"))
+                .build();
+        var quote =
+            new MarketDataSnapshotStore.Quote(
+                UUID.randomUUID(),
+                stock.getId(),
+                UUID.randomUUID(),
+                new BigDecimal("231.456789"),
+                new BigDecimal("-0.5"),
+                150,
+                time
+            );
+
+        store.write(
+            new MarketDataSnapshotStore.Snapshot(
+                Instant.ofEpochMilli(1_792_395_100_000L),
+                List.of(stock),
+                List.of(forexPair),
+                List.of(quote)
+            )
+        );
+        var snapshot =
+            store.read()
+                .orElseThrow();
+
+        assertThat(snapshot.takenAt()).isEqualTo(Instant.ofEpochMilli(1_792_395_100_000L));
+        assertThat(snapshot.stocks()).singleElement()
+            .usingRecursiveComparison()
+            .isEqualTo(stock);
+        assertThat(snapshot.forexPairs()).singleElement()
+            .usingRecursiveComparison()
+            .isEqualTo(forexPair);
+        assertThat(snapshot.quotes()).containsExactly(quote);
+    }
+
+    @Test
+    void ignoresMissingAndForeignFiles() throws IOException {
+        var path = directory.resolve("market-data.snapshot");
+        var store = new MarketDataSnapshotStore(path);
+
+        assertThat(store.read()).isEmpty();
+
+        Files.writeString(path, "not a snapshot");
+        assertThat(store.read()).isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package rs.banka4.bank_service.unit.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.listing.dtos.StockQuote;
+import rs.banka4.bank_service.service.impl.ReplayQuoteSource;
+import rs.banka4.bank_service.service.impl.SyntheticQuoteSource;
+
+class QuoteSourceTests {
+    private static final String TICK_FILE = """
+        offset_ms,ticker,price,volume
+        0,AAPL,100.00,5000
+        0,MSFT,300.00,7000
+        500,AAPL,101.00,5100
+        999,MSFT,301.00,7100
+        """;
+
+    private final AtomicLong nanos = new AtomicLong(0);
+
+    private ReplayQuoteSource replay(double speed) throws IOException {
+        var ticks = ReplayQuoteSource.parseTicks(new BufferedReader(new StringReader(TICK_FILE)));
+        return new ReplayQuoteSource(ticks, speed, nanos::get);
+    }
+
+    private void advanceMillis(long millis) {
+        nanos.addAndGet(millis * 1_000_000);
+    }
+
+    private static BigDecimal price(Map<String, StockQuote> quotes, String ticker) {
+        return quotes.get(ticker)
+            .price();
+    }
+
+    @Test
+    void replayReturnsLatestTickOfEachTicker() throws IOException {
+        var source = replay(1);
+
+        var quotes = source.fetchQuotes(List.of("AAPL", "MSFT", "NVDA"));
+        assertThat(quotes).containsOnlyKeys("AAPL", "MSFT");
+        assertThat(price(quotes, "AAPL")).isEqualByComparingTo("100.00");
+
+        advanceMillis(600);
+        quotes = source.fetchQuotes(List.of("AAPL", "MSFT"));
+        assertThat(price(quotes, "AAPL")).isEqualByComparingTo("101.00");
+        assertThat(price(quotes, "MSFT")).isEqualByComparingTo("300.00");
+        assertThat(
+            quotes.get("AAPL")
+                .volume()
+        ).isEqualTo(5100);
+    }
+
+    @Test
+    void replaySpeedScalesRecordedTime() throws IOException {
+        var source = replay(10);
+
+        /* 60 ms at 10x is 600 ms into the recording. */
+        advanceMillis(60);
+        assertThat(price(source.fetchQuotes(List.of("AAPL")), "AAPL")).isEqualByComparingTo(
+            "101.00"
+        );
+    }
+
+    @Test
+    void replayStartsOverAfterTheRecording() throws IOException {
+        var source = replay(1);
+
+        advanceMillis(999);
+        assertThat(price(source.fetchQuotes(List.of("MSFT")), "MSFT")).isEqualByComparingTo(
+            "301.00"
+        );
+
+        /* The recording is 1000 ms long, so this is 0 ms into the second pass. */
+        advanceMillis(1);
+        var quotes = source.fetchQuotes(List.of("AAPL", "MSFT"));
+        assertThat(price(quotes, "AAPL")).isEqualByComparingTo("100.00");
+        assertThat(price(quotes, "MSFT")).isEqualByComparingTo("300.00");
+
+        /* Skipping many passes ends up at the same point of the recording. */
+        advanceMillis(1_000_000 + 500);
+        assertThat(price(source.fetchQuotes(List.of("AAPL")), "AAPL")).isEqualByComparingTo(
+            "101.00"
+        );
+    }
+
+    @Test
+    void replayRejectsSpeedOutOfRange() {
+        assertThatThrownBy(() -> replay(0.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> replay(1001)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void syntheticQuotesAreDeterministic() {
+        var first = new SyntheticQuoteSource(7, 0.01);
+        var second = new SyntheticQuoteSource(7, 0.01);
+
+        for (int i = 0; i < 100; i++) {
+            /* Fetching other tickers in between does not change a ticker's walk. */
+            if (i % 3 == 0) second.fetchQuotes(List.of("MSFT"));
+            var a = first.fetchQuotes(List.of("AAPL"));
+            var b = second.fetchQuotes(List.of("AAPL"));
+            assertThat(a).isEqualTo(b);
+            assertThat(price(a, "AAPL")).isPositive();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package rs.banka4.bank_service.unit.option;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.options.db.BatchOptionPricing;
+import rs.banka4.bank_service.domain.options.db.BlackHolesOptionPricing;
+import rs.banka4.bank_service.domain.options.db.OptionType;
+
+class BatchOptionPricingTests {
+    private static BatchOptionPricing.Result priceOne(
+        double s,
+        double k,
+        double t,
+        double sigma,
+        boolean call
+    ) {
+        return BatchOptionPricing.price(
+            new double[] {
+                s
+            },
+            new double[] {
+                k
+            },
+            new double[] {
+                t
+            },
+            new double[] {
+                BatchOptionPricing.RISK_FREE_RATE
+            },
+            new double[] {
+                sigma
+            },
+            new boolean[] {
+                call
+            }
+        );
+    }
+
+    @Test
+    void pricesMatchTheExactModel() {
+        var random = new Random(7);
+        int n = 20_000;
+        double[] s = new double[n];
+        double[] k = new double[n];
+        double[] t = new double[n];
+        double[] r = new double[n];
+        double[] sigma = new double[n];
+        boolean[] call = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = 20 + random.nextDouble() * 200;
+            k[i] = s[i] * (0.8 + random.nextDouble() * 0.4);
+            t[i] = 0.01 + random.nextDouble() * 0.6;
+            r[i] = BatchOptionPricing.RISK_FREE_RATE;
+            sigma[i] = 0.1 + random.nextDouble() * 0.6;
+            call[i] = random.nextBoolean();
+        }
+
+        /* Large enough to be priced in parallel chunks. */
+        var result = BatchOptionPricing.price(s, k, t, r, sigma, call);
+
+        assertThat(result.size()).isEqualTo(n);
+        for (int i = 0; i < n; i++) {
+            double expected =
+                BlackHolesOptionPricing.calculateOptionPrice(
+                    s[i],
+                    k[i],
+                    t[i],
+                    r[i],
+                    sigma[i],
+                    call[i] ? OptionType.CALL : OptionType.PUT
+                );
+            assertThat(result.price()[i]).isCloseTo(expected, within(1e-4));
+        }
+    }
+
+    @Test
+    void greeksMatchFiniteDifferences() {
+        double s = 100, k = 105, t = 0.25, sigma = 0.4, h = 0.5;
+
+        for (boolean call : new boolean[] {
+            true, false
+        }) {
+            var at = priceOne(s, k, t, sigma, call);
+            var up = priceOne(s + h, k, t, sigma, call);
+            var down = priceOne(s - h, k, t, sigma, call);
+            var later = priceOne(s, k, t - 1.0 / 365, sigma, call);
+            var volUp = priceOne(s, k, t, sigma + 0.01, call);
+
+            assertThat(at.delta()[0]).isCloseTo(
+                (up.price()[0] - down.price()[0]) / (2 * h),
+                within(1e-3)
+            );
+            assertThat(at.gamma()[0]).isCloseTo(
+                (up.delta()[0] - down.delta()[0]) / (2 * h),
+                within(1e-4)
+            );
+            assertThat(at.theta()[0]).isCloseTo(
+                later.price()[0] - at.price()[0],
+                within(1e-3)
+            );
+            assertThat(at.vega()[0]).isCloseTo(volUp.price()[0] - at.price()[0], within(1e-3));
+        }
+    }
+
+    @Test
+    void satisfiesPutCallParity() {
+        double s = 87.5, k = 90, t = 0.5, sigma = 0.3;
+
+        var call = priceOne(s, k, t, sigma, true);
+        var put = priceOne(s, k, t, sigma, false);
+
+        assertThat(call.price()[0] - put.price()[0]).isCloseTo(
+            s - k * Math.exp(-BatchOptionPricing.RISK_FREE_RATE * t),
+            within(1e-6)
+        );
+        assertThat(call.delta()[0] - put.delta()[0]).isCloseTo(1, within(1e-9));
+    }
+
+    @Test
+    void expiredOptionsAreWorthNothing() {
+        var result = priceOne(100, 90, -0.1, 0.4, true);
+
+        assertThat(result.price()).containsExactly(0);
+        assertThat(
+            Arrays.stream(new double[][] {
+                result.delta(), result.gamma(), result.theta(), result.vega()
+            })
+                .flatMapToDouble(Arrays::stream)
+        ).containsOnly(0.0);
+    }
+}
@@ -0,0 +1,91 @@
+package rs.banka4.bank_service.unit.option;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.options.db.BatchOptionPricing;
+import rs.banka4.bank_service.domain.options.db.BlackHolesOptionPricing;
+import rs.banka4.bank_service.domain.options.db.Option;
+import rs.banka4.bank_service.domain.options.db.OptionType;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+import rs.banka4.testlib.benchmark.BenchmarkTest;
+
+/**
+ * Compares pricing the option chains of a few hundred stocks one option at a time with pricing
+ * them in one batch. Run with {@code ./gradlew benchmarkTest}.
+ */
+@BenchmarkTest
+class OptionPricingBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptionPricingBenchmark.class);
+    /* 242 options per stock, as made by OptionsMaker. */
+    private static final int OPTIONS = 242 * 500;
+    private static final int ROUNDS = 10;
+
+    private static List<Option> generateOptions() {
+        final var random = new Random(42);
+        final var now = OffsetDateTime.now(ZoneOffset.UTC);
+        final var options = new ArrayList<Option>(OPTIONS);
+        for (int i = 0; i < OPTIONS; i++) {
+            options.add(
+                Option.builder()
+                    .optionType(random.nextBoolean() ? OptionType.CALL : OptionType.PUT)
+                    .strikePrice(
+                        new MonetaryAmount(
+                            BigDecimal.valueOf(95 + random.nextInt(11)),
+                            CurrencyCode.USD
+                        )
+                    )
+                    .impliedVolatility(0.4)
+                    .settlementDate(now.plusDays(6 + random.nextInt(200)))
+                    .build()
+            );
+        }
+        return options;
+    }
+
+    @Test
+    void batchPricingIsFasterThanPricingOneByOne() {
+        final var options = generateOptions();
+        final double spot = 100;
+        final double[] single = new double[OPTIONS];
+        BatchOptionPricing.Result batch = null;
+
+        /* The first round warms up both paths. */
+        long singleNanos = 0, batchNanos = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPTIONS; i++)
+                single[i] =
+                    BlackHolesOptionPricing.calculateOptionPriceFromOption(options.get(i), spot);
+            long afterSingle = System.nanoTime();
+            batch =
+                BatchOptionPricing.priceOptions(options, spot, OffsetDateTime.now(ZoneOffset.UTC));
+            long afterBatch = System.nanoTime();
+            if (round > 0) {
+                singleNanos += afterSingle - start;
+                batchNanos += afterBatch - afterSingle;
+            }
+        }
+
+        LOGGER.info(
+            "Pricing {} options: one by one {} ms, batch with greeks {} ms ({} rounds avg)",
+            OPTIONS,
+            singleNanos / ROUNDS / 1_000_000,
+            batchNanos / ROUNDS / 1_000_000,
+            ROUNDS
+        );
+
+        for (int i = 0; i < OPTIONS; i++)
+            assertThat(batch.price()[i]).isCloseTo(single[i], within(1e-3));
+    }
+}
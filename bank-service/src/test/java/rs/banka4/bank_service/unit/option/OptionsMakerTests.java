@@ -0,0 +1,57 @@
+package rs.banka4.bank_service.unit.option;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.options.db.OptionsMaker;
+
+class OptionsMakerTests {
+    @Test
+    void expiriesAreInTheFutureAndCoverTheUsualRange() {
+        var today = LocalDate.of(2026, 10, 19);
+
+        var expiries = OptionsMaker.makeExpiries(today);
+
+        assertThat(expiries).hasSize(11)
+            .isSorted()
+            .doesNotHaveDuplicates();
+        assertThat(
+            expiries.getFirst()
+                .toLocalDate()
+        ).isAfter(today)
+            .isBeforeOrEqualTo(today.plusDays(6));
+        assertThat(
+            expiries.get(4)
+                .toLocalDate()
+        ).isBeforeOrEqualTo(today.plusDays(30));
+        assertThat(
+            expiries.getLast()
+                .toLocalDate()
+        ).isAfter(today.plusDays(150));
+    }
+
+    @Test
+    void expiriesOnlyChangeWhenOneExpires() {
+        var today = LocalDate.of(2026, 10, 19);
+
+        for (int day = 0; day < 60; day++) {
+            var before = OptionsMaker.makeExpiries(today.plusDays(day));
+            var after = OptionsMaker.makeExpiries(today.plusDays(day + 1));
+
+            var dropped = new ArrayList<OffsetDateTime>(before);
+            dropped.removeAll(after);
+            var kept = new HashSet<>(before);
+            kept.retainAll(after);
+            assertThat(dropped).allSatisfy(
+                expiry -> assertThat(expiry.toLocalDate()).isBeforeOrEqualTo(
+                    today.plusDays(day + 1)
+                )
+            );
+            assertThat(kept).hasSize(before.size() - dropped.size());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package rs.banka4.bank_service.unit.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.orders.OpenOrderBook;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.db.OrderEvent;
+import rs.banka4.bank_service.domain.orders.db.OrderEventType;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+class OpenOrderBookTests {
+    private final UUID asset = UUID.randomUUID();
+    private final UUID orderA = UUID.randomUUID();
+    private final UUID orderB = UUID.randomUUID();
+
+    private long sequence = 0;
+
+    private OrderEvent event(UUID orderId, OrderEventType type, int remaining) {
+        return OrderEvent.builder()
+            .sequenceNumber(++sequence)
+            .orderId(orderId)
+            .assetId(asset)
+            .type(type)
+            .direction(Direction.BUY)
+            .pricePerUnit(new MonetaryAmount(BigDecimal.TEN, CurrencyCode.USD))
+            .remainingPortions(remaining)
+            .approved(type != OrderEventType.CREATED)
+            .build();
+    }
+
+    @Test
+    void appliesLifecycleEvents() {
+        var book = new OpenOrderBook();
+
+        book.apply(event(orderA, OrderEventType.CREATED, 10));
+        book.apply(event(orderB, OrderEventType.CREATED, 5));
+        book.apply(event(orderA, OrderEventType.APPROVED, 10));
+        book.apply(event(orderA, OrderEventType.PARTIALLY_FILLED, 4));
+        book.apply(event(orderB, OrderEventType.DECLINED, 5));
+
+        assertThat(book.getOpenOrders(asset)).singleElement()
+            .satisfies(o -> {
+                assertThat(o.orderId()).isEqualTo(orderA);
+                assertThat(o.remainingPortions()).isEqualTo(4);
+                assertThat(o.approved()).isTrue();
+            });
+        assertThat(book.getLastSequenceNumber()).isEqualTo(5);
+
+        book.apply(event(orderA, OrderEventType.FILLED, 0));
+
+        assertThat(book.size()).isZero();
+        assertThat(book.getAssetIds()).isEmpty();
+    }
+
+    @Test
+    void replayOnTopOfSnapshotMatchesFullReplay() {
+        var events =
+            List.of(
+                event(orderA, OrderEventType.CREATED, 10),
+                event(orderB, OrderEventType.CREATED, 5),
+                event(orderA, OrderEventType.PARTIALLY_FILLED, 3),
+                event(orderB, OrderEventType.FILLED, 0)
+            );
+
+        var full = new OpenOrderBook();
+        events.forEach(full::apply);
+
+        var head = new OpenOrderBook();
+        events.subList(0, 2)
+            .forEach(head::apply);
+        var restored = new OpenOrderBook();
+        restored.restore(asset, head.getLastSequenceNumber(), head.getOpenOrders(asset));
+        events.subList(2, events.size())
+            .forEach(restored::apply);
+
+        assertThat(restored.getOpenOrders(asset)).isEqualTo(full.getOpenOrders(asset));
+        assertThat(restored.getLastSequenceNumber()).isEqualTo(full.getLastSequenceNumber());
+    }
+}
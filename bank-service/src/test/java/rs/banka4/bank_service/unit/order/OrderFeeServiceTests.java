@@ -0,0 +1,121 @@
+package rs.banka4.bank_service.unit.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import rs.banka4.bank_service.domain.account.db.Account;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.orders.db.OrderFee;
+import rs.banka4.bank_service.domain.trading.db.ForeignBankId;
+import rs.banka4.bank_service.generator.AccountObjectMother;
+import rs.banka4.bank_service.repositories.OrderFeeRepository;
+import rs.banka4.bank_service.service.abstraction.BankAccountService;
+import rs.banka4.bank_service.service.abstraction.TransactionService;
+import rs.banka4.bank_service.service.impl.OrderFeeServiceImpl;
+import rs.banka4.bank_service.tx.TxExecutor;
+import rs.banka4.bank_service.tx.data.DoubleEntryTransaction;
+import rs.banka4.bank_service.tx.data.Posting;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+@ExtendWith(MockitoExtension.class)
+class OrderFeeServiceTests {
+    @Mock
+    private OrderFeeRepository orderFeeRepository;
+    @Mock
+    private BankAccountService bankAccountService;
+    @Mock
+    private TxExecutor txExecutor;
+    @Mock
+    private TransactionService transactionService;
+
+    @InjectMocks
+    private OrderFeeServiceImpl orderFeeService;
+
+    private OrderFee pendingFee(Account account, String amount) {
+        return OrderFee.builder()
+            .account(account)
+            .orderId(UUID.randomUUID())
+            .amount(new MonetaryAmount(new BigDecimal(amount), account.getCurrency()))
+            .accruedAt(OffsetDateTime.now())
+            .build();
+    }
+
+    @Test
+    void settlesAllPendingFeesOfAnAccountInOneTransaction() {
+        Account account = AccountObjectMother.generateBasicFromAccount();
+        Account bankAccount = AccountObjectMother.generateBasicToAccount();
+        var fees =
+            List.of(
+                pendingFee(account, "1.50"),
+                pendingFee(account, "2.25"),
+                pendingFee(account, "7")
+            );
+        var txId = ForeignBankId.our(UUID.randomUUID());
+
+        when(orderFeeRepository.findAllByAccount_IdAndSettledAtIsNull(account.getId())).thenReturn(
+            fees
+        );
+        when(bankAccountService.getBankAccountForCurrency(CurrencyCode.RSD)).thenReturn(
+            bankAccount
+        );
+        when(txExecutor.submitImmediateTx(any())).thenReturn(txId);
+
+        orderFeeService.settlePendingFees(account.getId());
+
+        var inOrder = inOrder(orderFeeRepository, txExecutor);
+        inOrder.verify(orderFeeRepository)
+            .saveAllAndFlush(fees);
+        var txCaptor = ArgumentCaptor.forClass(DoubleEntryTransaction.class);
+        inOrder.verify(txExecutor)
+            .submitImmediateTx(txCaptor.capture());
+        assertThat(
+            txCaptor.getValue()
+                .postings()
+        ).extracting(Posting::amountAsMonetaryValue)
+            .containsExactly(
+                new MonetaryAmount(new BigDecimal("-10.75"), CurrencyCode.RSD),
+                new MonetaryAmount(new BigDecimal("10.75"), CurrencyCode.RSD)
+            );
+        verify(transactionService, times(1)).createFeeTransaction(
+            eq(account),
+            eq(bankAccount.getAccountNumber()),
+            eq(CurrencyCode.RSD),
+            eq(new BigDecimal("10.75")),
+            eq(txId)
+        );
+        assertThat(fees).allSatisfy(fee -> {
+            assertThat(fee.getSettledAt()).isNotNull();
+            assertThat(fee.getSettlingTransaction()).isEqualTo(txId);
+        });
+    }
+
+    @Test
+    void doesNothingWithoutPendingFees() {
+        UUID accountId = UUID.randomUUID();
+        when(orderFeeRepository.findAllByAccount_IdAndSettledAtIsNull(accountId)).thenReturn(
+            List.of()
+        );
+
+        orderFeeService.settlePendingFees(accountId);
+
+        verifyNoInteractions(txExecutor, transactionService);
+        verify(orderFeeRepository, never()).saveAll(any());
+    }
+}
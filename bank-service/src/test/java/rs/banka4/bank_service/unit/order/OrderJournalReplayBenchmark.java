@@ -0,0 +1,126 @@
+package rs.banka4.bank_service.unit.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.orders.OpenOrderBook;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.db.OrderEvent;
+import rs.banka4.bank_service.domain.orders.db.OrderEventType;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+import rs.banka4.testlib.benchmark.BenchmarkTest;
+
+/**
+ * Compares recovering the open order book by replaying the whole journal of a million orders with
+ * recovering it from a snapshot and a short tail. Run with {@code ./gradlew benchmarkTest}.
+ */
+@BenchmarkTest
+class OrderJournalReplayBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderJournalReplayBenchmark.class);
+    private static final int ORDERS = 1_000_000;
+    private static final int ASSETS = 200;
+    private static final int TAIL_EVENTS = 20_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Generates the journal: every order is created and approved, and all but about one percent
+     * are then filled.
+     */
+    private static List<OrderEvent> generateJournal() {
+        final var random = new Random(42);
+        final var assets = new UUID[ASSETS];
+        for (int i = 0; i < ASSETS; i++) assets[i] = UUID.randomUUID();
+        final var price = new MonetaryAmount(BigDecimal.TEN, CurrencyCode.USD);
+
+        final var events = new ArrayList<OrderEvent>(ORDERS * 3);
+        long sequence = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            final var orderId = UUID.randomUUID();
+            final var assetId = assets[random.nextInt(ASSETS)];
+            final int quantity = 1 + random.nextInt(100);
+            final boolean filled = random.nextInt(100) != 0;
+            final var types =
+                filled
+                    ? List.of(OrderEventType.CREATED, OrderEventType.APPROVED, OrderEventType.FILLED)
+                    : List.of(OrderEventType.CREATED, OrderEventType.APPROVED);
+            for (var type : types) {
+                events.add(
+                    OrderEvent.builder()
+                        .sequenceNumber(++sequence)
+                        .orderId(orderId)
+                        .assetId(assetId)
+                        .type(type)
+                        .direction(random.nextBoolean() ? Direction.BUY : Direction.SELL)
+                        .pricePerUnit(price)
+                        .remainingPortions(type == OrderEventType.FILLED ? 0 : quantity)
+                        .approved(type != OrderEventType.CREATED)
+                        .build()
+                );
+            }
+        }
+        return events;
+    }
+
+    @Test
+    void snapshotAndTailIsFasterThanFullReplay() throws Exception {
+        final var journal = generateJournal();
+        final int snapshotAt = journal.size() - TAIL_EVENTS;
+
+        long start = System.nanoTime();
+        final var full = new OpenOrderBook();
+        journal.forEach(full::apply);
+        final long fullReplayNanos = System.nanoTime() - start;
+
+        /* Build the snapshot outside of the measured section, as the scheduler would. */
+        final var head = new OpenOrderBook();
+        journal.subList(0, snapshotAt)
+            .forEach(head::apply);
+        final Map<UUID, String> snapshot = new HashMap<>();
+        for (UUID assetId : head.getAssetIds())
+            snapshot.put(assetId, objectMapper.writeValueAsString(head.getOpenOrders(assetId)));
+
+        start = System.nanoTime();
+        final var recovered = new OpenOrderBook();
+        for (var entry : snapshot.entrySet()) {
+            recovered.restore(
+                entry.getKey(),
+                head.getLastSequenceNumber(),
+                objectMapper.readValue(
+                    entry.getValue(),
+                    new TypeReference<List<OpenOrderBook.OpenOrder>>() {
+                    }
+                )
+            );
+        }
+        journal.subList(snapshotAt, journal.size())
+            .forEach(recovered::apply);
+        final long snapshotReplayNanos = System.nanoTime() - start;
+
+        LOGGER.info(
+            "Journal of {} events, {} open orders: full replay {} ms, snapshot + {} events {} ms",
+            journal.size(),
+            full.size(),
+            fullReplayNanos / 1_000_000,
+            TAIL_EVENTS,
+            snapshotReplayNanos / 1_000_000
+        );
+
+        assertThat(recovered.size()).isEqualTo(full.size());
+        assertThat(recovered.getLastSequenceNumber()).isEqualTo(full.getLastSequenceNumber());
+        for (UUID assetId : full.getAssetIds())
+            assertThat(recovered.getOpenOrders(assetId)).isEqualTo(full.getOpenOrders(assetId));
+    }
+}
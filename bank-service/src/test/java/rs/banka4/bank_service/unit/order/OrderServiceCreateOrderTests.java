@@ -20,6 +20,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import rs.banka4.bank_service.domain.actuaries.db.ActuaryInfo;
 import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
@@ -39,7 +40,10 @@ import rs.banka4.bank_service.repositories.AssetRepository;
 import rs.banka4.bank_service.repositories.OrderRepository;
 import rs.banka4.bank_service.repositories.UserRepository;
 import rs.banka4.bank_service.service.abstraction.AccountService;
+import rs.banka4.bank_service.service.abstraction.AssetVolumeService;
 import rs.banka4.bank_service.service.abstraction.ListingService;
+import rs.banka4.bank_service.service.abstraction.OrderFeeService;
+import rs.banka4.bank_service.service.impl.OrderJournalService;
 import rs.banka4.bank_service.service.impl.OrderServiceImpl;
 import rs.banka4.rafeisen.common.security.AuthenticatedBankUserAuthentication;
 import rs.banka4.rafeisen.common.security.AuthenticatedBankUserPrincipal;
@@ -62,6 +66,12 @@ public class OrderServiceCreateOrderTests {
     private UserRepository userRepository;
     @Mock
     private AccountService accountService;
+    @Mock
+    private AssetVolumeService assetVolumeService;
+    @Mock
+    private OrderJournalService orderJournalService;
+    @Mock
+    private OrderFeeService orderFeeService;
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -117,7 +127,7 @@ public class OrderServiceCreateOrderTests {
         when(assetRepository.findById(dto.assetId())).thenReturn(Optional.of(asset));
         when(actuaryRepository.findByUserId(userId)).thenReturn(Optional.of(actuaryInfo));
         when(listingService.findActiveListingByAsset(asset.getId())).thenReturn(
-            Optional.of(listing)
+            Optional.of(ListingQuote.of(listing))
         );
         when(orderMapper.toEntity(dto)).thenReturn(order);
         when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(
@@ -232,7 +242,7 @@ public class OrderServiceCreateOrderTests {
         when(assetRepository.findById(dto.assetId())).thenReturn(Optional.of(asset));
         when(actuaryRepository.findByUserId(userId)).thenReturn(Optional.of(actuaryInfo));
         when(listingService.findActiveListingByAsset(asset.getId())).thenReturn(
-            Optional.of(listing)
+            Optional.of(ListingQuote.of(listing))
         );
         when(orderMapper.toEntity(dto)).thenReturn(order);
         when(orderMapper.toDto(order)).thenReturn(orderDto);
@@ -0,0 +1,134 @@
+package rs.banka4.bank_service.unit.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import rs.banka4.bank_service.domain.account.db.Account;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.listing.db.Listing;
+import rs.banka4.bank_service.domain.listing.dtos.ListingQuote;
+import rs.banka4.bank_service.domain.options.db.Asset;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.dtos.CreateOrderPreviewDto;
+import rs.banka4.bank_service.generator.AccountObjectMother;
+import rs.banka4.bank_service.generator.AssetObjectMother;
+import rs.banka4.bank_service.generator.ListingObjectMother;
+import rs.banka4.bank_service.repositories.AssetRepository;
+import rs.banka4.bank_service.service.abstraction.AccountService;
+import rs.banka4.bank_service.service.abstraction.ExchangeRateService;
+import rs.banka4.bank_service.service.abstraction.ListingService;
+import rs.banka4.bank_service.service.impl.OrderServiceImpl;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServicePreviewTests {
+    @Mock
+    private AssetRepository assetRepository;
+    @Mock
+    private ListingService listingService;
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private ExchangeRateService exchangeRateService;
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    private Asset asset;
+    private Account account;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        asset = AssetObjectMother.generateBasicStock();
+        account = AccountObjectMother.generateBasicFromAccount();
+        listing = ListingObjectMother.generateBasicListing();
+
+        when(accountService.getAccountByAccountNumber(account.getAccountNumber())).thenReturn(
+            account
+        );
+        when(assetRepository.findById(asset.getId())).thenReturn(Optional.of(asset));
+        when(listingService.findActiveListingByAsset(asset.getId())).thenReturn(
+            Optional.of(ListingQuote.of(listing))
+        );
+        when(exchangeRateService.convertCurrency(any(), any(), any())).thenAnswer(
+            invocation -> invocation.getArgument(0)
+        );
+    }
+
+    private CreateOrderPreviewDto preview(int quantity) {
+        return preview(quantity, null);
+    }
+
+    private CreateOrderPreviewDto preview(int quantity, MonetaryAmount limit) {
+        return new CreateOrderPreviewDto(
+            asset.getId(),
+            quantity,
+            limit,
+            null,
+            false,
+            false,
+            Direction.BUY,
+            account.getAccountNumber()
+        );
+    }
+
+    @Test
+    void repeatedPreviewIsServedFromCache() {
+        var first = orderService.calculateAveragePrice(preview(3));
+        var second = orderService.calculateAveragePrice(preview(3));
+
+        assertThat(first.approximatePrice()).isEqualByComparingTo(BigDecimal.valueOf(3000));
+        assertThat(second.approximatePrice()).isEqualByComparingTo(first.approximatePrice());
+        verify(listingService, times(1)).findActiveListingByAsset(asset.getId());
+        /* The account is still looked up every time, as that is where it is checked. */
+        verify(accountService, times(2)).getAccountByAccountNumber(account.getAccountNumber());
+    }
+
+    @Test
+    void listingRefreshInvalidatesCachedPreview() {
+        orderService.calculateAveragePrice(preview(3));
+
+        listing.setAsk(BigDecimal.valueOf(1200));
+        when(listingService.findActiveListingByAsset(asset.getId())).thenReturn(
+            Optional.of(ListingQuote.of(listing))
+        );
+        when(listingService.getListingsVersion()).thenReturn(1L);
+        var refreshed = orderService.calculateAveragePrice(preview(3));
+
+        assertThat(refreshed.approximatePrice()).isEqualByComparingTo(BigDecimal.valueOf(3600));
+        verify(listingService, times(2)).findActiveListingByAsset(asset.getId());
+    }
+
+    @Test
+    void rateRefreshInvalidatesCachedPreview() {
+        orderService.calculateAveragePrice(preview(3));
+
+        when(exchangeRateService.getRatesVersion()).thenReturn(1744675201L);
+        orderService.calculateAveragePrice(preview(3));
+
+        verify(listingService, times(2)).findActiveListingByAsset(asset.getId());
+    }
+
+    @Test
+    void limitCurrencyIsPartOfThePreviewKey() {
+        orderService.calculateAveragePrice(
+            preview(3, new MonetaryAmount(BigDecimal.valueOf(900), CurrencyCode.USD))
+        );
+        orderService.calculateAveragePrice(
+            preview(3, new MonetaryAmount(BigDecimal.valueOf(900), CurrencyCode.EUR))
+        );
+
+        verify(listingService, times(2)).findActiveListingByAsset(asset.getId());
+    }
+}
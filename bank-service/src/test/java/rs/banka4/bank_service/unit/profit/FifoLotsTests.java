@@ -0,0 +1,130 @@
+package rs.banka4.bank_service.unit.profit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.FifoLots;
+import rs.banka4.bank_service.domain.assets.db.PositionLot;
+import rs.banka4.bank_service.domain.orders.db.Direction;
+import rs.banka4.bank_service.domain.orders.db.Order;
+import rs.banka4.bank_service.domain.orders.db.OrderType;
+import rs.banka4.rafeisen.common.currency.CurrencyCode;
+
+class FifoLotsTests {
+    private static Order order(Direction direction, OrderType type, int quantity, long price) {
+        return Order.builder()
+            .direction(direction)
+            .orderType(type)
+            .quantity(quantity)
+            .remainingPortions(quantity)
+            .pricePerUnit(new MonetaryAmount(BigDecimal.valueOf(price), CurrencyCode.USD))
+            .build();
+    }
+
+    /** Fills {@code quantity} more of {@code order}, returning the cost or proceeds with fees. */
+    private static BigDecimal fill(Order order, int quantity) {
+        order.setRemainingPortions(order.getRemainingPortions() - quantity);
+        var gross =
+            order.getPricePerUnit()
+                .getAmount()
+                .multiply(BigDecimal.valueOf(quantity));
+        var fee = FifoLots.feeForFill(order, quantity);
+        return order.getDirection() == Direction.BUY ? gross.add(fee) : gross.subtract(fee);
+    }
+
+    private static PositionLot lot(int quantity, BigDecimal cost) {
+        return PositionLot.builder()
+            .id(UUID.randomUUID())
+            .acquiredAt(OffsetDateTime.now())
+            .quantity(quantity)
+            .cost(cost)
+            .build();
+    }
+
+    @Test
+    void fullSellMatchesSingleBuy() {
+        // BUY 10 @ $10 => gross=100, fee= min(0.14*100=14,7)=7, cost basis=107
+        var buyCost = fill(order(Direction.BUY, OrderType.MARKET, 10, 10), 10);
+        // SELL same 10 @ $15 => gross=150, fee= min(0.14*150=21,7)=7, net=143
+        var sellNet = fill(order(Direction.SELL, OrderType.MARKET, 10, 15), 10);
+        var lots = new ArrayList<>(List.of(lot(10, buyCost)));
+
+        var consumed = FifoLots.consume(lots, 10);
+
+        // expected profit = sellNet(143) – buyCost(107) = 36
+        assertThat(consumed.quantity()).isEqualTo(10);
+        assertThat(sellNet.subtract(consumed.cost())).isEqualByComparingTo("36");
+        assertThat(
+            lots.getFirst()
+                .getQuantity()
+        ).isZero();
+    }
+
+    @Test
+    void partialSellAcrossTwoBuys() {
+        // BUY #1: 10 @ $10 => cost=100+7=107
+        var cost1 = fill(order(Direction.BUY, OrderType.MARKET, 10, 10), 10);
+        // BUY #2: 20 @ $12 => cost=240+ (0.14*240=33.6→min33.6,7)=247
+        var cost2 = fill(order(Direction.BUY, OrderType.MARKET, 20, 12), 20);
+        // SELL 15 @ $14 => gross=210, fee=min(0.14*210=29.4,7)=7, net=203
+        var sellNet = fill(order(Direction.SELL, OrderType.MARKET, 15, 14), 15);
+        var lots = new ArrayList<>(List.of(lot(10, cost1), lot(20, cost2)));
+
+        var consumed = FifoLots.consume(lots, 15);
+
+        /*
+         * Matching 15 FIFO: • 10 from buy1 @ cost 107 • 5 from buy2 @ cost = (5/20)*247 = 61.75
+         * total cost = 107 + 61.75 = 168.75 sellNet = 203 profit = 203 - 168.75 = 34.25
+         */
+        assertThat(sellNet.subtract(consumed.cost())).isEqualByComparingTo("34.25");
+        assertThat(
+            lots.get(1)
+                .getQuantity()
+        ).isEqualTo(15);
+        assertThat(
+            lots.get(1)
+                .getCost()
+        ).isEqualByComparingTo("185.25");
+    }
+
+    @Test
+    void feeIsChargedOnceAcrossPartialFills() {
+        var buy = order(Direction.BUY, OrderType.LIMIT, 100, 10);
+
+        // 24% of 10 * 10 = 24, capped at 12, all on the first fill.
+        assertThat(fill(buy, 10)).isEqualByComparingTo("112");
+        assertThat(fill(buy, 50)).isEqualByComparingTo("500");
+        assertThat(fill(buy, 40)).isEqualByComparingTo("400");
+
+        var small = order(Direction.BUY, OrderType.MARKET, 10, 1);
+        // 14% of each fill, as the total stays under the cap.
+        assertThat(fill(small, 4)).isEqualByComparingTo("4.56");
+        assertThat(fill(small, 6)).isEqualByComparingTo("6.84");
+    }
+
+    @Test
+    void doneOrdersCountInFull() {
+        var sell = order(Direction.SELL, OrderType.MARKET, 50, 25);
+        sell.setRemainingPortions(10);
+        assertThat(FifoLots.filled(sell)).isEqualTo(40);
+
+        sell.setDone(true);
+        assertThat(FifoLots.filled(sell)).isEqualTo(50);
+    }
+
+    @Test
+    void sellBeyondOpenLotsConsumesWhatIsThere() {
+        var lots = new ArrayList<>(List.of(lot(5, new BigDecimal("50"))));
+
+        var consumed = FifoLots.consume(lots, 8);
+
+        assertThat(consumed.quantity()).isEqualTo(5);
+        assertThat(consumed.cost()).isEqualByComparingTo("50");
+    }
+}
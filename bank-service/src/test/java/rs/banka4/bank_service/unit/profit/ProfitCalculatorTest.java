@@ -1,27 +1,35 @@
 package rs.banka4.bank_service.unit.profit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import rs.banka4.bank_service.domain.actuaries.db.MonetaryAmount;
+import rs.banka4.bank_service.domain.assets.db.Position;
+import rs.banka4.bank_service.domain.assets.db.PositionId;
+import rs.banka4.bank_service.domain.assets.db.RealizedProfitTotal;
 import rs.banka4.bank_service.domain.options.db.Asset;
 import rs.banka4.bank_service.domain.orders.db.Direction;
 import rs.banka4.bank_service.domain.orders.db.Order;
 import rs.banka4.bank_service.domain.orders.db.OrderType;
 import rs.banka4.bank_service.domain.user.User;
 import rs.banka4.bank_service.domain.user.client.db.Client;
-import rs.banka4.bank_service.repositories.OrderRepository;
+import rs.banka4.bank_service.domain.user.employee.db.Employee;
+import rs.banka4.bank_service.repositories.PositionRepository;
+import rs.banka4.bank_service.repositories.RealizedProfitRepository;
+import rs.banka4.bank_service.service.abstraction.ExchangeRateService;
 import rs.banka4.bank_service.service.impl.ProfitCalculationServiceImpl;
 import rs.banka4.rafeisen.common.currency.CurrencyCode;
 
@@ -29,9 +37,14 @@ import rs.banka4.rafeisen.common.currency.CurrencyCode;
 class ProfitCalculatorTest {
 
     @Mock
-    private OrderRepository orderRepository;
+    private PositionRepository positionRepository;
+
+    @Mock
+    private RealizedProfitRepository realizedProfitRepository;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
 
-    @InjectMocks
     private ProfitCalculationServiceImpl profitCalculator;
 
     private final UUID userId = UUID.randomUUID();
@@ -44,13 +57,7 @@ class ProfitCalculatorTest {
     private final CurrencyCode C = CurrencyCode.USD;
     private final User user = new Client();
 
-    private Order buildOrder(
-        Direction dir,
-        int quantity,
-        BigDecimal pricePerUnit,
-        boolean isDone,
-        OffsetDateTime createdAt
-    ) {
+    private Order buildOrder(Direction dir, int quantity, BigDecimal pricePerUnit) {
         return Order.builder()
             .id(UUID.randomUUID())
             .user(user)
@@ -60,107 +67,122 @@ class ProfitCalculatorTest {
             .remainingPortions(0)
             .pricePerUnit(new MonetaryAmount(pricePerUnit, C))
             .direction(dir)
-            .status(
-                isDone
-                    ? rs.banka4.bank_service.domain.orders.db.Status.APPROVED
-                    : rs.banka4.bank_service.domain.orders.db.Status.PENDING
-            )
-            .isDone(isDone)
-            .createdAt(createdAt)
-            .lastModified(createdAt)
+            .status(rs.banka4.bank_service.domain.orders.db.Status.APPROVED)
+            .isDone(true)
+            .createdAt(OffsetDateTime.now())
+            .lastModified(OffsetDateTime.now())
             .contractSize(1)
-            .remainingPortions(0)
             .afterHours(false)
-            .limitValue(null)
-            .stopValue(null)
             .allOrNothing(false)
             .margin(false)
-            .account(null)
             .used(false)
             .build();
     }
 
     @BeforeEach
     void setup() {
+        profitCalculator =
+            new ProfitCalculationServiceImpl(
+                positionRepository,
+                realizedProfitRepository,
+                null,
+                exchangeRateService,
+                null,
+                0
+            );
         user.setId(userId);
     }
 
     @Test
-    void fullSellMatchesSingleBuy() {
-        // BUY 10 @ $10 => gross=100, fee= min(0.14*100=14,7)=7, cost basis=107
-        Order buy =
-            buildOrder(
-                Direction.BUY,
-                10,
-                BigDecimal.valueOf(10),
-                true,
-                OffsetDateTime.now()
-                    .minusHours(1)
-            );
-        // SELL same 10 @ $15 => gross=150, fee= min(0.14*150=21,7)=7, net=143
-        Order sell =
-            buildOrder(Direction.SELL, 10, BigDecimal.valueOf(15), true, OffsetDateTime.now());
-
-        when(
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                eq(userId),
-                eq(fakeAsset),
-                eq(Direction.BUY),
-                eq(true)
-            )
-        ).thenReturn(List.of(buy));
-
+    void realizedProfitIsWhatTheLedgerRecorded() {
+        Order sell = buildOrder(Direction.SELL, 15, BigDecimal.valueOf(14));
+        when(realizedProfitRepository.sumProfitBySellOrderId(sell.getId())).thenReturn(
+            new BigDecimal("34.25")
+        );
 
         MonetaryAmount realized = profitCalculator.calculateRealizedProfitForSell(sell);
 
-        // expected profit = sellNet(143) – buyCost(107) = 36
         assertEquals(
             0,
             realized.getAmount()
-                .compareTo(BigDecimal.valueOf(36))
+                .compareTo(new BigDecimal("34.25"))
         );
         assertEquals(C, realized.getCurrency());
     }
 
     @Test
-    void partialSellAcrossTwoBuys() {
-        OffsetDateTime t0 =
-            OffsetDateTime.now()
-                .minusHours(2);
-        OffsetDateTime t1 = t0.plusMinutes(10);
-        OffsetDateTime t2 = t1.plusMinutes(10);
-
-        // BUY #1: 10 @ $10 => cost=100+7=107
-        Order buy1 = buildOrder(Direction.BUY, 10, BigDecimal.valueOf(10), true, t0);
-        // BUY #2: 20 @ $12 => cost=240+ (0.14*240=33.6→min33.6,7)=247
-        Order buy2 = buildOrder(Direction.BUY, 20, BigDecimal.valueOf(12), true, t1);
-        // SELL 15 @ $14 => gross=210, fee=min(0.14*210=29.4,7)=7, net=203
-        Order sell = buildOrder(Direction.SELL, 15, BigDecimal.valueOf(14), true, t2);
+    void unrealizedProfitUsesAverageCostOfOpenLots() {
+        // 15 left of 20 bought for 247 => cost basis 185.25, average 12.35
+        var id = new PositionId(userId, fakeAsset.getId());
+        when(positionRepository.findById(id)).thenReturn(
+            Optional.of(new Position(id, 15, new BigDecimal("185.25")))
+        );
 
-        when(
-            orderRepository.findByUserIdAndAssetAndDirectionAndIsDone(
-                eq(userId),
-                eq(fakeAsset),
-                eq(Direction.BUY),
-                eq(true)
-            )
-        ).thenReturn(List.of(buy1, buy2));
+        MonetaryAmount unrealized =
+            profitCalculator.calculateProfit(
+                userId,
+                fakeAsset,
+                new MonetaryAmount(BigDecimal.valueOf(14), C),
+                15
+            );
+
+        // (14 - 12.35) * 15 = 24.75
+        assertEquals(
+            0,
+            unrealized.getAmount()
+                .compareTo(new BigDecimal("24.75"))
+        );
+        assertEquals(C, unrealized.getCurrency());
+    }
 
+    @Test
+    void noPositionMeansNoUnrealizedProfit() {
+        when(positionRepository.findById(new PositionId(userId, fakeAsset.getId()))).thenReturn(
+            Optional.empty()
+        );
 
-        MonetaryAmount realized = profitCalculator.calculateRealizedProfitForSell(sell);
+        MonetaryAmount unrealized =
+            profitCalculator.calculateProfit(
+                userId,
+                fakeAsset,
+                new MonetaryAmount(BigDecimal.valueOf(14), C),
+                0
+            );
 
-        /*
-         * Matching 15 FIFO: • 10 from buy1 @ cost 107 • 5 from buy2 @ cost = (5/20)*247 = 61.75
-         * total cost = 107 + 61.75 = 168.75 sellNet = 203 profit = 203 - 168.75 = 34.25
-         */
         assertEquals(
             0,
-            realized.getAmount()
-                .compareTo(
-                    BigDecimal.valueOf(34.25)
-                        .setScale(2)
-                )
+            unrealized.getAmount()
+                .compareTo(BigDecimal.ZERO)
         );
-        assertEquals(C, realized.getCurrency());
+    }
+
+    @Test
+    void actuaryProfitIsGroupedAndCachedUntilEvicted() {
+        var actuary = new Employee();
+        actuary.setId(userId);
+        when(realizedProfitRepository.sumProfitByUserIds(Set.of(userId))).thenReturn(
+            List.of(
+                new RealizedProfitTotal(userId, CurrencyCode.RSD, new BigDecimal("100")),
+                new RealizedProfitTotal(userId, CurrencyCode.EUR, new BigDecimal("10"))
+            )
+        );
+        when(
+            exchangeRateService.convertCurrency(
+                new BigDecimal("10"),
+                CurrencyCode.EUR,
+                CurrencyCode.RSD
+            )
+        ).thenReturn(new BigDecimal("1170"));
+
+        var first = profitCalculator.calculateRealizedProfitForActuary(actuary);
+        var second = profitCalculator.calculateRealizedProfitForActuaries(List.of(actuary));
+
+        assertEquals(new MonetaryAmount(new BigDecimal("1270"), CurrencyCode.RSD), first);
+        assertEquals(first, second.get(userId));
+        verify(realizedProfitRepository, times(1)).sumProfitByUserIds(Set.of(userId));
+
+        profitCalculator.evictRealizedProfit(userId);
+        profitCalculator.calculateRealizedProfitForActuary(actuary);
+        verify(realizedProfitRepository, times(2)).sumProfitByUserIds(Set.of(userId));
     }
 }
@@ -103,7 +103,7 @@ public class ListingGenerator {
                         .ask(ask)
                         .bid(bid)
                         .contractSize(getContractSize(security, generator))
-                        .active(dayOffset == 0)
+                        .active(dayOffset == 0 && i == 2)
                         .build();
                 askHigh = askHigh == null ? ask : ask.max(askHigh);
                 bidLow = bidLow == null ? bid : bid.min(bidLow);
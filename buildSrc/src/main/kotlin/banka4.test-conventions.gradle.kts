@@ -9,7 +9,7 @@ dependencies {
 
 tasks.test {
 	useJUnitPlatform {
-		excludeTags("integration")
+		excludeTags("integration", "benchmark")
 	}
 }
 
@@ -20,8 +20,8 @@ val integrationTest = tasks.register<Test>("integrationTest") {
 		"Runs tests marked as integration tests.  These are slower, so, they are separate."
 	useJUnitPlatform {
 		includeTags("integration")
-		// Don't include untagged stuff.
-		excludeTags("none()")
+		// Don't include untagged stuff, nor benchmarks which need a database.
+		excludeTags("none()", "benchmark")
 	}
 	shouldRunAfter("test")
 
@@ -29,6 +29,20 @@ val integrationTest = tasks.register<Test>("integrationTest") {
 	classpath = files(test.map { it.sources.runtimeClasspath })
 }
 
+/* Not part of check: benchmarks are slow and only meaningful on a quiet machine.  */
+tasks.register<Test>("benchmarkTest") {
+	group = "verification"
+	description = "Runs tests marked as benchmarks and logs their timings."
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	outputs.upToDateWhen { false }
+	testLogging.showStandardStreams = true
+
+	testClassesDirs = files(test.map { it.sources.output.classesDirs })
+	classpath = files(test.map { it.sources.runtimeClasspath })
+}
+
 tasks.jacocoTestReport {
 	// Sync the path up with below.
 	reports {
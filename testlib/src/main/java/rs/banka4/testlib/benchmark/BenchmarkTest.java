@@ -0,0 +1,20 @@
+package rs.banka4.testlib.benchmark;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Marks a test as a benchmark. These are excluded from the regular test runs, and are run with the
+ * {@code benchmarkTest} task instead.
+ */
+@Tag("benchmark")
+@Target({
+    ElementType.TYPE, ElementType.METHOD
+})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BenchmarkTest {
+
+}